@@ -0,0 +1,170 @@
+/*
+ * BenchmarkRunner Class: Small JMH-style harness for the benchmarks in this package.
+ *
+ * Each benchmark is calibrated to a batch size that takes about one iteration time, run for a number of warmup
+ * iterations, then measured; the mean, standard deviation, min and max nanoseconds per operation are kept per
+ * (benchmark, world size) and can be written as JSON or CSV so runs from different releases can be diffed.
+ */
+
+package Benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+public class BenchmarkRunner {
+
+    // Operation under test: runs it the given number of times and returns something derived from the results, so
+    // the JIT cannot drop the work.
+    @FunctionalInterface
+    public interface Operation {
+        long run(int operations) throws Exception;
+    }
+
+    // Measurement of one benchmark at one world size.
+    public static final class Result {
+
+        private final String benchmark;
+        private final int worldSize;
+        private final long operationsPerIteration;
+        private final double meanNanos;
+        private final double stdDevNanos;
+        private final double minNanos;
+        private final double maxNanos;
+
+        private Result(String benchmark, int worldSize, long operationsPerIteration, double[] samples) {
+            this.benchmark = benchmark;
+            this.worldSize = worldSize;
+            this.operationsPerIteration = operationsPerIteration;
+
+            double sum = 0;
+            double min = Double.MAX_VALUE;
+            double max = 0;
+            for (double sample : samples) {
+                sum += sample;
+                min = Math.min(min, sample);
+                max = Math.max(max, sample);
+            }
+            double mean = sum / samples.length;
+            double squares = 0;
+            for (double sample : samples) {
+                squares += (sample - mean) * (sample - mean);
+            }
+            this.meanNanos = mean;
+            this.stdDevNanos = samples.length > 1 ? Math.sqrt(squares / (samples.length - 1)) : 0;
+            this.minNanos = min;
+            this.maxNanos = max;
+        }
+
+        // Getters
+        public String getBenchmark() { return benchmark; }
+        public int getWorldSize() { return worldSize; }
+        public double getMeanNanos() { return meanNanos; }
+        public double getStdDevNanos() { return stdDevNanos; }
+    }
+
+    private final int warmupIterations;
+    private final int measurementIterations;
+    private final long iterationNanos;
+    private final List<Result> results = new ArrayList<>();
+    private long sink; // Keeps the operations' results alive
+
+    // Constructor
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    // Getters
+    public List<Result> getResults() { return Collections.unmodifiableList(results); }
+
+    /**
+     * Calibrates, warms up and measures one benchmark.
+     * @param benchmark name
+     * @param worldSize number of rooms of the world it runs on
+     * @param operation
+     * @return the measurement (also kept for writeJson and writeCsv)
+     * @throws Exception if the operation fails
+     */
+    public Result run(String benchmark, int worldSize, Operation operation) throws Exception {
+        // Double the batch until it takes a noticeable time, then scale it to one iteration.
+        int batch = 1;
+        long elapsed;
+        while (true) {
+            long start = System.nanoTime();
+            sink += operation.run(batch);
+            elapsed = System.nanoTime() - start;
+            if (elapsed >= iterationNanos / 10 || batch >= (1 << 29)) {
+                break;
+            }
+            batch *= 2;
+        }
+        batch = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (double) batch * iterationNanos / Math.max(1, elapsed)));
+
+        for (int i = 0; i < warmupIterations; i++) {
+            sink += operation.run(batch);
+        }
+        double[] samples = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            long start = System.nanoTime();
+            sink += operation.run(batch);
+            samples[i] = (System.nanoTime() - start) / (double) batch;
+        }
+
+        Result result = new Result(benchmark, worldSize, batch, samples);
+        results.add(result);
+        System.out.printf(Locale.ROOT, "%-36s %10d %14.1f +/- %-10.1f ns/op%n",
+                benchmark, worldSize, result.meanNanos, result.stdDevNanos);
+        return result;
+    }
+
+    /**
+     * Writes every result as a JSON document.
+     * @param file
+     * @throws IOException
+     */
+    public void writeJson(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("{\n  \"timestamp\": \"" + Instant.now() + "\",\n");
+            writer.write("  \"java\": \"" + System.getProperty("java.version") + "\",\n");
+            writer.write("  \"processors\": " + Runtime.getRuntime().availableProcessors() + ",\n");
+            writer.write("  \"results\": [\n");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                writer.write(String.format(Locale.ROOT,
+                        "    {\"benchmark\": \"%s\", \"worldSize\": %d, \"operationsPerIteration\": %d, \"iterations\": %d, "
+                                + "\"meanNs\": %.3f, \"stdDevNs\": %.3f, \"minNs\": %.3f, \"maxNs\": %.3f}%s\n",
+                        r.benchmark, r.worldSize, r.operationsPerIteration, measurementIterations,
+                        r.meanNanos, r.stdDevNanos, r.minNanos, r.maxNanos, i + 1 < results.size() ? "," : ""));
+            }
+            writer.write("  ]\n}\n");
+        }
+    }
+
+    /**
+     * Writes every result as CSV, one row per benchmark and world size.
+     * @param file
+     * @throws IOException
+     */
+    public void writeCsv(Path file) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("benchmark,worldSize,operationsPerIteration,iterations,meanNs,stdDevNs,minNs,maxNs\n");
+            for (Result r : results) {
+                writer.write(String.format(Locale.ROOT, "%s,%d,%d,%d,%.3f,%.3f,%.3f,%.3f\n",
+                        r.benchmark, r.worldSize, r.operationsPerIteration, measurementIterations,
+                        r.meanNanos, r.stdDevNanos, r.minNanos, r.maxNanos));
+            }
+        }
+    }
+
+    // Value derived from every operation result (print it if it would otherwise be unused).
+    public long getSink() { return sink; }
+}
@@ -0,0 +1,168 @@
+/*
+ * CommandLogRecoveryCheck Class: Crashes a logged session at every third command of a transcript and rebuilds it
+ * from its CommandLog, with several snapshot intervals, forced reshuffles and torn log tails. The recovered session
+ * must match the original's save and produce the same output for the rest of the transcript, and a finished game
+ * must leave no files behind. Then measures synchronous appends from many sessions sharing the group commit.
+ *
+ * Usage: CommandLogRecoveryCheck [transcript] [sessions] [appendsPerSession]
+ */
+
+package Benchmark;
+
+import Controller.CommandLog;
+import Controller.GameSession;
+import Model.Reader;
+import Model.World;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class CommandLogRecoveryCheck {
+
+    private static final int[] SNAPSHOT_INTERVALS = { 1000, 7, 1 };
+    private static final int CRASH_EVERY = 3;
+    private static final int RESHUFFLE_EVERY = 5;
+    private static final byte[] TORN_RECORD = { 0, 0, 0, 9, 1, 2 };
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path transcript = Path.of(args.length > 0 ? args[0] : "data/transcripts/campus-tour.txt");
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int appends = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+
+        World world = World.shared(new Reader(Reader.DEFAULT_DATA_DIRECTORY));
+        List<String> commands = readTranscript(transcript);
+        int failures = 0;
+        int crashes = 0;
+        for (int interval : SNAPSHOT_INTERVALS) {
+            for (int crashAt = 0; crashAt < commands.size(); crashAt += CRASH_EVERY) {
+                String failure = crashAndRecover(world, commands, interval, crashAt);
+                crashes++;
+                if (failure != null) {
+                    failures++;
+                    System.err.printf("interval %d, crash after %d command(s): %s%n", interval, crashAt, failure);
+                }
+            }
+        }
+        System.out.printf("%d crash(es) recovered, %d commands each%n", crashes - failures, commands.size());
+
+        measureGroupCommit(sessions, appends);
+        System.out.println("failures=" + failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Returns what went wrong, or null if the recovered session behaves like the original.
+    private static String crashAndRecover(World world, List<String> commands, int interval, int crashAt) throws IOException {
+        Path directory = Files.createTempDirectory("wal");
+        try {
+            CommandLog log = new CommandLog(directory, true, interval);
+            GameSession original = newSession(world);
+            original.attachLog(log.open(1));
+            original.open();
+            for (int i = 0; i < crashAt && !original.isEnded(); i++) {
+                if (i % RESHUFFLE_EVERY == RESHUFFLE_EVERY - 1) {
+                    original.requestReshuffle();
+                }
+                original.submit(commands.get(i));
+            }
+            if (original.isEnded()) {
+                log.close();
+                return null;
+            }
+            if (crashAt % 2 == 0) {
+                Files.write(directory.resolve("session-1.wal"), TORN_RECORD, StandardOpenOption.APPEND);
+            }
+
+            // The crash: the original's log is abandoned and a new instance recovers from the files.
+            CommandLog recoveredLog = new CommandLog(directory, true, interval);
+            if (!recoveredLog.sessionIds().equals(List.of(1L))) {
+                return "recoverable sessions " + recoveredLog.sessionIds();
+            }
+            GameSession recovered = newSession(world);
+            recovered.recover(recoveredLog.open(1));
+            if (!Arrays.equals(original.save(), recovered.save())) {
+                return "recovered state differs";
+            }
+            for (int i = crashAt; i < commands.size() && !original.isEnded(); i++) {
+                String expected = original.submit(commands.get(i)).getOutput();
+                if (!expected.equals(recovered.submit(commands.get(i)).getOutput())) {
+                    return "output differs at command " + i + " (" + commands.get(i) + ")";
+                }
+            }
+            boolean ended = recovered.isEnded();
+            recovered.close();
+            recoveredLog.close();
+            log.close();
+            if (ended && (Files.exists(directory.resolve("session-1.wal"))
+                    || Files.exists(directory.resolve("session-1.snapshot")))) {
+                return "finished game left files";
+            }
+            return null;
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    // Synchronous appends from concurrent sessions, which share fsyncs through the group commit.
+    private static void measureGroupCommit(int sessions, int appends) throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("wal");
+        try (CommandLog log = new CommandLog(directory, true, Integer.MAX_VALUE)) {
+            Thread[] threads = new Thread[sessions];
+            long start = System.nanoTime();
+            for (int t = 0; t < sessions; t++) {
+                long sessionId = t;
+                threads[t] = new Thread(() -> {
+                    try {
+                        CommandLog.SessionLog sessionLog = log.open(sessionId);
+                        for (int i = 0; i < appends; i++) {
+                            sessionLog.appendCommand("explore");
+                        }
+                        sessionLog.close(true);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }, "appender-" + t);
+                threads[t].start();
+            }
+            for (Thread thread : threads) { thread.join(); }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%,d synchronous appends from %d sessions: %,.0f appends/sec%n",
+                    (long) sessions * appends, sessions, (long) sessions * appends / (elapsed / 1e9));
+        } finally {
+            deleteDirectory(directory);
+        }
+    }
+
+    private static GameSession newSession(World world) {
+        GameSession session = new GameSession(world);
+        session.setPaced(false);
+        session.setAutoContinue(true);
+        return session;
+    }
+
+    private static List<String> readTranscript(Path transcript) throws IOException {
+        List<String> commands = new ArrayList<>();
+        for (String line : Files.readAllLines(transcript, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                commands.add(trimmed);
+            }
+        }
+        return commands;
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+}
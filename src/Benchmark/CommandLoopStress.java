@@ -0,0 +1,115 @@
+/*
+ * CommandLoopStress Class: Drives a million scripted commands through one CommandProcessor session and checks that
+ * the stack depth at every prompt stays the same, then reports commands per second.
+ *
+ * The script walks a generated campus picking up scantrons, exploring, opening help and answering whatever quizzes
+ * come up, so every phase of the state machine is exercised. Game output is discarded while it runs.
+ *
+ * Usage: CommandLoopStress [commands]
+ */
+
+package Benchmark;
+
+import Controller.Manager.CommandProcessor;
+import Model.MappedReader;
+import Model.Player;
+import Model.World;
+import View.View;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+
+public class CommandLoopStress {
+
+    private static final int ROOM_COUNT = 100;
+    private static final String[] SCRIPT = {
+        "pk scantron", "e", "explore", "inspect scantron", "a", "s", "backpack", "b", "w", "h", "", "n", "c", "north"
+    };
+
+    public static void main(String[] args) throws IOException {
+        long commands = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000L;
+
+        World world = World.load(new MappedReader(WorldGenerator.generate(ROOM_COUNT).toString()));
+        DepthCheckingView view = new DepthCheckingView();
+        CommandProcessor commandProcessor = new CommandProcessor(view, world, new Player(null, null));
+        BufferedReader script = new BufferedReader(new ScriptReader(commands));
+
+        long start = System.nanoTime();
+        commandProcessor.gameOpening();
+        commandProcessor.showPromptForPhase();
+        String line;
+        while ((line = script.readLine()) != null && commandProcessor.handleInput(line)) {
+            // One command per iteration
+        }
+        commandProcessor.endSession();
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("commands=%d prompts=%d seconds=%.2f commands/sec=%.0f stackDepth=%d..%d%n",
+                commands, view.prompts, elapsed / 1e9, commands / (elapsed / 1e9), view.minDepth, view.maxDepth);
+        if (view.maxDepth != view.minDepth) {
+            System.err.println("Stack depth grew during the session");
+            System.exit(1);
+        }
+    }
+
+    // View that records the stack depth every time it shows the input prompt.
+    private static final class DepthCheckingView extends View {
+
+        private long prompts;
+        private int minDepth = Integer.MAX_VALUE;
+        private int maxDepth;
+
+        DepthCheckingView() {
+            super(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @Override
+        public void showInputIndicator() {
+            prompts++;
+            if (prompts > 1) { // The first prompt comes from outside the loop
+                int depth = Thread.currentThread().getStackTrace().length;
+                minDepth = Math.min(minDepth, depth);
+                maxDepth = Math.max(maxDepth, depth);
+            }
+            super.showInputIndicator();
+        }
+    }
+
+    // Generates the script lazily: the menu and name prompts, then the command cycle until the count is reached.
+    private static final class ScriptReader extends Reader {
+
+        private final long commands;
+        private long issued;
+        private String line = "start\nstress\n\n";
+        private int position;
+
+        ScriptReader(long commands) {
+            this.commands = commands;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            int written = 0;
+            while (written < length) {
+                if (position == line.length()) {
+                    if (issued == commands) {
+                        break;
+                    }
+                    line = SCRIPT[(int) (issued++ % SCRIPT.length)] + "\n";
+                    position = 0;
+                }
+                int count = Math.min(length - written, line.length() - position);
+                line.getChars(position, position + count, buffer, offset + written);
+                position += count;
+                written += count;
+            }
+            return written == 0 ? -1 : written;
+        }
+
+        @Override
+        public void close() { }
+    }
+}
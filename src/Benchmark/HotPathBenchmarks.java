@@ -0,0 +1,182 @@
+/*
+ * HotPathBenchmarks Class: Benchmarks the engine's hot paths over synthetic worlds of increasing size and saves the
+ * results as JSON and CSV, so regressions can be diffed between releases.
+ *
+ * Covered: Reader / MappedReader loading, RoomsManager lookups, ItemsManager room counts and reshuffles,
+ * PuzzlesManager room lookups, PlayersManager.indicateNewRoom and displayInventory, and the full command dispatch
+ * of a headless session.
+ *
+ * Usage: HotPathBenchmarks [--sizes 100,1000,...] [--out directory] [--iterations n] [--warmup n] [--millis n]
+ */
+
+package Benchmark;
+
+import Controller.GameSession;
+import Model.MappedReader;
+import Model.Player;
+import Model.Reader;
+import Model.Room;
+import Model.RoomIndex;
+import Model.World;
+import Model.Managers.ItemsManager;
+import Model.Managers.PlayersManager;
+import Model.Managers.PuzzlesManager;
+import Model.Managers.RoomsManager;
+import View.View;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class HotPathBenchmarks {
+
+    private static final int[] DEFAULT_SIZES = { 100, 1_000, 10_000, 100_000 };
+    private static final String[] COMMANDS = { "explore", "e", "inspect scantron", "w", "backpack", "pk scantron", "ex", "s", "n" };
+    private static final int TARGETS = 1024; // Random room ids per benchmark (power of two)
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = DEFAULT_SIZES;
+        Path outDirectory = Path.of("bench-results");
+        int warmup = 3;
+        int iterations = 5;
+        long millis = 200;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sizes":
+                    String[] parts = args[++i].split(",");
+                    sizes = new int[parts.length];
+                    for (int p = 0; p < parts.length; p++) { sizes[p] = Integer.parseInt(parts[p].trim()); }
+                    break;
+                case "--out": outDirectory = Path.of(args[++i]); break;
+                case "--iterations": iterations = Integer.parseInt(args[++i]); break;
+                case "--warmup": warmup = Integer.parseInt(args[++i]); break;
+                case "--millis": millis = Long.parseLong(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmup, iterations, millis);
+        System.out.printf("%-36s %10s %29s%n", "benchmark", "rooms", "mean +/- stddev");
+        for (int size : sizes) {
+            runWorld(runner, size);
+        }
+
+        Files.createDirectories(outDirectory);
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        runner.writeJson(outDirectory.resolve("hot-paths-" + stamp + ".json"));
+        runner.writeCsv(outDirectory.resolve("hot-paths-" + stamp + ".csv"));
+        System.out.println("Results written to " + outDirectory.toAbsolutePath() + " (sink " + (runner.getSink() & 1) + ")");
+    }
+
+    private static void runWorld(BenchmarkRunner runner, int size) throws Exception {
+        String dataDirectory = WorldGenerator.generate(size).toString();
+        World world = World.load(new MappedReader(dataDirectory));
+        int[] targets = new SplittableRandom(size).ints(TARGETS, 1, size + 1).toArray();
+        View silentView = new View(new PrintStream(OutputStream.nullOutputStream()));
+
+        // Loading
+        runner.run("Reader.load", size, operations -> {
+            long total = 0;
+            for (int i = 0; i < operations; i++) {
+                total += World.load(new Reader(dataDirectory)).getRooms().size();
+            }
+            return total;
+        });
+        runner.run("MappedReader.load", size, operations -> {
+            long total = 0;
+            for (int i = 0; i < operations; i++) {
+                total += World.load(new MappedReader(dataDirectory)).getRooms().size();
+            }
+            return total;
+        });
+
+        // Rooms
+        RoomsManager roomsManager = new RoomsManager(world);
+        runner.run("RoomsManager.findRoomById", size, operations -> {
+            long total = 0;
+            for (int i = 0; i < operations; i++) {
+                total += roomsManager.findRoomById(targets[i & (TARGETS - 1)]).getRoomId();
+            }
+            return total;
+        });
+        runner.run("RoomsManager.getRoomExitId", size, operations -> {
+            long total = 0;
+            for (int i = 0; i < operations; i++) {
+                total += roomsManager.getRoomExitId(targets[i & (TARGETS - 1)], i & 3);
+            }
+            return total;
+        });
+
+        // Items
+        ItemsManager itemsManager = new ItemsManager(world);
+        itemsManager.randomlyPlaceScantrons();
+        runner.run("ItemsManager.getItemCountInRoom", size, operations -> {
+            long total = 0;
+            for (int i = 0; i < operations; i++) {
+                total += itemsManager.getItemCountInRoom(targets[i & (TARGETS - 1)]);
+            }
+            return total;
+        });
+        runner.run("ItemsManager.randomlyPlaceScantrons", size, operations -> {
+            for (int i = 0; i < operations; i++) {
+                itemsManager.randomlyPlaceScantrons();
+            }
+            return itemsManager.getPlacementVersion();
+        });
+
+        // Puzzles
+        PuzzlesManager puzzlesManager = new PuzzlesManager(world, silentView);
+        runner.run("PuzzlesManager.getPuzzlesByRoomId", size, operations -> {
+            long total = 0;
+            for (int i = 0; i < operations; i++) {
+                total += puzzlesManager.getPuzzlesByRoomId(targets[i & (TARGETS - 1)]).size();
+            }
+            return total;
+        });
+
+        // Player (a long session: 1,000 rooms already visited)
+        PlayersManager playersManager = new PlayersManager(new Player("bench", world.getRooms().get(0)), silentView, world);
+        List<Room> rooms = world.getRooms();
+        for (int i = 0; i < Math.min(rooms.size(), 1_000); i++) {
+            playersManager.setCurrentRoom(rooms.get(i));
+        }
+        for (int ordinal = 0; ordinal < Math.min(9, world.getItems().size()); ordinal++) {
+            playersManager.addItemToInventory(world.getItemIndex().keyOf(ordinal));
+        }
+        RoomIndex roomIndex = world.getRoomIndex();
+        runner.run("PlayersManager.indicateNewRoom", size, operations -> {
+            long total = 0;
+            for (int i = 0; i < operations; i++) {
+                total += playersManager.indicateNewRoom(roomIndex.findRoomById(targets[i & (TARGETS - 1)])) ? 1 : 0;
+            }
+            return total;
+        });
+        runner.run("PlayersManager.displayInventory", size, operations -> {
+            for (int i = 0; i < operations; i++) {
+                playersManager.displayInventory();
+            }
+            return operations;
+        });
+
+        // Full dispatch of in-game commands through a headless session
+        try (GameSession session = new GameSession(world)) {
+            session.setPaced(false);
+            session.setAutoContinue(true);
+            session.open();
+            session.submit("start");
+            session.submit("bench");
+            runner.run("CommandProcessor.dispatch", size, operations -> {
+                long total = 0;
+                for (int i = 0; i < operations; i++) {
+                    total += session.submit(COMMANDS[i % COMMANDS.length]).getByteCount();
+                }
+                return total;
+            });
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * LatencyHistogram Class: Concurrent log-linear histogram of latencies in nanoseconds.
+ *
+ * Every power of two is split into 32 linear sub-buckets, so any recorded value is reported within about 3% of its
+ * true value while the whole range up to Long.MAX_VALUE fits in under 2,000 counters. Recording is one atomic
+ * increment; snapshots can be subtracted to get the histogram of an interval.
+ */
+
+package Benchmark;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Record one latency.
+     * @param nanos
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucketOf(Math.max(0, nanos)));
+    }
+
+    // Copy of the current counts
+    public long[] snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Counts recorded between two snapshots.
+     * @param later
+     * @param earlier
+     * @return later - earlier per bucket
+     */
+    public static long[] difference(long[] later, long[] earlier) {
+        long[] difference = new long[later.length];
+        for (int i = 0; i < later.length; i++) {
+            difference[i] = later[i] - earlier[i];
+        }
+        return difference;
+    }
+
+    // Number of values in a snapshot
+    public static long total(long[] snapshot) {
+        long total = 0;
+        for (long count : snapshot) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Value at a percentile of a snapshot.
+     * @param snapshot
+     * @param percentile e.g. 99.9
+     * @return upper bound of the bucket holding that percentile (0 if the snapshot is empty)
+     */
+    public static long percentile(long[] snapshot, double percentile) {
+        long total = total(snapshot);
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(snapshot.length - 1);
+    }
+
+    private static int bucketOf(long value) {
+        int exponent = 63 - Long.numberOfLeadingZeros(value | 1);
+        int shift = Math.max(0, exponent - SUB_BUCKET_BITS);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        int shift = Math.max(0, bucket / SUB_BUCKETS - 1);
+        long mantissa = bucket - (long) shift * SUB_BUCKETS;
+        long upper = ((mantissa + 1) << shift) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+}
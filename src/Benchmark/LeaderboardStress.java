@@ -0,0 +1,159 @@
+/*
+ * LeaderboardStress Class: Records GPAs on one Leaderboard from several writer threads (as concurrent sessions do)
+ * while a reader thread keeps asking for the top 10, a player's rank and a GPA range. Reports the update rate and
+ * the query latencies, then checks every rank and range against a brute-force count of the final board.
+ *
+ * Usage: LeaderboardStress [writerThreads] [players] [seconds]
+ */
+
+package Benchmark;
+
+import Model.Leaderboard;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LeaderboardStress {
+
+    private static final double MAX_GPA = 4.0;
+
+    private static volatile long consumed; // Keeps the reader's queries from being optimized away
+
+    public static void main(String[] args) throws InterruptedException {
+        int writerThreads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        long seconds = args.length > 2 ? Long.parseLong(args[2]) : 5;
+
+        String[] names = new String[players]; // Built once so the threads do not measure string concatenation
+        for (int i = 0; i < players; i++) {
+            names[i] = "player-" + i;
+        }
+        Leaderboard leaderboard = new Leaderboard();
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder updates = new LongAdder();
+        LatencyHistogram topLatency = new LatencyHistogram();
+        LatencyHistogram rankLatency = new LatencyHistogram();
+        LatencyHistogram rangeLatency = new LatencyHistogram();
+
+        Thread[] writers = new Thread[writerThreads];
+        for (int t = 0; t < writerThreads; t++) {
+            writers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (running.get()) {
+                    leaderboard.update(names[random.nextInt(players)], random.nextDouble() * MAX_GPA);
+                    updates.increment();
+                }
+            }, "writer-" + t);
+        }
+
+        Thread reader = new Thread(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long sink = 0;
+            while (running.get()) {
+                long start = System.nanoTime();
+                sink += leaderboard.topK(10).size();
+                long ranked = System.nanoTime();
+                sink += leaderboard.rankOf(names[random.nextInt(players)]);
+                long rangeStart = System.nanoTime();
+                double low = random.nextDouble() * MAX_GPA;
+                sink += leaderboard.countInRange(low, low + 0.05);
+                long end = System.nanoTime();
+                topLatency.record(ranked - start);
+                rankLatency.record(rangeStart - ranked);
+                rangeLatency.record(end - rangeStart);
+            }
+            consumed = sink;
+        }, "reader");
+
+        for (Thread writer : writers) { writer.start(); }
+        reader.start();
+        Thread.sleep(seconds * 1000);
+        running.set(false);
+        for (Thread writer : writers) { writer.join(); }
+        reader.join();
+
+        System.out.printf("%d writer(s), %d players: %.0f updates/sec%n", writerThreads, players, updates.sum() / (double) seconds);
+        report("topK(10)", topLatency);
+        report("rankOf", rankLatency);
+        report("countInRange", rangeLatency);
+
+        int failures = verify(leaderboard);
+        System.out.println("failures=" + failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void report(String query, LatencyHistogram histogram) {
+        long[] snapshot = histogram.snapshot();
+        System.out.printf("%-14s p50=%,d ns  p99=%,d ns  p99.9=%,d ns%n", query, LatencyHistogram.percentile(snapshot, 50),
+                LatencyHistogram.percentile(snapshot, 99), LatencyHistogram.percentile(snapshot, 99.9));
+    }
+
+    // Compares the quiescent board with ranks counted from scratch.
+    private static int verify(Leaderboard leaderboard) {
+        int failures = 0;
+        List<Leaderboard.Standing> all = leaderboard.range(0, Leaderboard.MAX_RANKED_GPA);
+        if (all.size() != leaderboard.size()) {
+            System.err.println("range holds " + all.size() + " of " + leaderboard.size() + " players");
+            failures++;
+        }
+
+        int[] scores = new int[all.size()];
+        for (int i = 0; i < all.size(); i++) {
+            scores[i] = (int) Math.round(all.get(i).getGpa() * 100);
+            if (i > 0 && scores[i] > scores[i - 1]) {
+                System.err.println("range out of order at " + i);
+                failures++;
+            }
+        }
+        int[] ascending = scores.clone();
+        Arrays.sort(ascending);
+
+        for (Leaderboard.Standing standing : all) {
+            int score = (int) Math.round(standing.getGpa() * 100);
+            int better = ascending.length - upperBound(ascending, score);
+            int rank = leaderboard.rankOf(standing.getPlayerName());
+            if (rank != better + 1 || standing.getRank() != rank) {
+                System.err.println(standing + ": rankOf " + rank + ", expected " + (better + 1));
+                failures++;
+            }
+        }
+
+        List<Leaderboard.Standing> top = leaderboard.topK(10);
+        for (int i = 0; i < top.size(); i++) {
+            if (!top.get(i).getPlayerName().equals(all.get(i).getPlayerName()) || top.get(i).getRank() != all.get(i).getRank()) {
+                System.err.println("topK differs at " + i);
+                failures++;
+            }
+        }
+
+        for (double low = 0; low < MAX_GPA; low += 0.37) {
+            int counted = leaderboard.countInRange(low, low + 0.5);
+            int listed = leaderboard.range(low, low + 0.5).size();
+            if (counted != listed) {
+                System.err.printf("range %.2f-%.2f: counted %d, listed %d%n", low, low + 0.5, counted, listed);
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    // Index of the first value greater than key
+    private static int upperBound(int[] sorted, int key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
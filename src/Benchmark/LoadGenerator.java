@@ -0,0 +1,266 @@
+/*
+ * LoadGenerator Class: Spawns simulated players against a running game server (Demo.Server) and reports per-command
+ * latency percentiles and throughput over time.
+ *
+ * Every bot walks the exit graph of the world in the given data directory, picks up scantrons as it goes, and answers
+ * quiz and exam questions correctly with the configured probability (the bots know the answers from puzzles.txt).
+ * A bot whose game ends reconnects and starts over. Each interval row covers every measured command; the totals at
+ * the end are broken down by command kind (move, pickup, answer, exam confirm), since an answer that ends a quiz
+ * costs far more than a move. The opening commands ("start", the name and the welcome screen) are not measured,
+ * since they are not part of play.
+ *
+ * Usage: LoadGenerator [--host h] [--port p] [--bots n] [--seconds s] [--accuracy 0..1] [--data dir] [--interval s]
+ */
+
+package Benchmark;
+
+import Controller.GameServer;
+import Model.Puzzle;
+import Model.Reader;
+import Model.Room;
+import Model.RoomIndex;
+import Model.World;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadGenerator {
+
+    private static final String[] DIRECTIONS = { "n", "e", "s", "w" };
+    private static final String[] ANSWERS = { "a", "b", "c", "d" };
+    private static final String ANSWER_PROMPT = "Enter answer here: ";
+    private static final String EXAM_PROMPT = "Are you ready to take the exam?";
+
+    // Kinds of measured command, each with its own histogram
+    private enum Command {
+        MOVE("move"), PICKUP("pickup"), ANSWER("answer"), EXAM_CONFIRM("exam confirm");
+
+        private final String label;
+
+        Command(String label) {
+            this.label = label;
+        }
+    }
+
+    // Settings
+    private String host = "localhost";
+    private int port = 4000;
+    private int bots = 100;
+    private int seconds = 30;
+    private double accuracy = 0.8;
+    private String dataDirectory = Reader.DEFAULT_DATA_DIRECTORY;
+    private int intervalSeconds = 1;
+
+    // Shared state
+    private World world;
+    private final Map<String, String> answers = new HashMap<>(); // Question -> correct letter
+    private final LatencyHistogram latencies = new LatencyHistogram(); // Every measured command
+    private final Map<Command, LatencyHistogram> latenciesByCommand = new EnumMap<>(Command.class);
+    private final LongAdder sessions = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadGenerator generator = new LoadGenerator();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host": generator.host = args[++i]; break;
+                case "--port": generator.port = Integer.parseInt(args[++i]); break;
+                case "--bots": generator.bots = Integer.parseInt(args[++i]); break;
+                case "--seconds": generator.seconds = Integer.parseInt(args[++i]); break;
+                case "--accuracy": generator.accuracy = Double.parseDouble(args[++i]); break;
+                case "--data": generator.dataDirectory = args[++i]; break;
+                case "--interval": generator.intervalSeconds = Integer.parseInt(args[++i]); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        generator.run();
+    }
+
+    private void run() throws InterruptedException {
+        world = World.load(new Reader(dataDirectory));
+        for (Puzzle puzzle : world.getPuzzles()) {
+            answers.put(puzzle.getPuzzleQuestion(), puzzle.getCorrectAnswer().trim().toLowerCase());
+        }
+        for (Command command : Command.values()) {
+            latenciesByCommand.put(command, new LatencyHistogram());
+        }
+
+        Thread[] threads = new Thread[bots];
+        for (int i = 0; i < bots; i++) {
+            threads[i] = new Thread(new Bot("bot" + i), "bot-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+
+        printHeader("second");
+        long[] previous = latencies.snapshot();
+        long start = System.nanoTime();
+        for (int elapsed = intervalSeconds; elapsed <= seconds; elapsed += intervalSeconds) {
+            Thread.sleep(Math.max(0, start + elapsed * 1_000_000_000L - System.nanoTime()) / 1_000_000);
+            long[] current = latencies.snapshot();
+            long[] interval = LatencyHistogram.difference(current, previous);
+            previous = current;
+            printRow(String.valueOf(elapsed), interval, intervalSeconds);
+        }
+        running = false;
+
+        System.out.println();
+        printHeader("total");
+        for (Command command : Command.values()) {
+            printRow(command.label, latenciesByCommand.get(command).snapshot(), seconds);
+        }
+        printRow("all", latencies.snapshot(), seconds);
+        System.out.printf("bots=%d sessions=%d errors=%d%n", bots, sessions.sum(), errors.sum());
+    }
+
+    private static void printHeader(String label) {
+        System.out.printf("%12s %12s %10s %10s %10s %10s%n", label, "commands/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+    }
+
+    private static void printRow(String label, long[] snapshot, int seconds) {
+        System.out.printf("%12s %12.0f %10.2f %10.2f %10.2f %10.2f%n", label,
+                LatencyHistogram.total(snapshot) / (double) seconds,
+                LatencyHistogram.percentile(snapshot, 50) / 1e6,
+                LatencyHistogram.percentile(snapshot, 99) / 1e6,
+                LatencyHistogram.percentile(snapshot, 99.9) / 1e6,
+                LatencyHistogram.percentile(snapshot, 100) / 1e6);
+    }
+
+    /* ========================== BOT ========================== */
+
+    // One simulated player: plays sessions back to back until the run ends.
+    private final class Bot implements Runnable {
+
+        private final String name;
+        private InputStream in;
+        private OutputStream out;
+        private final ByteArrayOutputStream frame = new ByteArrayOutputStream();
+
+        Bot(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                try (Socket socket = new Socket(host, port)) {
+                    socket.setTcpNoDelay(true);
+                    in = new BufferedInputStream(socket.getInputStream());
+                    out = socket.getOutputStream();
+                    sessions.increment();
+                    playSession();
+                } catch (IOException e) {
+                    if (running) {
+                        errors.increment();
+                        sleepQuietly(100);
+                    }
+                }
+            }
+        }
+
+        private void playSession() throws IOException {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            RoomIndex rooms = world.getRoomIndex();
+
+            if (readFrame() == null || send("start", null) == null || send(name, null) == null || send("", null) == null) {
+                return;
+            }
+            Room start = rooms.getStartingRoom();
+            if (start == null) {
+                return;
+            }
+            int roomId = start.getRoomId();
+            String response = send("pk scantron", Command.PICKUP);
+
+            while (running && response != null) {
+                if (response.contains(ANSWER_PROMPT)) {
+                    response = send(answerFor(response, random), Command.ANSWER);
+                } else if (response.contains(EXAM_PROMPT)) {
+                    response = send("yes", Command.EXAM_CONFIRM);
+                } else if (response.contains("You picked up") || response.contains("There is no")) {
+                    int direction = randomExit(rooms, roomId, random);
+                    roomId = rooms.getExitId(roomId, direction);
+                    response = send(DIRECTIONS[direction], Command.MOVE);
+                } else {
+                    response = send("pk scantron", Command.PICKUP);
+                }
+            }
+        }
+
+        // Picks the correct letter with the configured probability, otherwise a wrong one.
+        private String answerFor(String response, ThreadLocalRandom random) {
+            String correct = null;
+            for (String line : response.split("\n")) {
+                correct = answers.get(line);
+                if (correct != null) {
+                    break;
+                }
+            }
+            if (correct != null && random.nextDouble() < accuracy) {
+                return correct;
+            }
+            String answer;
+            do {
+                answer = ANSWERS[random.nextInt(ANSWERS.length)];
+            } while (answer.equals(correct));
+            return answer;
+        }
+
+        private int randomExit(RoomIndex rooms, int roomId, ThreadLocalRandom random) {
+            int first = random.nextInt(DIRECTIONS.length);
+            for (int i = 0; i < DIRECTIONS.length; i++) {
+                int direction = (first + i) % DIRECTIONS.length;
+                Room next = rooms.findRoomById(rooms.getExitId(roomId, direction));
+                if (next != null) {
+                    return direction;
+                }
+            }
+            return first;
+        }
+
+        // Sends one command and waits for its response frame; returns null if the server closed the connection.
+        // The round trip is recorded under the given kind, or not at all if it is null.
+        private String send(String line, Command kind) throws IOException {
+            long start = System.nanoTime();
+            out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            String response = readFrame();
+            if (kind != null && response != null) {
+                long nanos = System.nanoTime() - start;
+                latencies.record(nanos);
+                latenciesByCommand.get(kind).record(nanos);
+            }
+            return response;
+        }
+
+        private String readFrame() throws IOException {
+            frame.reset();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == GameServer.FRAME_END) {
+                    return frame.toString(StandardCharsets.UTF_8);
+                }
+                frame.write(b);
+            }
+            return null;
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * PlacementStress Class: Hammers ItemsManager pickups from several threads while another thread reshuffles the
+ * scantrons as fast as it can, then checks that no pickup was lost or duplicated.
+ *
+ * Every pickup is attributed to the placement version read before and after it. When both reads agree the pickup
+ * certainly hit that placement, so for every version: certain pickups <= scantrons placed, and for the final
+ * version: remaining + certain pickups <= placed <= remaining + all pickups seen after it was published.
+ *
+ * Usage: PlacementStress [pickerThreads] [seconds]
+ */
+
+package Benchmark;
+
+import Model.ItemIndex;
+import Model.Item;
+import Model.MappedReader;
+import Model.World;
+import Model.Managers.ItemsManager;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PlacementStress {
+
+    private static final int ROOM_COUNT = 40;
+    private static final int SCANTRONS_PER_PLACEMENT = 9;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int pickerThreads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+
+        World world = World.load(new MappedReader(WorldGenerator.generate(ROOM_COUNT).toString()));
+        ItemsManager itemsManager = new ItemsManager(world);
+        itemsManager.randomlyPlaceScantrons();
+
+        Map<Long, LongAdder> certainPickups = new ConcurrentHashMap<>();
+        Map<Long, LongAdder> uncertainPickups = new ConcurrentHashMap<>();
+        AtomicBoolean reshuffling = new AtomicBoolean(true);
+        AtomicBoolean picking = new AtomicBoolean(true);
+        AtomicLong failures = new AtomicLong();
+        LongAdder reshuffles = new LongAdder();
+
+        Thread reshuffler = new Thread(() -> {
+            while (reshuffling.get()) {
+                itemsManager.randomlyPlaceScantrons();
+                reshuffles.increment();
+            }
+        }, "reshuffler");
+
+        Thread[] pickers = new Thread[pickerThreads];
+        for (int t = 0; t < pickerThreads; t++) {
+            pickers[t] = new Thread(() -> {
+                List<Item> items = world.getItems();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (picking.get()) {
+                    int roomId = items.get(random.nextInt(items.size())).getItemId();
+                    long before = itemsManager.getPlacementVersion();
+                    int ordinal = itemsManager.findItemInRoom(roomId, "scantron");
+                    if (ordinal == ItemIndex.NO_ITEM) {
+                        continue;
+                    }
+                    int seen = itemsManager.getItemCount(ordinal);
+                    if (seen < 0 || seen > 2) {
+                        failures.incrementAndGet();
+                    }
+                    if (itemsManager.takeItem(ordinal)) {
+                        long after = itemsManager.getPlacementVersion();
+                        Map<Long, LongAdder> bucket = before == after ? certainPickups : uncertainPickups;
+                        bucket.computeIfAbsent(after, v -> new LongAdder()).increment();
+                    }
+                }
+            }, "picker-" + t);
+        }
+
+        reshuffler.start();
+        for (Thread picker : pickers) { picker.start(); }
+        Thread.sleep(seconds * 1000);
+
+        // Stop reshuffling, let the pickers drain the final placement, then stop them too.
+        reshuffling.set(false);
+        reshuffler.join();
+        Thread.sleep(200);
+        picking.set(false);
+        for (Thread picker : pickers) { picker.join(); }
+
+        long finalVersion = itemsManager.getPlacementVersion();
+        int remaining = 0;
+        for (int roomId = 1; roomId <= ROOM_COUNT; roomId++) {
+            remaining += itemsManager.getItemCountInRoom(roomId);
+        }
+
+        for (Map.Entry<Long, LongAdder> entry : certainPickups.entrySet()) {
+            if (entry.getValue().sum() > SCANTRONS_PER_PLACEMENT) {
+                System.err.println("Placement " + entry.getKey() + " handed out " + entry.getValue().sum() + " scantrons");
+                failures.incrementAndGet();
+            }
+        }
+
+        long certainFinal = sum(certainPickups, finalVersion);
+        long uncertainFinal = sum(uncertainPickups, finalVersion);
+        if (remaining + certainFinal > SCANTRONS_PER_PLACEMENT
+                || remaining + certainFinal + uncertainFinal < SCANTRONS_PER_PLACEMENT) {
+            System.err.println("Final placement: " + remaining + " remaining, " + certainFinal + " picked up");
+            failures.incrementAndGet();
+        }
+
+        long totalPickups = certainPickups.values().stream().mapToLong(LongAdder::sum).sum()
+                + uncertainPickups.values().stream().mapToLong(LongAdder::sum).sum();
+        System.out.printf("reshuffles=%d pickups=%d failures=%d%n", reshuffles.sum(), totalPickups, failures.get());
+        if (failures.get() > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static long sum(Map<Long, LongAdder> pickups, long version) {
+        LongAdder adder = pickups.get(version);
+        return adder == null ? 0 : adder.sum();
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * ProfileStoreBenchmark Class: Loads a ProfileStore with many profiles and measures writes, point lookups,
+ * compaction, a clean reopen and a crash recovery (index marked dirty and a torn record at the end of the active
+ * segment), checking the profiles after every step.
+ *
+ * Usage: ProfileStoreBenchmark [profiles] [lookups] [directory]
+ */
+
+package Benchmark;
+
+import Controller.ProfileStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+public class ProfileStoreBenchmark {
+
+    private static final String[] COURSES = { "Art Class", "Math Class", "Programming Class" };
+    private static final String[] GRADES = { "A", "B", "C", "D", "F" };
+
+    public static void main(String[] args) throws IOException {
+        int profiles = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        Path directory = args.length > 2 ? Path.of(args[2]) : Files.createTempDirectory("profiles");
+        int failures = 0;
+
+        ProfileStore store = new ProfileStore(directory, false);
+        long start = System.nanoTime();
+        for (int i = 0; i < profiles; i++) {
+            store.put(profile(i, 0));
+        }
+        store.flush();
+        report("put", profiles, System.nanoTime() - start);
+        failures += verify(store, profiles, 0, -1);
+        measureLookups(store, profiles, lookups);
+
+        // Overwrite every profile and delete every tenth, so most of the segments are dead records.
+        start = System.nanoTime();
+        for (int i = 0; i < profiles; i++) {
+            if (i % 10 == 0) {
+                store.delete(name(i));
+            } else {
+                store.put(profile(i, 1));
+            }
+        }
+        report("overwrite/delete", profiles, System.nanoTime() - start);
+        long before = store.getTotalBytes();
+        start = System.nanoTime();
+        long reclaimed = store.compact();
+        System.out.printf("compact          %,d -> %,d bytes (%,d reclaimed) in %.1f ms%n",
+                before, store.getTotalBytes(), reclaimed, (System.nanoTime() - start) / 1e6);
+        failures += verify(store, profiles, 1, 10);
+        store.close();
+
+        start = System.nanoTime();
+        store = new ProfileStore(directory, false);
+        System.out.printf("clean reopen     %.1f ms, %,d profiles%n", (System.nanoTime() - start) / 1e6, store.size());
+        failures += verify(store, profiles, 1, 10);
+        measureLookups(store, profiles, lookups);
+        store.close();
+
+        simulateCrash(directory);
+        start = System.nanoTime();
+        store = new ProfileStore(directory, false);
+        System.out.printf("crash recovery   %.1f ms, %,d profiles%n", (System.nanoTime() - start) / 1e6, store.size());
+        failures += verify(store, profiles, 1, 10);
+        store.close();
+
+        if (args.length <= 2) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+        System.out.println("failures=" + failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static String name(int player) { return "player-" + player; }
+
+    private static ProfileStore.Profile profile(int player, int version) {
+        String grade = GRADES[(player + version) % GRADES.length];
+        return new ProfileStore.Profile(name(player), (player % 400) / 100.0 + version, version + 1,
+                Map.of(COURSES[player % COURSES.length], grade));
+    }
+
+    private static void measureLookups(ProfileStore store, int profiles, int lookups) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            String name = name(random.nextInt(profiles));
+            long before = System.nanoTime();
+            found += store.get(name) == null ? 0 : 1;
+            histogram.record(System.nanoTime() - before);
+        }
+        report("get", lookups, System.nanoTime() - start);
+        long[] snapshot = histogram.snapshot();
+        System.out.printf("                 p50=%,d ns  p99=%,d ns  p99.9=%,d ns  (%,d found)%n",
+                LatencyHistogram.percentile(snapshot, 50), LatencyHistogram.percentile(snapshot, 99),
+                LatencyHistogram.percentile(snapshot, 99.9), found);
+    }
+
+    // Checks every profile against what was written; deletedEvery = -1 if nothing was deleted.
+    private static int verify(ProfileStore store, int profiles, int version, int deletedEvery) {
+        int failures = 0;
+        for (int i = 0; i < profiles; i++) {
+            ProfileStore.Profile actual = store.get(name(i));
+            if (deletedEvery > 0 && i % deletedEvery == 0) {
+                if (actual != null) {
+                    failures++;
+                }
+                continue;
+            }
+            ProfileStore.Profile expected = profile(i, version);
+            if (actual == null || actual.getBestGpa() != expected.getBestGpa()
+                    || actual.getCompletedRuns() != expected.getCompletedRuns() || !actual.getGrades().equals(expected.getGrades())) {
+                if (failures++ < 5) {
+                    System.err.println("Expected " + expected + ", found " + actual);
+                }
+            }
+        }
+        return failures;
+    }
+
+    // Marks the index dirty and leaves half a record at the end of the active segment, as a crash mid-write would.
+    private static void simulateCrash(Path directory) throws IOException {
+        try (FileChannel index = FileChannel.open(directory.resolve("profiles.index"), StandardOpenOption.WRITE)) {
+            index.write(ByteBuffer.allocate(4).putInt(0, 2), 8);
+        }
+        ByteBuffer manifest = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("MANIFEST")));
+        int activeId = manifest.getInt(4 + 4 * manifest.getInt(4));
+        Files.write(directory.resolve("segment-" + activeId + ".dat"), new byte[] { 0, 0, 0, 40, 1, 2, 3 },
+                StandardOpenOption.APPEND);
+    }
+
+    private static void report(String operation, int count, long nanos) {
+        System.out.printf("%-16s %,d in %.1f ms: %,.0f ops/sec%n", operation, count, nanos / 1e6, count / (nanos / 1e9));
+    }
+}
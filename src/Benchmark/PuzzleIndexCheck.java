@@ -0,0 +1,114 @@
+/*
+ * PuzzleIndexCheck Class: Builds worlds from puzzle lists in awkward orders and checks every PuzzleIndex lookup
+ * against a plain scan of the original list. Covers a room whose first puzzle is not of the file's first type (which
+ * once swapped the quiz and exam ranges) and seeded shuffles of the shipped puzzles.
+ *
+ * Usage: PuzzleIndexCheck [shuffles] [seed]
+ */
+
+package Benchmark;
+
+import Model.Puzzle;
+import Model.PuzzleIndex;
+import Model.Reader;
+import Model.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class PuzzleIndexCheck {
+
+    public static void main(String[] args) {
+        int shuffles = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 1;
+
+        // The lowest room has no puzzle of the file's first type.
+        int failures = 0;
+        failures += check("lowest room without the first type", List.of(
+                puzzle(10, "Quiz", "q10a"),
+                puzzle(5, "Exam", "e5a"),
+                puzzle(10, "Exam", "e10a")));
+        failures += check("mixed case, three types", List.of(
+                puzzle(10, "Quiz", "q10a"),
+                puzzle(7, "Final", "f7a"),
+                puzzle(5, "EXAM", "e5a"),
+                puzzle(10, "exam", "e10a"),
+                puzzle(7, "quiz", "q7a"),
+                puzzle(10, "QUIZ", "q10b")));
+
+        List<Puzzle> shipped = new ArrayList<>(World.load(new Reader(Reader.DEFAULT_DATA_DIRECTORY)).getPuzzles());
+        failures += check("shipped", shipped);
+        Random random = new Random(seed);
+        for (int i = 0; i < shuffles; i++) {
+            Collections.shuffle(shipped, random);
+            failures += check("shuffle " + i + " of seed " + seed, shipped);
+        }
+
+        System.out.printf("%d list(s) checked%n", shuffles + 3);
+        System.out.println("failures=" + failures);
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    // Returns 1 if any lookup disagrees with a scan of the list in file order, otherwise 0.
+    private static int check(String label, List<Puzzle> puzzles) {
+        World world = new World(List.of(), List.of(), puzzles);
+        PuzzleIndex index = world.getPuzzleIndex();
+        TreeSet<Integer> roomIds = new TreeSet<>();
+        TreeSet<String> types = new TreeSet<>();
+        for (Puzzle puzzle : puzzles) {
+            roomIds.add(puzzle.getRoomId());
+            types.add(PuzzleIndex.normalizeType(puzzle.getPuzzleType()));
+        }
+        roomIds.add(roomIds.isEmpty() ? 0 : roomIds.last() + 1); // A room without puzzles
+
+        for (String type : types) {
+            if (!index.getPuzzlesOfType(type).equals(scan(world.getPuzzles(), -1, type))) {
+                System.err.printf("%s: wrong puzzles of type %s%n", label, type);
+                return 1;
+            }
+            for (int roomId : roomIds) {
+                if (!index.getPuzzlesInRoom(roomId).containsAll(scan(puzzles, roomId, type))) {
+                    System.err.printf("%s: room %d is missing puzzles of type %s%n", label, roomId, type);
+                    return 1;
+                }
+                int typeId = index.typeId(type);
+                List<Puzzle> expected = scan(puzzles, roomId, type);
+                List<Puzzle> found = world.getPuzzles().subList(index.rangeStart(roomId, typeId), index.rangeEnd(roomId, typeId));
+                if (!found.equals(expected)) {
+                    System.err.printf("%s: room %d, type %s: expected %s, found %s%n", label, roomId, type,
+                            questions(expected), questions(found));
+                    return 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    // The puzzles of one type (in one room, unless roomId is -1), in list order.
+    private static List<Puzzle> scan(List<Puzzle> puzzles, int roomId, String type) {
+        List<Puzzle> matches = new ArrayList<>();
+        for (Puzzle puzzle : puzzles) {
+            if ((roomId < 0 || puzzle.getRoomId() == roomId) && PuzzleIndex.normalizeType(puzzle.getPuzzleType()).equals(type)) {
+                matches.add(puzzle);
+            }
+        }
+        return matches;
+    }
+
+    private static List<String> questions(List<Puzzle> puzzles) {
+        List<String> questions = new ArrayList<>();
+        for (Puzzle puzzle : puzzles) {
+            questions.add(puzzle.getPuzzleQuestion());
+        }
+        return questions;
+    }
+
+    private static Puzzle puzzle(int roomId, String type, String question) {
+        return new Puzzle(roomId, type, question, "a", "b", "c", "d", "a", false);
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * ReaderBenchmark Class: Compares rows per second of the line-splitting Reader and the memory-mapped MappedReader
+ * over synthetic worlds of increasing size.
+ *
+ * Usage: ReaderBenchmark [roomCount ...]
+ */
+
+package Benchmark;
+
+import Model.MappedReader;
+import Model.Reader;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class ReaderBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int MEASURED_ITERATIONS = 5;
+    private static final int[] DEFAULT_SIZES = { 1_000, 100_000, 500_000 };
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) { sizes[i] = Integer.parseInt(args[i]); }
+        }
+
+        System.out.printf("%-12s %10s %10s %16s%n", "loader", "rooms", "rows", "rows/sec");
+        for (int size : sizes) {
+            Path directory = WorldGenerator.generate(size);
+            run("Reader", new Reader(directory.toString()), size);
+            run("MappedReader", new MappedReader(directory.toString()), size);
+        }
+    }
+
+    /**
+     * Loads the whole world repeatedly and prints the measured throughput.
+     * @param name
+     * @param reader
+     * @param size
+     */
+    private static void run(String name, Reader reader, int size) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) { loadAll(reader); }
+
+        long rows = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) { rows += loadAll(reader); }
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-12s %10d %10d %16.0f%n", name, size, rows / MEASURED_ITERATIONS, rows / (elapsed / 1e9));
+    }
+
+    // Loads all three data files and returns the number of rows parsed.
+    private static long loadAll(Reader reader) {
+        return reader.loadRoomsFromFile().size()
+                + reader.loadItemsFromFile().size()
+                + reader.loadPuzzlesFromFile().size();
+    }
+}
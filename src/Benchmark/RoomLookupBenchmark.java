@@ -0,0 +1,79 @@
+/*
+ * RoomLookupBenchmark Class: Compares the old stream scan over the rooms list with the dense RoomIndex for room
+ * lookup plus exit resolution, at 10^3 to 10^6 rooms.
+ *
+ * Usage: RoomLookupBenchmark [roomCount ...]
+ */
+
+package Benchmark;
+
+import Model.Room;
+import Model.RoomIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class RoomLookupBenchmark {
+
+    private static final int[] DEFAULT_SIZES = { 1_000, 10_000, 100_000, 1_000_000 };
+    private static final long SCAN_BUDGET = 200_000_000L; // Rooms visited per stream-scan measurement
+    private static final int INDEX_OPERATIONS = 20_000_000;
+
+    private static long sink; // Keeps results alive so the JIT cannot drop the lookups
+
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) { sizes[i] = Integer.parseInt(args[i]); }
+        }
+
+        System.out.printf("%-12s %10s %16s%n", "lookup", "rooms", "ns/op");
+        for (int size : sizes) {
+            List<Room> rooms = generateRooms(size);
+            RoomIndex index = new RoomIndex(rooms);
+            int[] targets = new SplittableRandom(size).ints(1024, 1, size + 1).toArray();
+
+            int scanOperations = (int) Math.max(100, SCAN_BUDGET / size);
+            measure("stream scan", size, scanOperations, () -> streamScan(rooms, targets, scanOperations));
+            measure("RoomIndex", size, INDEX_OPERATIONS, () -> indexLookup(index, targets, INDEX_OPERATIONS));
+        }
+        if (sink == 42) System.out.println();
+    }
+
+    // Runs a warmup pass and a measured pass and prints nanoseconds per lookup.
+    private static void measure(String name, int size, int operations, Runnable body) {
+        body.run();
+        long start = System.nanoTime();
+        body.run();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-12s %10d %16.1f%n", name, size, elapsed / (double) operations);
+    }
+
+    // The lookup RoomsManager used before the index: a stream filter per move.
+    private static void streamScan(List<Room> rooms, int[] targets, int operations) {
+        for (int i = 0; i < operations; i++) {
+            int roomId = targets[i & (targets.length - 1)];
+            Room room = rooms.stream().filter(r -> r.getRoomId() == roomId).findFirst().orElse(null);
+            sink += room.getEastExit();
+        }
+    }
+
+    private static void indexLookup(RoomIndex index, int[] targets, int operations) {
+        for (int i = 0; i < operations; i++) {
+            int roomId = targets[i & (targets.length - 1)];
+            sink += index.findRoomById(roomId).getRoomId() + index.getExitId(roomId, RoomIndex.EAST);
+        }
+    }
+
+    // Builds a chain of rooms with ids 1..size.
+    private static List<Room> generateRooms(int size) {
+        List<Room> rooms = new ArrayList<>(size);
+        for (int roomId = 1; roomId <= size; roomId++) {
+            rooms.add(new Room(roomId, false, "Room " + roomId, "Generated room.",
+                    0, roomId < size ? roomId + 1 : 0, 0, roomId > 1 ? roomId - 1 : 0));
+        }
+        return rooms;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * SessionPassivationBenchmark Class: Drives many sessions through a SessionManager whose budget holds only a fraction
+ * of them, with most commands going to a small hot set (as a node with many idle players sees). Reports commands per
+ * second and the manager's metrics, and checks that passivation is invisible: every tenth session is shadowed by a
+ * plain GameSession given the same commands, and their outputs must match line for line.
+ *
+ * Usage: SessionPassivationBenchmark [sessions] [residentSessions] [commands] [threads]
+ */
+
+package Benchmark;
+
+import Controller.GameSession;
+import Controller.SessionManager;
+import Model.MappedReader;
+import Model.World;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SessionPassivationBenchmark {
+
+    private static final int ROOM_COUNT = 400;
+    private static final int SHADOW_EVERY = 10;
+    private static final double HOT_FRACTION = 0.1;  // Share of the sessions that are hot
+    private static final double HOT_TRAFFIC = 0.8;   // Share of the commands that go to them
+    private static final String[] OPENING = { "start", "bot" };
+    private static final String[] SCRIPT = {
+        "pk scantron", "e", "explore", "inspect scantron", "a", "s", "backpack", "b", "w", "n", "c", "north"
+    };
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int residentSessions = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int commands = args.length > 2 ? Integer.parseInt(args[2]) : 500_000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+        World world = World.load(new MappedReader(WorldGenerator.generate(ROOM_COUNT).toString()));
+        Path directory = Files.createTempDirectory("passivated");
+        AtomicInteger mismatches = new AtomicInteger();
+        long start;
+        long elapsed;
+        try (SessionManager manager = new SessionManager(world, GameSession.Output.TEXT, directory,
+                (long) residentSessions * SessionManager.DEFAULT_SESSION_FOOTPRINT)) {
+            GameSession[] shadows = new GameSession[sessions];
+            for (int id = 0; id < sessions; id++) {
+                long seed = id;
+                manager.open(id, session -> configure(session, seed));
+                if (id % SHADOW_EVERY == 0) {
+                    shadows[id] = new GameSession(world, GameSession.Output.TEXT);
+                    configure(shadows[id], seed);
+                    shadows[id].open();
+                }
+            }
+
+            // Each thread owns the sessions whose id is its number modulo threads, so a session's commands stay in order.
+            Thread[] players = new Thread[threads];
+            start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                players[t] = new Thread(() -> play(manager, shadows, sessions, commands / threads, thread, threads, mismatches),
+                        "player-" + t);
+                players[t].start();
+            }
+            for (Thread player : players) { player.join(); }
+            elapsed = System.nanoTime() - start;
+
+            SessionManager.Metrics metrics = manager.getMetrics();
+            System.out.printf("%,d sessions, %,d resident, %d thread(s): %,.0f commands/sec%n", sessions,
+                    manager.getMaxResident(), threads, commands / (elapsed / 1e9));
+            System.out.printf("hit rate %.3f (%,d hits, %,d misses), %,d passivations%n", metrics.getHitRate(),
+                    metrics.getHits(), metrics.getMisses(), metrics.getPassivations());
+            System.out.printf("resident %,d, passivated %,d (%,d bytes on disk, %.0f bytes each)%n",
+                    metrics.getResidentSessions(), metrics.getPassivatedSessions(), metrics.getPassivatedBytes(),
+                    metrics.getPassivatedBytes() / (double) Math.max(1, metrics.getPassivatedSessions()));
+            System.out.printf("rehydration avg=%,d ns  p50<=%,d ns  p99<=%,d ns  max=%,d ns%n",
+                    metrics.getAverageRehydrationNanos(), metrics.getRehydrationPercentile(50),
+                    metrics.getRehydrationPercentile(99), metrics.getSlowestRehydrationNanos());
+            for (GameSession shadow : shadows) {
+                if (shadow != null) {
+                    shadow.close();
+                }
+            }
+        }
+        try (var leftovers = Files.list(directory)) {
+            if (leftovers.findAny().isPresent()) {
+                System.err.println("Saves left in " + directory);
+                mismatches.incrementAndGet();
+            }
+        }
+        Files.deleteIfExists(directory);
+
+        System.out.println("failures=" + mismatches.get());
+        if (mismatches.get() > 0) {
+            System.exit(1);
+        }
+    }
+
+    private static void configure(GameSession session, long seed) {
+        session.setPaced(false);
+        session.setAutoContinue(true);
+        session.setRandomSeed(seed);
+    }
+
+    private static void play(SessionManager manager, GameSession[] shadows, int sessions, int commands, int thread,
+                             int threads, AtomicInteger mismatches) {
+        SplittableRandom random = new SplittableRandom(thread);
+        int hot = Math.max(threads, (int) (sessions * HOT_FRACTION));
+        int[] sent = new int[sessions];
+        boolean[] ended = new boolean[sessions];
+        for (int i = 0; i < commands; i++) {
+            int id = random.nextDouble() < HOT_TRAFFIC ? random.nextInt(hot) : random.nextInt(sessions);
+            id -= Math.floorMod(id - thread, threads);
+            if (id < 0) {
+                id += threads;
+            }
+            if (ended[id]) {
+                continue;
+            }
+            int step = sent[id]++;
+            String line = step < OPENING.length ? OPENING[step] : SCRIPT[(step - OPENING.length) % SCRIPT.length];
+            GameSession.Response response = manager.submit(id, line);
+            ended[id] = response.isEnded();
+            if (shadows[id] != null) {
+                String expected = shadows[id].submit(line).getOutput();
+                if (!expected.equals(response.getOutput()) && mismatches.getAndIncrement() < 5) {
+                    System.err.printf("Session %d, command %d (%s): expected%n%s%nfound%n%s%n", id, step, line,
+                            expected, response.getOutput());
+                }
+            }
+        }
+    }
+}
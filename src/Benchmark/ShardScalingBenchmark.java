@@ -0,0 +1,97 @@
+/*
+ * ShardScalingBenchmark Class: Runs the same scripted load through ShardedSessions with 1, 2, 4, ... shards (up to
+ * the number of available processors) and reports commands per second for each, to show how throughput scales with
+ * cores.
+ *
+ * Every session plays a fixed script; the next command is posted from the callback of the previous response, so
+ * each session has one command in flight and the shards do all the work.
+ *
+ * Usage: ShardScalingBenchmark [sessions] [commandsPerSession] [maxShards]
+ */
+
+package Benchmark;
+
+import Controller.GameSession;
+import Controller.ShardedSessions;
+import Model.MappedReader;
+import Model.World;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+
+public class ShardScalingBenchmark {
+
+    private static final int ROOM_COUNT = 400;
+    private static final String[] OPENING = { "start", "bot", "" };
+    private static final String[] SCRIPT = {
+        "pk scantron", "e", "explore", "inspect scantron", "a", "s", "backpack", "b", "w", "n", "c", "north"
+    };
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        int commandsPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int maxShards = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        World world = World.load(new MappedReader(WorldGenerator.generate(ROOM_COUNT).toString()));
+        run(world, 1, sessions, commandsPerSession / 4); // Warmup
+
+        System.out.printf("%8s %10s %14s %14s%n", "shards", "sessions", "commands/sec", "speedup");
+        double baseline = 0;
+        for (int shards = 1; shards <= maxShards; shards = shards < maxShards ? Math.min(shards * 2, maxShards) : shards + 1) {
+            double rate = run(world, shards, sessions, commandsPerSession);
+            if (shards == 1) {
+                baseline = rate;
+            }
+            System.out.printf("%8d %10d %14.0f %13.2fx%n", shards, sessions, rate, rate / baseline);
+        }
+    }
+
+    // Runs every session's script to the end and returns commands per second.
+    private static double run(World world, int shardCount, int sessions, int commandsPerSession) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(sessions);
+        long start = System.nanoTime();
+        try (ShardedSessions shards = new ShardedSessions(world, shardCount)) {
+            shards.start();
+            for (long sessionId = 0; sessionId < sessions; sessionId++) {
+                new ScriptedPlayer(shards, sessionId, commandsPerSession, done).begin();
+            }
+            done.await();
+        }
+        long elapsed = System.nanoTime() - start;
+        return (double) sessions * (commandsPerSession + OPENING.length) / (elapsed / 1e9);
+    }
+
+    // Posts the next command of one session whenever the previous response arrives.
+    private static final class ScriptedPlayer implements Consumer<GameSession.Response> {
+
+        private final ShardedSessions shards;
+        private final long sessionId;
+        private final int commands;
+        private final CountDownLatch done;
+        private int sent;
+
+        ScriptedPlayer(ShardedSessions shards, long sessionId, int commands, CountDownLatch done) {
+            this.shards = shards;
+            this.sessionId = sessionId;
+            this.commands = commands;
+            this.done = done;
+        }
+
+        void begin() {
+            shards.open(sessionId, this);
+        }
+
+        @Override
+        public void accept(GameSession.Response response) {
+            if (sent == OPENING.length + commands) {
+                shards.close(sessionId);
+                done.countDown();
+                return;
+            }
+            String line = sent < OPENING.length ? OPENING[sent] : SCRIPT[(sent - OPENING.length) % SCRIPT.length];
+            sent++;
+            shards.submit(sessionId, line, this);
+        }
+    }
+}
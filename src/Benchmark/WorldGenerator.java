@@ -0,0 +1,96 @@
+/*
+ * WorldGenerator Class: Writes synthetic campuses (rooms.txt, items.txt, puzzles.txt) of any size for benchmarking.
+ *
+ * Rooms are laid out on a square grid with ids starting at 1; every room holds one scantron slot and every
+ * tenth room is a course room with two quizzes and one exam.
+ */
+
+package Benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class WorldGenerator {
+
+    // Layout constants
+    private static final int COURSE_ROOM_INTERVAL = 10;
+    private static final String ITEM_DESCRIPTION = "Scantrons are necessary for taking exams (requires 2) and quizzes (requires 1).";
+
+    private WorldGenerator() { } // Utility class
+
+    /**
+     * Writes a synthetic world into a new temporary directory.
+     * @param roomCount
+     * @return the data directory
+     * @throws IOException if the files cannot be written
+     */
+    public static Path generate(int roomCount) throws IOException {
+        Path directory = Files.createTempDirectory("campus-" + roomCount + "-");
+        directory.toFile().deleteOnExit();
+        generate(directory, roomCount);
+        for (String fileName : new String[] { "rooms.txt", "items.txt", "puzzles.txt" }) {
+            directory.resolve(fileName).toFile().deleteOnExit();
+        }
+        return directory;
+    }
+
+    /**
+     * Writes a synthetic world into the given directory.
+     * @param directory
+     * @param roomCount
+     * @throws IOException if the files cannot be written
+     */
+    public static void generate(Path directory, int roomCount) throws IOException {
+        int width = (int) Math.ceil(Math.sqrt(roomCount));
+
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("rooms.txt"), StandardCharsets.UTF_8)) {
+            writer.write("File Layout: roomID|hasVisited|roomName|roomDescription|N-E-S-W(exits)\n\n");
+            for (int roomId = 1; roomId <= roomCount; roomId++) {
+                int index = roomId - 1;
+                int north = index >= width ? roomId - width : 0;
+                int south = roomId + width <= roomCount ? roomId + width : 0;
+                int east = (index % width) < width - 1 && roomId < roomCount ? roomId + 1 : 0;
+                int west = (index % width) > 0 ? roomId - 1 : 0;
+
+                writer.write(roomId + "|False|Room " + roomId + "|Room " + roomId + " is part of a generated campus.|"
+                        + north + "-" + east + "-" + south + "-" + west + "\n");
+            }
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("items.txt"), StandardCharsets.UTF_8)) {
+            writer.write("File Layout: roomID|itemName|itemDescription|itemCount\n\n");
+            for (int roomId = 1; roomId <= roomCount; roomId++) {
+                writer.write(roomId + "|Scantron|" + ITEM_DESCRIPTION + "|0\n");
+            }
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve("puzzles.txt"), StandardCharsets.UTF_8)) {
+            writer.write("File Layout: roomID|puzzleType|puzzleQuestion|optionA|optionB|optionC|optionD|correctAnswer|isSolved\n\n");
+            for (int roomId = COURSE_ROOM_INTERVAL; roomId <= roomCount; roomId += COURSE_ROOM_INTERVAL) {
+                for (int quiz = 1; quiz <= 6; quiz++) {
+                    writer.write(roomId + "|Quiz|" + ((quiz - 1) % 3 + 1) + ". What is " + quiz + " + " + roomId + "?|"
+                            + (quiz + roomId) + "|" + (quiz + roomId + 1) + "|" + (quiz + roomId + 2) + "|None of the above|A|false\n");
+                }
+                for (int exam = 1; exam <= 2; exam++) {
+                    writer.write(roomId + "|Exam|" + exam + ". What is " + exam + " * " + roomId + "?|"
+                            + (exam * roomId + 1) + "|" + (exam * roomId) + "|0|None of the above|B|false\n");
+                }
+                writer.write("\n");
+            }
+        }
+    }
+
+    // Generates a world into the directory given on the command line.
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: WorldGenerator <directory> <roomCount>");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        generate(directory, Integer.parseInt(args[1]));
+    }
+}
@@ -0,0 +1,537 @@
+/*
+ * CommandLog Class: Write-ahead log of the commands of hosted game sessions, with group commit and periodic
+ * snapshots, so sessions can be rebuilt after a crash.
+ *
+ * Every session has its own files in the log directory:
+ *   session-<id>.wal        records [length, CRC-32, body]; body = [type, sequence number, payload], where the
+ *                           payload is an input line (COMMAND) or the item placement that took effect (PLACEMENT)
+ *   session-<id>.snapshot   [MAGIC, sequence number, length, session save (SessionCodec), CRC-32]
+ * A snapshot covers every record up to its sequence number; once it is safely on disk the session's log is cut
+ * back to empty. Recovery loads the snapshot (if any) and replays the records after it; a torn record at the end
+ * of a log (a crash mid-write) and everything after it is dropped.
+ *
+ * All file work happens on one writer thread. It drains whatever the sessions have queued, writes it, and forces
+ * each touched file to disk once for the whole batch (group commit), so concurrent sessions share the cost of an
+ * fsync. With synchronous commit an append returns only once its record is durable.
+ */
+
+package Controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+public class CommandLog implements AutoCloseable {
+
+    // Format constants
+    public static final byte COMMAND = 1;
+    public static final byte PLACEMENT = 2;
+    static final int SNAPSHOT_MAGIC = 0x4343534E; // "CCSN"
+    private static final String LOG_SUFFIX = ".wal";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+    private static final int SPINS_BEFORE_PARK = 100;
+
+    // Settings
+    private final Path directory;
+    private final boolean syncCommit;
+    private final int snapshotInterval;
+
+    // Writer state
+    private final MpscQueue<Operation> queue = new MpscQueue<>();
+    private final AtomicLong tickets = new AtomicLong(); // Ticket of the last queued operation
+    private final Thread writer;
+    private final Map<Long, FileChannel> channels = new HashMap<>(); // Writer thread only
+    private volatile boolean running = true;
+    private volatile boolean parked;
+
+    // Durability
+    private final ReentrantLock durableLock = new ReentrantLock();
+    private final Condition durableChanged = durableLock.newCondition();
+    private long durableTicket; // Guarded by durableLock
+    private volatile IOException failure;
+
+    /**
+     * Opens (or creates) a log directory and starts the writer thread.
+     * @param directory
+     * @param syncCommit whether appends wait until their record is on disk
+     * @param snapshotInterval records between snapshots of a session
+     * @throws IOException if the directory cannot be created
+     */
+    public CommandLog(Path directory, boolean syncCommit, int snapshotInterval) throws IOException {
+        if (snapshotInterval < 1) {
+            throw new IllegalArgumentException("snapshotInterval must be at least 1");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.syncCommit = syncCommit;
+        this.snapshotInterval = snapshotInterval;
+        this.writer = new Thread(this::writeLoop, "command-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Getters
+    public Path getDirectory() { return directory; }
+    public int getSnapshotInterval() { return snapshotInterval; }
+
+    /**
+     * Ids of the sessions that have a log or snapshot, i.e. that can be recovered.
+     * @return session ids
+     * @throws IOException if the directory cannot be listed
+     */
+    public List<Long> sessionIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "session-*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String suffix = name.endsWith(LOG_SUFFIX) ? LOG_SUFFIX : name.endsWith(SNAPSHOT_SUFFIX) ? SNAPSHOT_SUFFIX : null;
+                if (suffix == null) {
+                    continue;
+                }
+                try {
+                    long id = Long.parseLong(name.substring("session-".length(), name.length() - suffix.length()));
+                    if (!ids.contains(id)) {
+                        ids.add(id);
+                    }
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Opens the log of a session, reading what it holds so far for recovery.
+     * @param sessionId
+     * @return handle for appending to the session's log
+     * @throws IOException if the files cannot be read
+     */
+    public SessionLog open(long sessionId) throws IOException {
+        byte[] snapshot = null;
+        long snapshotSequence = 0;
+        Path snapshotFile = snapshotFile(sessionId);
+        if (Files.exists(snapshotFile)) {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+            if (in.remaining() < 16 || in.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a session snapshot: " + snapshotFile);
+            }
+            snapshotSequence = in.getLong();
+            int length = in.getInt();
+            if (length < 0 || length + 4 != in.remaining()) {
+                throw new IOException("Truncated session snapshot: " + snapshotFile);
+            }
+            snapshot = new byte[length];
+            in.get(snapshot);
+            if (crc(snapshot, 0, length) != in.getInt()) {
+                throw new IOException("Corrupt session snapshot: " + snapshotFile);
+            }
+        }
+
+        List<Record> tail = new ArrayList<>();
+        long lastSequence = snapshotSequence;
+        Path logFile = logFile(sessionId);
+        if (Files.exists(logFile)) {
+            byte[] bytes = Files.readAllBytes(logFile);
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            int valid = 0;
+            while (in.remaining() >= 8) {
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if (length < 2 || length > MAX_RECORD_LENGTH || length > in.remaining()
+                        || crc(bytes, in.position(), length) != checksum) {
+                    break; // Torn or corrupt tail
+                }
+                Record record = Record.decode(bytes, in.position(), length);
+                in.position(in.position() + length);
+                valid = in.position();
+                if (record.sequence > snapshotSequence) { // Older records are already in the snapshot
+                    tail.add(record);
+                    lastSequence = record.sequence;
+                }
+            }
+            if (valid < bytes.length) {
+                try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                    channel.truncate(valid);
+                    channel.force(false);
+                }
+            }
+        }
+        return new SessionLog(sessionId, snapshot, tail, lastSequence);
+    }
+
+    // Writes everything queued so far, then stops the writer thread and closes the files. Later appends are rejected.
+    @Override
+    public void close() {
+        synchronized (queue) { // Anything queued before this is still written
+            running = false;
+        }
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        publishDurable(Long.MAX_VALUE); // Nothing more will be written; wake anyone still waiting
+    }
+
+    private Path logFile(long sessionId) { return directory.resolve("session-" + sessionId + LOG_SUFFIX); }
+    private Path snapshotFile(long sessionId) { return directory.resolve("session-" + sessionId + SNAPSHOT_SUFFIX); }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /* ========================== SESSION LOG ========================== */
+
+    // One record read back from a log.
+    public static final class Record {
+
+        private final byte type;
+        private final long sequence;
+        private final byte[] payload;
+
+        private Record(byte type, long sequence, byte[] payload) {
+            this.type = type;
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+
+        // Getters
+        public byte getType() { return type; }
+        public long getSequence() { return sequence; }
+        public byte[] getPayload() { return payload; }
+        public String getCommand() { return new String(payload, StandardCharsets.UTF_8); }
+
+        private static Record decode(byte[] bytes, int offset, int length) {
+            int position = offset;
+            int end = offset + length;
+            byte type = bytes[position++];
+            long sequence = 0;
+            for (int shift = 0; position < end; shift += 7) {
+                int b = bytes[position++];
+                sequence |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            byte[] payload = new byte[end - position];
+            System.arraycopy(bytes, position, payload, 0, payload.length);
+            return new Record(type, sequence, payload);
+        }
+    }
+
+    // Handle on one session's log; used by the thread that drives the session.
+    public final class SessionLog {
+
+        private final long sessionId;
+        private byte[] snapshot; // Recovery data until released
+        private List<Record> tail;
+        private long sequence; // Last sequence number written
+        private long recordsSinceSnapshot;
+        private boolean closed;
+
+        private SessionLog(long sessionId, byte[] snapshot, List<Record> tail, long sequence) {
+            this.sessionId = sessionId;
+            this.snapshot = snapshot;
+            this.tail = tail;
+            this.sequence = sequence;
+            this.recordsSinceSnapshot = tail.size();
+        }
+
+        // Getters
+        public long getSessionId() { return sessionId; }
+        public long getSequence() { return sequence; }
+        public boolean hasRecoveryData() { return snapshot != null || !tail.isEmpty(); }
+        public byte[] getSnapshot() { return snapshot; }
+        public List<Record> getTail() { return tail; }
+
+        // Drops the recovery data once the session has been rebuilt.
+        public void releaseRecoveryData() {
+            snapshot = null;
+            tail = List.of();
+        }
+
+        // Whether enough records have been written since the last snapshot that a new one is due
+        public boolean isSnapshotDue() { return recordsSinceSnapshot >= snapshotInterval; }
+
+        /**
+         * Appends an input line, before the session acts on it.
+         * @param line
+         */
+        public void appendCommand(String line) {
+            append(COMMAND, line.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Appends the item placement that just took effect (a reshuffle).
+         * @param placement encoded with ItemsManager.saveState
+         */
+        public void appendPlacement(byte[] placement) {
+            append(PLACEMENT, placement);
+        }
+
+        /**
+         * Writes a snapshot covering every record so far; the log is cut back once it is on disk.
+         * @param save session save (GameSession.save)
+         */
+        public void snapshot(byte[] save) {
+            checkOpen();
+            ByteBuffer file = ByteBuffer.allocate(20 + save.length);
+            file.putInt(SNAPSHOT_MAGIC).putLong(sequence).putInt(save.length).put(save).putInt(crc(save, 0, save.length));
+            recordsSinceSnapshot = 0;
+            submit(new Operation(Operation.SNAPSHOT, sessionId, file.array()));
+        }
+
+        /**
+         * Closes the session's log. After the command log itself is closed this only marks it closed; its files are
+         * left as they are.
+         * @param discard whether to delete its files (the game ended, so there is nothing to recover)
+         */
+        public void close(boolean discard) {
+            if (!closed) {
+                closed = true;
+                if (!running) {
+                    return;
+                }
+                submit(new Operation(discard ? Operation.DISCARD : Operation.CLOSE, sessionId, null));
+            }
+        }
+
+        private void append(byte type, byte[] payload) {
+            checkOpen();
+            sequence++;
+            recordsSinceSnapshot++;
+            byte[] header = new byte[11];
+            int headerLength = 0;
+            header[headerLength++] = type;
+            for (long value = sequence; ; value >>>= 7) {
+                if ((value & ~0x7FL) == 0) {
+                    header[headerLength++] = (byte) value;
+                    break;
+                }
+                header[headerLength++] = (byte) ((value & 0x7F) | 0x80);
+            }
+
+            int length = headerLength + payload.length;
+            ByteBuffer record = ByteBuffer.allocate(8 + length);
+            record.putInt(length).putInt(0).put(header, 0, headerLength).put(payload);
+            byte[] bytes = record.array();
+            record.putInt(4, crc(bytes, 8, length));
+            submit(new Operation(Operation.APPEND, sessionId, bytes));
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("Session log " + sessionId + " is closed.");
+            }
+        }
+    }
+
+    /* ========================== WRITER ========================== */
+
+    private static final class Operation {
+
+        static final int APPEND = 0;
+        static final int SNAPSHOT = 1;
+        static final int CLOSE = 2;
+        static final int DISCARD = 3;
+
+        final int kind;
+        final long sessionId;
+        final byte[] bytes;
+        long ticket;
+
+        Operation(int kind, long sessionId, byte[] bytes) {
+            this.kind = kind;
+            this.sessionId = sessionId;
+            this.bytes = bytes;
+        }
+    }
+
+    // Queues an operation and, with synchronous commit, waits until it is durable.
+    private void submit(Operation operation) {
+        IOException failed = failure;
+        if (failed != null) {
+            throw new UncheckedIOException("Command log failed", failed);
+        }
+        synchronized (queue) { // Tickets must be queued in order, so the durable ticket covers everything before it
+            if (!running) {
+                throw new IllegalStateException("Command log is closed.");
+            }
+            operation.ticket = tickets.incrementAndGet();
+            queue.offer(operation);
+        }
+        if (parked) {
+            LockSupport.unpark(writer);
+        }
+        if (syncCommit) {
+            awaitDurable(operation.ticket);
+        }
+    }
+
+    private void awaitDurable(long ticket) {
+        durableLock.lock();
+        try {
+            while (durableTicket < ticket && failure == null) {
+                durableChanged.awaitUninterruptibly();
+            }
+        } finally {
+            durableLock.unlock();
+        }
+        IOException failed = failure;
+        if (failed != null) {
+            throw new UncheckedIOException("Command log failed", failed);
+        }
+    }
+
+    private void writeLoop() {
+        List<FileChannel> dirty = new ArrayList<>();
+        int idle = 0;
+        try {
+            while (running || !queue.isEmpty()) {
+                Operation operation = queue.poll();
+                if (operation == null) {
+                    if (++idle < SPINS_BEFORE_PARK) {
+                        Thread.onSpinWait();
+                    } else {
+                        parked = true;
+                        if (queue.isEmpty() && running) { // Check again now that appenders will unpark us
+                            LockSupport.park(this);
+                        }
+                        parked = false;
+                        idle = 0;
+                    }
+                    continue;
+                }
+
+                // Group commit: write everything queued, then force each touched file once.
+                long lastTicket = 0;
+                while (operation != null) {
+                    apply(operation, dirty);
+                    lastTicket = operation.ticket;
+                    operation = queue.poll();
+                }
+                for (FileChannel channel : dirty) {
+                    channel.force(false);
+                }
+                dirty.clear();
+                publishDurable(lastTicket);
+                idle = 0;
+            }
+        } catch (IOException e) {
+            failure = e;
+            System.err.println("Command log failed: " + e.getMessage());
+            publishDurable(Long.MAX_VALUE); // Wakes the waiters, which then see the failure
+        } finally {
+            for (FileChannel channel : channels.values()) {
+                try {
+                    channel.close();
+                } catch (IOException e) {
+                    // Closing anyway
+                }
+            }
+            channels.clear();
+        }
+    }
+
+    private void apply(Operation operation, List<FileChannel> dirty) throws IOException {
+        switch (operation.kind) {
+            case Operation.APPEND: {
+                FileChannel channel = channels.get(operation.sessionId);
+                if (channel == null) {
+                    channel = FileChannel.open(logFile(operation.sessionId),
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                    channels.put(operation.sessionId, channel);
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(operation.bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (!dirty.contains(channel)) {
+                    dirty.add(channel);
+                }
+                break;
+            }
+            case Operation.SNAPSHOT: {
+                // Write the new snapshot beside the old one, swap it in atomically, then cut the log it covers.
+                Path target = snapshotFile(operation.sessionId);
+                Path temporary = directory.resolve(target.getFileName() + ".tmp");
+                try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(operation.bytes);
+                    while (buffer.hasRemaining()) {
+                        file.write(buffer);
+                    }
+                    file.force(true);
+                }
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                forceDirectory();
+                FileChannel channel = channels.get(operation.sessionId);
+                if (channel != null) {
+                    channel.truncate(0);
+                    if (!dirty.contains(channel)) {
+                        dirty.add(channel);
+                    }
+                } else {
+                    Files.deleteIfExists(logFile(operation.sessionId));
+                }
+                break;
+            }
+            case Operation.CLOSE:
+            case Operation.DISCARD: {
+                FileChannel channel = channels.remove(operation.sessionId);
+                if (channel != null) {
+                    if (dirty.remove(channel)) {
+                        channel.force(false);
+                    }
+                    channel.close();
+                }
+                if (operation.kind == Operation.DISCARD) {
+                    Files.deleteIfExists(logFile(operation.sessionId));
+                    Files.deleteIfExists(snapshotFile(operation.sessionId));
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown log operation: " + operation.kind);
+        }
+    }
+
+    // Makes a rename durable; not every platform can open a directory, which is fine to skip.
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Unsupported here
+        }
+    }
+
+    private void publishDurable(long ticket) {
+        durableLock.lock();
+        try {
+            durableTicket = Math.max(durableTicket, ticket);
+            durableChanged.signalAll();
+        } finally {
+            durableLock.unlock();
+        }
+    }
+}
@@ -1,20 +1,35 @@
 /*
-* Controller Class: The main controller of the application. It interacts with the CommandProcessor to start the game cycle.
+* Controller Class: The console front end of the application. It feeds lines from the console to a GameSession and prints what the session renders
+* (nothing for a console session, which writes to the console itself).
 */
 
 package Controller;
 
-import Controller.Manager.CommandProcessor;
+import java.io.PrintStream;
+import java.util.Scanner;
 
 public class Controller {
 
-    private final CommandProcessor commandProcessor; // Dependency
+    // Dependencies
+    private final GameSession session;
+    private final Scanner scanner;
+    private final PrintStream out;
 
-    public Controller(CommandProcessor commandProcessor) { this.commandProcessor = commandProcessor; } // Constructor
+    // Constructor
+    public Controller(GameSession session, Scanner scanner, PrintStream out) {
+        this.session = session;
+        this.scanner = scanner;
+        this.out = out;
+    }
 
     // Method to start the game cycle
     public void startGameCycle() {
-        commandProcessor.gameOpening();
-        commandProcessor.processInitialCommand();
-    }  
+        out.print(session.open().getOutput());
+        out.flush();
+        while (!session.isEnded() && scanner.hasNextLine()) {
+            out.print(session.submit(scanner.nextLine()).getOutput());
+            out.flush();
+        }
+        session.close();
+    }
 }
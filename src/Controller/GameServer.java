@@ -0,0 +1,444 @@
+/*
+ * GameServer Class: Line-oriented TCP server that hosts one GameSession per connection, all sharing one World.
+ *
+ * Protocol: the client sends UTF-8 lines; after the intro and after every line the server sends the rendered output
+ * followed by a single FRAME_END byte, so clients know when a response is complete. The connection closes when the
+ * game ends or the client disconnects. A server renders either text for people or JSON events for machine clients
+ * (GameSession.Output).
+ *
+ * Sessions run unpaced: a response is sent as one frame, so the loading screen's pauses would only stall the client
+ * without showing it the dots.
+ *
+ * Each connection runs on its own virtual thread when the JVM provides them (looked up reflectively so the code
+ * still runs on JDKs without them, falling back to small-stack platform threads). Connections keep only a small
+ * read buffer and their session state, and the read path takes no monitors, so blocking reads do not pin carrier
+ * threads.
+ *
+ * Players are ranked by name on the server's Leaderboard by GPA, and graduations are added to their profiles when
+ * the server has a ProfileStore. A server built on a SessionManager hosts its sessions there, so idle players'
+ * sessions can be passivated to disk while their connections stay open.
+ *
+ * With a CommandLog every session's input is logged under a session id that the server announces before the intro
+ * ({"e":"session","id":N} for event clients). A client that lost its connection, or whose server crashed, sends
+ * "resume N" as its first line to get its game back; the fresh session it was given is then dropped. Session ids
+ * continue after the highest id in the log, so they stay unique across restarts.
+ */
+
+package Controller;
+
+import Model.Leaderboard;
+import Model.World;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GameServer implements AutoCloseable {
+
+    // Protocol constants
+    public static final byte FRAME_END = 0;
+    private static final int READ_BUFFER_SIZE = 256;
+    private static final int MAX_LINE_LENGTH = 1024; // Longer lines are cut off
+    private static final long FALLBACK_STACK_SIZE = 256 * 1024;
+
+    // Dependencies
+    private final World world;
+    private final int requestedPort;
+    private final GameSession.Output output;
+    private final ProfileStore profileStore;
+    private final SessionManager sessions; // Null if each connection holds its own session
+    private CommandLog commandLog;
+    private final ThreadFactory connectionThreads;
+
+    // Server State
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong acceptedConnections = new AtomicLong();
+    private final AtomicLong lastSessionId = new AtomicLong();
+    private final Set<Long> activeSessions = ConcurrentHashMap.newKeySet(); // Logged sessions in use
+    private final Leaderboard leaderboard = new Leaderboard();
+    private volatile ServerSocket serverSocket;
+    private Thread acceptor;
+
+    /**
+     * Creates a server; nothing is bound until start.
+     * @param world world shared by every connection
+     * @param port port to listen on (0 for any free port)
+     */
+    public GameServer(World world, int port) {
+        this(world, port, GameSession.Output.TEXT);
+    }
+
+    /**
+     * Creates a server; nothing is bound until start.
+     * @param world world shared by every connection
+     * @param port port to listen on (0 for any free port)
+     * @param output what the sessions render
+     */
+    public GameServer(World world, int port, GameSession.Output output) {
+        this(world, port, output, null);
+    }
+
+    /**
+     * Creates a server; nothing is bound until start.
+     * @param world world shared by every connection
+     * @param port port to listen on (0 for any free port)
+     * @param output what the sessions render
+     * @param profileStore where graduations are recorded (null for none); the caller closes it
+     */
+    public GameServer(World world, int port, GameSession.Output output, ProfileStore profileStore) {
+        this(world, port, output, profileStore, null);
+    }
+
+    /**
+     * Creates a server whose sessions are hosted by a SessionManager; nothing is bound until start.
+     * @param sessions hosts the sessions and provides the world and output; the caller closes it
+     * @param port port to listen on (0 for any free port)
+     * @param profileStore where graduations are recorded (null for none); the caller closes it
+     */
+    public GameServer(SessionManager sessions, int port, ProfileStore profileStore) {
+        this(sessions.getWorld(), port, sessions.getOutput(), profileStore, sessions);
+    }
+
+    private GameServer(World world, int port, GameSession.Output output, ProfileStore profileStore, SessionManager sessions) {
+        this.world = world;
+        this.profileStore = profileStore;
+        this.sessions = sessions;
+        this.requestedPort = port;
+        this.output = output;
+        this.connectionThreads = connectionThreadFactory();
+    }
+
+    /**
+     * Logs every session's input so games survive disconnects and crashes; call before start. Not available for
+     * servers built on a SessionManager.
+     * @param commandLog the caller closes it, after the server
+     */
+    public synchronized void setCommandLog(CommandLog commandLog) {
+        if (sessions != null) {
+            throw new IllegalStateException("Logged sessions cannot be passivated.");
+        }
+        if (serverSocket != null) {
+            throw new IllegalStateException("Server already started.");
+        }
+        this.commandLog = commandLog;
+    }
+
+    /**
+     * Binds the port and starts accepting connections.
+     * @throws IOException if the port cannot be bound or the command log cannot be listed
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            return;
+        }
+        if (commandLog != null) {
+            for (long sessionId : commandLog.sessionIds()) {
+                lastSessionId.accumulateAndGet(sessionId, Math::max);
+            }
+        }
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(requestedPort), 1024);
+        serverSocket = socket;
+
+        acceptor = new Thread(this::acceptConnections, "game-server-acceptor");
+        acceptor.start();
+    }
+
+    // Getters
+    public int getPort() { return serverSocket == null ? requestedPort : serverSocket.getLocalPort(); }
+    public int getOpenConnections() { return connections.size(); }
+    public long getAcceptedConnections() { return acceptedConnections.get(); }
+    public Leaderboard getLeaderboard() { return leaderboard; }
+    public SessionManager getSessionManager() { return sessions; }
+    public boolean usesVirtualThreads() { return !(connectionThreads instanceof PlatformThreadFactory); }
+
+    // Stops accepting and disconnects every client.
+    @Override
+    public synchronized void close() {
+        ServerSocket socket = serverSocket;
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing server socket: " + e.getMessage());
+        }
+        for (Socket connection : connections) {
+            closeQuietly(connection);
+        }
+    }
+
+    /**
+     * Blocks until the server has been closed.
+     * @throws InterruptedException
+     */
+    public void awaitTermination() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            thread = acceptor;
+        }
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    /* ========================== CONNECTIONS ========================== */
+
+    private void acceptConnections() {
+        ServerSocket socket = serverSocket;
+        while (!socket.isClosed()) {
+            try {
+                Socket connection = socket.accept();
+                long connectionId = acceptedConnections.incrementAndGet();
+                connections.add(connection);
+                connectionThreads.newThread(() -> serve(connection, connectionId)).start();
+            } catch (SocketException e) {
+                break; // Server socket closed
+            } catch (IOException e) {
+                System.err.println("Error accepting connection: " + e.getMessage());
+            }
+        }
+    }
+
+    // Runs one player's session until the game ends or the client goes away.
+    private void serve(Socket connection, long connectionId) {
+        if (sessions != null) {
+            serveManaged(connection, connectionId);
+            return;
+        }
+        if (commandLog != null) {
+            serveLogged(connection);
+            return;
+        }
+        try (GameSession session = new GameSession(world, output)) {
+            configure(session);
+            connection.setTcpNoDelay(true);
+            InputStream in = connection.getInputStream();
+            OutputStream out = connection.getOutputStream();
+            LineReader lines = new LineReader(in);
+
+            send(out, session.open());
+            String line;
+            while (!session.isEnded() && (line = lines.readLine()) != null) {
+                send(out, session.submit(line));
+            }
+        } catch (IOException e) {
+            // Client disconnected
+        } finally {
+            connections.remove(connection);
+            closeQuietly(connection);
+        }
+    }
+
+    // Same as serve, but the session lives in the SessionManager, which may passivate it between lines.
+    private void serveManaged(Socket connection, long connectionId) {
+        try {
+            connection.setTcpNoDelay(true);
+            InputStream in = connection.getInputStream();
+            OutputStream out = connection.getOutputStream();
+            LineReader lines = new LineReader(in);
+
+            GameSession.Response response = sessions.open(connectionId, this::configure);
+            send(out, response);
+            String line;
+            while (!response.isEnded() && (line = lines.readLine()) != null) {
+                response = sessions.submit(connectionId, line);
+                send(out, response);
+            }
+        } catch (IOException e) {
+            // Client disconnected
+        } finally {
+            sessions.close(connectionId);
+            connections.remove(connection);
+            closeQuietly(connection);
+        }
+    }
+
+    // Same as serve, but the session's input is logged and the first line may resume an earlier logged session.
+    private void serveLogged(Socket connection) {
+        long sessionId = lastSessionId.incrementAndGet();
+        activeSessions.add(sessionId);
+        GameSession session = new GameSession(world, output);
+        try {
+            configure(session);
+            connection.setTcpNoDelay(true);
+            InputStream in = connection.getInputStream();
+            OutputStream out = connection.getOutputStream();
+            LineReader lines = new LineReader(in);
+
+            out.write(sessionNotice(sessionId));
+            send(out, session.open());
+            String line = lines.readLine();
+            long resumeId = line == null ? -1 : resumeId(line);
+            CommandLog.SessionLog resumed = resumeId < 0 ? null : claim(resumeId);
+            if (resumed != null) {
+                session.close(); // Its log was never attached, so nothing of it is kept
+                activeSessions.remove(sessionId);
+                sessionId = resumeId;
+                session = new GameSession(world, output);
+                configure(session);
+                send(out, session.recover(resumed));
+                line = lines.readLine();
+            } else {
+                session.attachLog(commandLog.open(sessionId));
+            }
+            while (!session.isEnded() && line != null) {
+                send(out, session.submit(line));
+                if (!session.isEnded()) {
+                    line = lines.readLine();
+                }
+            }
+        } catch (IOException e) {
+            // Client disconnected, or the session's log could not be read
+        } catch (RuntimeException e) {
+            System.err.println("Error in logged session " + sessionId + ": " + e.getMessage());
+        } finally {
+            session.close(); // An unfinished game's log is kept so it can be resumed
+            activeSessions.remove(sessionId);
+            connections.remove(connection);
+            closeQuietly(connection);
+        }
+    }
+
+    // Session id in a "resume N" line, or -1
+    private static long resumeId(String line) {
+        String trimmed = line.trim();
+        if (!trimmed.regionMatches(true, 0, "resume ", 0, 7)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(trimmed.substring(7).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Opens the log of a resumable session that no other connection is using, or returns null.
+    private CommandLog.SessionLog claim(long sessionId) throws IOException {
+        if (sessionId > lastSessionId.get() || !activeSessions.add(sessionId)) {
+            return null;
+        }
+        CommandLog.SessionLog log = commandLog.open(sessionId);
+        if (!log.hasRecoveryData()) {
+            log.close(true);
+            activeSessions.remove(sessionId);
+            return null;
+        }
+        return log;
+    }
+
+    private byte[] sessionNotice(long sessionId) {
+        String notice = output == GameSession.Output.EVENTS ? "{\"e\":\"session\",\"id\":" + sessionId + "}\n"
+                : "Session " + sessionId + ": send \"resume " + sessionId + "\" as your first line to continue this game later.\n";
+        return notice.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Also applied to a managed session each time it is restored from disk.
+    private void configure(GameSession session) {
+        session.setPaced(false);
+        session.setLeaderboard(leaderboard);
+        session.setProfileStore(profileStore);
+    }
+
+    private static void send(OutputStream out, GameSession.Response response) throws IOException {
+        response.writeTo(out, FRAME_END); // One write per response
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    /* ========================== THREADS ========================== */
+
+    // Virtual threads when this JVM has them, otherwise daemon platform threads with small stacks.
+    private static ThreadFactory connectionThreadFactory() {
+        try {
+            Method ofVirtual = Thread.class.getMethod("ofVirtual");
+            Object builder = ofVirtual.invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object named = builderType.getMethod("name", String.class, long.class).invoke(builder, "game-session-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(named);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            return new PlatformThreadFactory();
+        }
+    }
+
+    private static final class PlatformThreadFactory implements ThreadFactory {
+
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(null, task, "game-session-" + count.getAndIncrement(), FALLBACK_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /* ========================== LINE READER ========================== */
+
+    // Minimal UTF-8 line reader with a small fixed buffer and no locks.
+    private static final class LineReader {
+
+        private final InputStream in;
+        private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        private byte[] line = new byte[64];
+        private int position;
+        private int limit;
+
+        LineReader(InputStream in) {
+            this.in = in;
+        }
+
+        // Next line without its terminator, or null at end of stream.
+        String readLine() throws IOException {
+            int length = 0;
+            boolean readAny = false;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return readAny ? decode(length) : null;
+                    }
+                }
+                readAny = true;
+                byte b = buffer[position++];
+                if (b == '\n') {
+                    return decode(length);
+                }
+                if (length < MAX_LINE_LENGTH) {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, Math.min(line.length * 2, MAX_LINE_LENGTH));
+                    }
+                    line[length++] = b;
+                }
+            }
+        }
+
+        private String decode(int length) {
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            return new String(line, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * GameSession Class: Headless game session. Takes one line of input at a time and returns the rendered output
+ * together with the session's new phase, so any front end (console, server, load test, simulation) can host as
+ * many sessions as it likes in one JVM.
+ *
+ * A session renders either the console text or, for machine clients, one JSON event per line (see StructuredView).
+ * Everything a step renders is collected in one reusable FrameBuffer and handed out as a single byte array, so
+ * front ends can send a whole response with one write. A console session instead writes straight to its console as
+ * it renders, so paced screens (the loading dots) appear as they happen; its responses are empty.
+ *
+ * A session's progress can be saved to a compact binary form and restored into a new session (see SessionCodec),
+ * for example from a checkpoint taken after every graded quiz or exam.
+ *
+ * A hosted session can also write every input line to a CommandLog before acting on it, together with each scantron
+ * reshuffle, and snapshot itself periodically; recover rebuilds it from the last snapshot and the rest of the log.
+ *
+ * A session is driven by one thread at a time. Its only background work is the scantron reshuffle on the shared
+ * timing wheel, which close() cancels. With deferred reshuffles the timer only marks a reshuffle as due and the
+ * thread that submits the next line applies it, so the session's items are only touched by that thread.
+ *
+ * When the host keeps a ProfileStore, every graduation is added to the player's persistent profile on close; games the
+ * player quit are not.
+ */
+
+package Controller;
+
+import Controller.Manager.CommandProcessor;
+import Model.Leaderboard;
+import Model.Managers.ItemsManager;
+import Model.Managers.SessionCodec;
+import Model.Player;
+import Model.World;
+import View.FrameBuffer;
+import View.StructuredView;
+import View.View;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+public class GameSession implements AutoCloseable {
+
+    private final FrameBuffer frame = new FrameBuffer(); // Output of the current step
+    private final CommandProcessor commandProcessor;
+    private boolean opened;
+    private CommandLog.SessionLog log; // Write-ahead log, if the host keeps one
+    private ProfileStore profileStore; // Where graduations are recorded, if the host keeps profiles
+    private long loggedPlacementVersion = -1;
+    private final SessionCodec.Encoder placementEncoder = new SessionCodec.Encoder();
+
+    // What a session renders
+    public enum Output { TEXT, EVENTS }
+
+    // Constructors
+    public GameSession(World world) {
+        this(world, Output.TEXT);
+    }
+
+    public GameSession(World world, Output output) {
+        this(world, new Player(null, null), output);
+    }
+
+    public GameSession(World world, Player player) {
+        this(world, player, Output.TEXT);
+    }
+
+    public GameSession(World world, Player player, Output output) {
+        View view = output == Output.EVENTS ? new StructuredView(frame) : new View(frame);
+        this.commandProcessor = new CommandProcessor(view, world, player);
+    }
+
+    // Console session: text is written and flushed to the console as it is rendered.
+    public GameSession(World world, PrintStream console) {
+        this.commandProcessor = new CommandProcessor(new View(console), world, new Player(null, null));
+    }
+
+    // Result of one step: what the player sees, and the phase the session is now in.
+    public static final class Response {
+
+        private final byte[] frame; // UTF-8 output followed by one spare byte for a trailer
+        private final CommandProcessor.Phase phase;
+        private String output; // Decoded on first use
+
+        private Response(byte[] frame, CommandProcessor.Phase phase) {
+            this.frame = frame;
+            this.phase = phase;
+        }
+
+        // Getters
+        public String getOutput() {
+            if (output == null) {
+                output = new String(frame, 0, frame.length - 1, StandardCharsets.UTF_8);
+            }
+            return output;
+        }
+        public int getByteCount() { return frame.length - 1; }
+        public CommandProcessor.Phase getPhase() { return phase; }
+        public boolean isEnded() { return phase == CommandProcessor.Phase.ENDED; }
+
+        /**
+         * Writes the output followed by a trailer byte in a single write.
+         * @param out
+         * @param trailer e.g. a frame terminator
+         * @throws IOException
+         */
+        public void writeTo(OutputStream out, byte trailer) throws IOException {
+            frame[frame.length - 1] = trailer;
+            out.write(frame);
+        }
+    }
+
+    /**
+     * Opens the session: shows the game intro and the main menu prompt.
+     * @return intro output
+     */
+    public Response open() {
+        if (!opened) {
+            opened = true;
+            commandProcessor.gameOpening();
+            logPlacement();
+            commandProcessor.showPromptForPhase();
+        }
+        return drain();
+    }
+
+    /**
+     * Handles one line of input.
+     * @param line
+     * @return output of the line and the new phase
+     */
+    public Response submit(String line) {
+        if (!opened) { // The intro is returned together with the line's output
+            opened = true;
+            commandProcessor.gameOpening();
+            logPlacement();
+        }
+        if (!isEnded()) {
+            commandProcessor.getItemsManager().applyDueReshuffle(); // Only ever due with deferred reshuffles
+            if (log != null) {
+                logPlacement();
+                log.appendCommand(line);
+            }
+            commandProcessor.handleInput(line);
+            if (log != null && !isEnded() && log.isSnapshotDue()) {
+                log.snapshot(save());
+            }
+        }
+        return drain();
+    }
+
+    /**
+     * Restores a saved session instead of opening a new one; only valid before open or submit.
+     * @param save bytes from save or a checkpoint
+     * @return the screen the saved session was on, with its prompt
+     * @throws IllegalArgumentException if the save is corrupt or belongs to another world
+     */
+    public Response restore(byte[] save) {
+        if (opened) {
+            throw new IllegalStateException("Session already opened.");
+        }
+        commandProcessor.restoreState(save);
+        opened = true;
+        if (!isEnded()) {
+            commandProcessor.showPromptForPhase();
+        }
+        return drain();
+    }
+
+    // Encodes the session's progress.
+    public byte[] save() { return commandProcessor.saveState(); }
+
+    /**
+     * Writes this session's input to a command log from now on. Reshuffles are then applied by the session itself
+     * before its next command, so they are logged in order with the commands.
+     * @param log
+     */
+    public void attachLog(CommandLog.SessionLog log) {
+        this.log = log;
+        commandProcessor.getItemsManager().setDeferredReshuffles(true);
+        if (opened) {
+            logPlacement();
+        }
+    }
+
+    /**
+     * Rebuilds a crashed session from its log (last snapshot, then the records after it) and keeps logging to it.
+     * Only valid before open or submit; configure pacing and auto-continue as the session had them.
+     * @param log log opened for the session's id
+     * @return the screen the session was on, with its prompt
+     */
+    public Response recover(CommandLog.SessionLog log) {
+        if (opened) {
+            throw new IllegalStateException("Session already opened.");
+        }
+        boolean paced = commandProcessor.isPaced();
+        commandProcessor.setPaced(false);
+        commandProcessor.getItemsManager().setDeferredReshuffles(true);
+        try {
+            if (log.getSnapshot() != null) {
+                commandProcessor.restoreState(log.getSnapshot());
+                opened = true;
+            } else {
+                open();
+            }
+            for (CommandLog.Record record : log.getTail()) {
+                if (record.getType() == CommandLog.PLACEMENT) {
+                    byte[] placement = record.getPayload();
+                    ItemsManager items = commandProcessor.getItemsManager();
+                    items.restoreState(new SessionCodec.Decoder(placement, 0, placement.length));
+                    loggedPlacementVersion = items.getPlacementVersion();
+                } else if (record.getType() == CommandLog.COMMAND && !isEnded()) {
+                    commandProcessor.handleInput(record.getCommand());
+                }
+            }
+        } finally {
+            commandProcessor.setPaced(paced);
+        }
+        log.releaseRecoveryData();
+        this.log = log;
+        loggedPlacementVersion = commandProcessor.getItemsManager().getPlacementVersion();
+
+        frame.reset(); // Replayed output was already seen before the crash
+        if (!isEnded()) {
+            commandProcessor.showResumedScreen();
+            commandProcessor.showPromptForPhase();
+        }
+        return drain();
+    }
+
+    /**
+     * Hands a save of the session to the listener after every graded quiz or exam.
+     * @param listener null to stop checkpointing
+     */
+    public void setCheckpointListener(Consumer<byte[]> listener) {
+        commandProcessor.setCheckpointListener(listener == null ? null : () -> listener.accept(commandProcessor.saveState()));
+    }
+
+    /**
+     * Reports the player's GPA to a shared leaderboard after every graded quiz or exam (and now, if the session
+     * already has grades, e.g. after a restore). Players are ranked by name, so every game of one player updates the
+     * same entry, which stays on the board after the session closes.
+     * @param leaderboard null to stop reporting
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        commandProcessor.getPlayersManager().setLeaderboard(leaderboard);
+    }
+
+    /**
+     * Records the run in the player's persistent profile when a named player's game ends and the session is closed.
+     * @param profileStore null to stop recording
+     */
+    public void setProfileStore(ProfileStore profileStore) {
+        this.profileStore = profileStore;
+    }
+
+    // Getters
+    public Player getPlayer() { return commandProcessor.getPlayer(); }
+    public CommandProcessor.Phase getPhase() { return commandProcessor.getPhase(); }
+    public boolean isEnded() { return commandProcessor.getPhase() == CommandProcessor.Phase.ENDED; }
+
+    // Turns the loading pauses on or off (see CommandProcessor.setPaced).
+    public void setPaced(boolean paced) { commandProcessor.setPaced(paced); }
+
+    // Lets "press enter" screens continue on their own (see CommandProcessor.setAutoContinue).
+    public void setAutoContinue(boolean autoContinue) { commandProcessor.setAutoContinue(autoContinue); }
+
+    // Reshuffles the scantrons as the placement timer would (before the next command with deferred reshuffles).
+    public void requestReshuffle() { commandProcessor.getItemsManager().requestReshuffle(); }
+
+    // Leaves timer reshuffles to the thread that submits the next line (always on once a log is attached).
+    public void setDeferredReshuffles(boolean deferred) { commandProcessor.getItemsManager().setDeferredReshuffles(deferred); }
+
+    // Seeds the scantron placement; call before open.
+    public void setRandomSeed(long seed) { commandProcessor.setRandomSeed(seed); }
+
+    // Ends the session and cancels its timers. A finished game's log is deleted; an unfinished one is kept for recovery.
+    // A graduation is added to the player's profile.
+    @Override
+    public void close() {
+        commandProcessor.endSession();
+        if (profileStore != null && commandProcessor.hasGraduated() && getPlayer().getPlayerName() != null) {
+            try {
+                profileStore.recordRun(getPlayer());
+            } catch (RuntimeException e) {
+                System.err.println("Error saving the profile of " + getPlayer().getPlayerName() + ": " + e.getMessage());
+            }
+            profileStore = null;
+        }
+        if (log != null) {
+            log.close(isEnded());
+            log = null;
+        }
+    }
+
+    // Logs the item placement if it changed since it was last logged.
+    private void logPlacement() {
+        ItemsManager items = commandProcessor.getItemsManager();
+        if (log != null && items.getPlacementVersion() != loggedPlacementVersion) {
+            items.saveState(placementEncoder.reset());
+            log.appendPlacement(placementEncoder.toByteArray());
+            loggedPlacementVersion = items.getPlacementVersion();
+        }
+    }
+
+    private Response drain() {
+        Response response = new Response(frame.copy(1), commandProcessor.getPhase());
+        frame.reset();
+        return response;
+    }
+}
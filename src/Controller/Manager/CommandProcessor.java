@@ -1,6 +1,13 @@
 /*
  * Command Processor Class: Responsible for processing user commands and updating the game state.
  *
+ * The processor is a state machine: every input line is handled by one call to handleInput, which acts on the
+ * current phase (main menu, name prompt, playing, puzzle answer, ...) and moves to the next one. The game loop just
+ * feeds it lines, so the stack depth stays the same however long a session runs.
+ *
+ * The processor never reads input or ends the JVM itself: a front end (see GameSession) passes it lines, and
+ * exiting or graduating only moves it to the ENDED phase.
+ *
  * Method categories:
  * 1. Game Initialization
  * 2. Command Processing
@@ -9,6 +16,7 @@
  * 5. Utility Methods
  * 6. Movement Method
  * 7. Puzzle methods
+ * 8. Save & restore
  */
 
 package Controller.Manager;
@@ -18,45 +26,84 @@ import Model.*;
 import Model.Managers.*;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Scanner;
-import java.util.stream.Collectors;
 public class CommandProcessor {
 
     // Constants
     private static final String START_COMMAND = "start";
     private static final String EXIT_COMMAND = "exit";
     private final String[] VALID_MAIN_MENU_COMMANDS = { START_COMMAND, EXIT_COMMAND };
-    private final String[] VALID_HELP_COMMANDS = { "h", "help" };
-    private static final String[] VALID_INVENTORY_COMMANDS = { "ba", "backpack" };
-    private static final String[] VALID_EXPLORE_COMMANDS = { "ex", "explore" };
-    private static final String[] VALID_INSPECT_COMMANDS = { "in", "inspect" };
-    private static final String[] VALID_PICKUP_COMMANDS = { "pk", "pickup" };
-    private final String[] VALID_MOVEMENT_COMMANDS = { "north", "n", "south", "s", "east", "e", "west", "w" };
     private static final String INVALID_MENU_COMMAND_MESSAGE = "\nInvalid command. Please enter 'start' or 'exit'.";
     private static final String INVALID_COMMAND_MESSAGE = "\nInvalid command. Please enter 'h' for help.";
+    private static final int QUIZ_QUESTIONS = 3;
+    private static final int EXAM_QUESTIONS = 2;
     private static final String NO_EXIT_MESSAGE = "\nThere is no exit that way. Please enter 'h' for help.";
 
     // Dependencies
     private final View view;
-    private final Scanner scanner;
+    private final World world;
     private final PlayersManager playersManager;
     private final RoomsManager roomsManager;
     private final ItemsManager itemsManager;
     private final PuzzlesManager puzzlesManager;
+    private final CommandRegistry commands;
+    private final int scantronKey; // Item key of the scantrons quizzes and exams use up
+
+     // Constructors
+     public CommandProcessor(View view, Reader reader, Player player) {
+        this(view, World.shared(reader), player);
+    }
 
-     // Constructor
-     public CommandProcessor(View view, Reader reader, Scanner scanner, Player player) {
+    // The world is shared between sessions; the managers keep only this session's state.
+    public CommandProcessor(View view, World world, Player player) {
         this.view = view;
-        this.scanner = scanner;
-        this.playersManager = new PlayersManager(player);
-        this.roomsManager = new RoomsManager(reader.loadRoomsFromFile());
-        this.itemsManager = new ItemsManager(reader.loadItemsFromFile());
-        this.puzzlesManager = new PuzzlesManager(reader.loadPuzzlesFromFile());
+        this.world = world;
+        this.playersManager = new PlayersManager(player, view, world);
+        this.scantronKey = world.getItemIndex().itemKey("scantron");
+        this.roomsManager = new RoomsManager(world);
+        this.itemsManager = new ItemsManager(world);
+        this.puzzlesManager = new PuzzlesManager(world, view);
+        this.commands = registerCommands(new CommandRegistry());
     }
 
-    // User Input Tracking
-    private String userInput;
+    /**
+     * Registers the in-game commands and their aliases.
+     * @param registry
+     * @return registry
+     */
+    private CommandRegistry registerCommands(CommandRegistry registry) {
+        return registry
+            .register(CommandRegistry.Arguments.NONE, argument -> handleExitGame(), EXIT_COMMAND)
+            .register(CommandRegistry.Arguments.NONE, argument -> handleHelpCommand(), "help", "h")
+            .register(CommandRegistry.Arguments.NONE, argument -> {
+                playersManager.displayInventory();
+                playersManager.displayReportCard();
+            }, "backpack", "ba")
+            .register(CommandRegistry.Arguments.NONE, argument -> handleMovementCommand(RoomIndex.NORTH), "north", "n")
+            .register(CommandRegistry.Arguments.NONE, argument -> handleMovementCommand(RoomIndex.EAST), "east", "e")
+            .register(CommandRegistry.Arguments.NONE, argument -> handleMovementCommand(RoomIndex.SOUTH), "south", "s")
+            .register(CommandRegistry.Arguments.NONE, argument -> handleMovementCommand(RoomIndex.WEST), "west", "w")
+            .register(CommandRegistry.Arguments.NONE, argument -> handleExploreCommand(), "explore", "ex")
+            .register(CommandRegistry.Arguments.REQUIRED, this::handlePickupCommand, "pickup", "pk")
+            .register(CommandRegistry.Arguments.REQUIRED, this::handleInspectCommand, "inspect", "in");
+    }
+
+    // What the next input line answers
+    public enum Phase { MAIN_MENU, PLAYER_NAME, WELCOME_CONTINUE, PLAYING, HELP_CONTINUE, EXAM_CONFIRM, PUZZLE_ANSWER, ENDED }
+
+    // Session State
+    private Phase phase = Phase.MAIN_MENU;
+    private boolean graduated; // Whether the game ended with a graduation rather than a quit
+    private List<Puzzle> activePuzzles; // Quiz or exam in progress
+    private Room puzzleRoom;
+    private int questionIndex;
+    private int questionCount;
+    private int numOfCorrectAnswers;
+    private boolean paced = true; // Whether the loading indicator really waits
+    private boolean autoContinue; // Whether "press enter" screens continue without waiting for a line
+    private Runnable checkpointListener; // Called whenever a quiz or exam has been graded
+    private final SessionCodec.Encoder saveEncoder = new SessionCodec.Encoder(); // Reused by every save
 
     /* ========================== GAME INITIALIZATION ========================== */
 
@@ -66,15 +113,110 @@ public class CommandProcessor {
         itemsManager.startRandomPlacementTask();
     }
 
-    // Processes the initial command entered by the user.
-    public void processInitialCommand() {
-        userInput = getUserInput();
+    // Getters
+    public Phase getPhase() { return phase; }
+    public boolean hasGraduated() { return graduated; }
+    public Player getPlayer() { return playersManager.getPlayer(); }
+    public ItemsManager getItemsManager() { return itemsManager; }
+    public PlayersManager getPlayersManager() { return playersManager; }
+    public boolean isPaced() { return paced; }
+
+    /**
+     * Turns the loading indicator's pauses on or off. Hosts that must never block (event loops, batch runs) turn
+     * them off.
+     * @param paced
+     */
+    public void setPaced(boolean paced) { this.paced = paced; }
+
+    /**
+     * Makes the "press enter to continue" screens continue on their own, for scripted runs whose transcripts only
+     * hold real commands.
+     * @param autoContinue
+     */
+    public void setAutoContinue(boolean autoContinue) { this.autoContinue = autoContinue; }
+
+    /**
+     * Seeds the scantron placement so scripted runs are repeatable; call before gameOpening.
+     * @param seed
+     */
+    public void setRandomSeed(long seed) { itemsManager.setRandomSeed(seed); }
+
+    /**
+     * Sets the hook that is called after every graded quiz or exam, e.g. to checkpoint the session with saveState.
+     * @param checkpointListener null for none
+     */
+    public void setCheckpointListener(Runnable checkpointListener) { this.checkpointListener = checkpointListener; }
+
+    /**
+     * Handles one line of input according to the current phase, then prompts for the next one.
+     * @param line raw input line
+     * @return false once the game has ended
+     */
+    public boolean handleInput(String line) {
+        // In-game commands are matched in any case by the registry; the other phases compare lower-case text.
+        String input = phase == Phase.PLAYING ? line : line.toLowerCase();
+
+        switch (phase) {
+            case MAIN_MENU:
+                if (isValidMenuCommand(input)) {
+                    handleInitialCommand(input);
+                } else {
+                    view.printError(INVALID_MENU_COMMAND_MESSAGE);
+                }
+                break;
+            case PLAYER_NAME:
+                setPlayerName(input);
+                if (phase == Phase.PLAYER_NAME) {
+                    view.showWelcomeIntro();
+                    phase = Phase.WELCOME_CONTINUE;
+                }
+                break;
+            case WELCOME_CONTINUE:
+                continueAfterPause();
+                break;
+            case PLAYING:
+                processPlayerCommand(line);
+                break;
+            case HELP_CONTINUE:
+                continueAfterPause();
+                break;
+            case EXAM_CONFIRM:
+                confirmExam(input);
+                break;
+            case PUZZLE_ANSWER:
+                if (!input.trim().isEmpty()) { // Blank lines do not count as answers
+                    answerQuestion(input);
+                }
+                break;
+            case ENDED:
+                break;
+        }
+
+        if (autoContinue && (phase == Phase.WELCOME_CONTINUE || phase == Phase.HELP_CONTINUE)) {
+            continueAfterPause();
+        }
 
-        if (isValidMenuCommand(userInput)) {
-            handleInitialCommand(userInput);
+        if (phase != Phase.ENDED) {
+            showPromptForPhase();
+        }
+        return phase != Phase.ENDED;
+    }
+
+    // Leaves a "press enter to continue" screen.
+    private void continueAfterPause() {
+        if (phase == Phase.WELCOME_CONTINUE) {
+            getStartingRoom();
         } else {
-            view.printError(INVALID_MENU_COMMAND_MESSAGE);
-            processInitialCommand();
+            showCurrentLocation();
+        }
+        phase = Phase.PLAYING;
+    }
+
+    // Reports the phase the next input answers, and shows the input indicator for phases that read a command-style answer.
+    public void showPromptForPhase() {
+        view.onPrompt(phase.name());
+        if (phase == Phase.MAIN_MENU || phase == Phase.PLAYER_NAME || phase == Phase.PLAYING || phase == Phase.EXAM_CONFIRM) {
+            view.showInputIndicator();
         }
     }
 
@@ -95,15 +237,10 @@ public class CommandProcessor {
         }
     }
 
-    // Starts the game sequence.
+    // Starts the game sequence; the player's name is the next input.
     private void startGameSequence() {
         loadingGameIndicator();
         promptForPlayerName();
-        view.showWelcomeIntro();
-        enterToContinue();
-        getStartingRoom();
-        userInput = getUserInput();
-        processPlayerCommand(userInput);
     }
 
     /* ========================== COMMAND PROCESSING ========================== */
@@ -112,34 +249,10 @@ public class CommandProcessor {
      * Processes the command entered by the player.
      * @param userInput
      */
-    private void processPlayerCommand(String userInput) {
-
-        if (userInput.equals(EXIT_COMMAND)) { 
-            handleExitGame(); 
-        } else if (java.util.Arrays.asList(VALID_HELP_COMMANDS).contains(userInput)) {
-            handleHelpCommand();
-        } else if (java.util.Arrays.asList(VALID_INVENTORY_COMMANDS).contains(userInput)) {
-            playersManager.displayInventory();
-            playersManager.displayReportCard();
-        } else if (java.util.Arrays.asList(VALID_MOVEMENT_COMMANDS).contains(userInput)) {
-            handleMovementCommand(userInput);
-        } else if (java.util.Arrays.asList(VALID_EXPLORE_COMMANDS).contains(userInput)) {
-            handleExploreCommand(userInput);
-        } else if (isPickupCommand(userInput)) {
-            handlePickupCommand(userInput);
-        } else if (isInspectCommand(userInput)) {
-            handleInspectCommand(userInput);
-        } else {
+    private void processPlayerCommand(CharSequence userInput) {
+        if (!commands.dispatch(userInput)) {
             view.printError(INVALID_COMMAND_MESSAGE);
         }
-
-        promptForPlayerCommand();
-    }
-
-    // Prompt for player command
-    private void promptForPlayerCommand() {
-        userInput = getUserInput();
-        processPlayerCommand(userInput);
     }
 
     /* ========================== COMMAND VALIDATION METHODS ========================== */
@@ -153,40 +266,16 @@ public class CommandProcessor {
         return java.util.Arrays.asList(VALID_MAIN_MENU_COMMANDS).contains(userInput);
     }
 
-     /**
-     * Checks if the user input is an inspect command.
-     * @param userInput
-     * @return
-     */
-    private boolean isInspectCommand(String userInput) {
-        for (String command : VALID_INSPECT_COMMANDS) {
-            if (userInput.startsWith(command + " ")) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Checks if the user input is a pickup command.
-     * @param userInput
-     * @return
-     */
-    private boolean isPickupCommand(String userInput) {
-        for (String command : VALID_PICKUP_COMMANDS) {
-            if (userInput.startsWith(command + " ")) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /* ========================== HANDLER METHODS ========================== */
 
-     // Displays the full list of commands and instructions.
+     // Displays the full list of commands and instructions; the next input returns to the game.
      private void handleHelpCommand() {
         view.showFullCommandsAndInstructions();
-        enterToContinue();
+        phase = Phase.HELP_CONTINUE;
+    }
+
+    // Displays the current location after the help screen.
+    private void showCurrentLocation() {
         view.showEventLine();
         view.println("Location: " + view.YELLOW + playersManager.getPlayer().getCurrentRoom().getRoomName() + view.RESET + "\n");
         view.println(playersManager.getPlayer().getCurrentRoom().getRoomDescription());
@@ -195,21 +284,18 @@ public class CommandProcessor {
 
      /**
      * Handles the player's movement command.
-     * @param userInput
-     * @return
+     * @param direction one of the RoomIndex direction constants
      */
-    private boolean handleMovementCommand(String userInput) {
+    private void handleMovementCommand(int direction) {
         Room currentRoom = playersManager.getPlayer().getCurrentRoom();
-        movePlayer(roomsManager.getRoomExitId(currentRoom.getRoomId(), userInput), currentRoom);
-        return true;
+        movePlayer(roomsManager.getRoomExitId(currentRoom.getRoomId(), direction));
     }
 
-    /**
-     * Handles the player's explore command.
-     * @param userInput
-     */
-    private void handleExploreCommand(String userInput) {
-        int roomItemCount = itemsManager.getItemCountInRoom(playersManager.getPlayer().getCurrentRoom().getRoomId());
+    // Handles the player's explore command.
+    private void handleExploreCommand() {
+        int roomId = playersManager.getPlayer().getCurrentRoom().getRoomId();
+        int roomItemCount = itemsManager.getItemCountInRoom(roomId);
+        view.onItemCount(roomId, "scantron", roomItemCount);
 
         if (roomItemCount > 0) {
             if (roomItemCount == 1) {
@@ -224,104 +310,72 @@ public class CommandProcessor {
 
     /**
      * Handles the player's inspect command.
-     * @param userInput
+     * @param itemName view of the argument after the verb
      */
-    private void handleInspectCommand(String userInput) {
-        if (isInspectCommand(userInput)) {
-            String itemName = null;
-    
-            for (String command : VALID_INSPECT_COMMANDS) {
-                if (userInput.startsWith(command + " ")) {
-                    itemName = userInput.substring(command.length()).trim();
-                    break;
-                }
-            }
-    
-            boolean itemFound = false;
-    
-            for (Item item : itemsManager.getItems()) {
-                if (item.getItemName().equalsIgnoreCase(itemName) &&
-                    item.getItemId() == playersManager.getPlayer().getCurrentRoom().getRoomId() &&
-                    item.getItemCount() > 0) {
-    
-                    view.println("\n" + item.getItemDescription());
-                    itemFound = true;
-                    break;
-                }
-            }
-    
-            if (!itemFound) {
-                view.println("\nThere are no " + itemName + "s in this room to inspect.");
-            }
+    private void handleInspectCommand(CharSequence itemName) {
+        int roomId = playersManager.getPlayer().getCurrentRoom().getRoomId();
+        int ordinal = itemsManager.findItemInRoom(roomId, itemName);
+
+        if (ordinal != ItemIndex.NO_ITEM) {
+            view.println("\n" + itemsManager.getItems().get(ordinal).getItemDescription());
+            view.onItemInspected(itemName.toString(), itemsManager.getItems().get(ordinal).getItemDescription());
         } else {
-            view.println("\nInvalid inspect command. Use 'inspect [item name]'.");
+            view.println("\nThere are no " + itemName + "s in this room to inspect.");
+            view.onItemInspected(itemName.toString(), null);
         }
     }
 
-    /** 
+    /**
      * Handles the player's pickup command.
-     * @param userInput
-    */
-    private void handlePickupCommand(String userInput) {
-        String itemName = null;
-
-        for (String command : VALID_PICKUP_COMMANDS) {
-            if (userInput.startsWith(command + " ")) {
-                itemName = userInput.substring(command.length()).trim();
-                break;
-            }
-        }
-    
-        boolean itemPickedUp = false;
-    
-        for (Item item : itemsManager.getItems()) {
-            if (item.getItemName().equalsIgnoreCase(itemName)
-                    && item.getItemId() == playersManager.getPlayer().getCurrentRoom().getRoomId() 
-                    && item.getItemCount() > 0) {
-    
-                playersManager.addItemToInventory(item);
-                item.setItemCount(item.getItemCount() - 1);
-                view.println("\nYou picked up the " + itemName + "!");
-                itemPickedUp = true;
-                break;
-            }
-        }
-    
-        if (!itemPickedUp) {
+     * @param itemName view of the argument after the verb
+     */
+    private void handlePickupCommand(CharSequence itemName) {
+        int roomId = playersManager.getPlayer().getCurrentRoom().getRoomId();
+        int ordinal = itemsManager.findItemInRoom(roomId, itemName);
+
+        if (ordinal != ItemIndex.NO_ITEM && itemsManager.takeItem(ordinal)) {
+            playersManager.addItemToInventory(world.getItemIndex().keyOf(ordinal));
+            view.println("\nYou picked up the " + itemName + "!");
+            view.onItemPickedUp(itemName.toString(), true);
+        } else {
             view.println("\nThere is no " + itemName + " in this room to pick up.");
+            view.onItemPickedUp(itemName.toString(), false);
         }
-    
     }
 
      // Exits the game.
      private void handleExitGame() {
-        itemsManager.stopRandomPlacementTask();
-        scanner.close();
+        phase = Phase.ENDED;
+        endSession();
 
-        if (playersManager.getPlayer().getGpa() <= 2.9) {
+        double gpa = playersManager.getPlayer().getGpa();
+        if (gpa <= 2.9) {
             view.showDropoutExit();
+            view.onGameEnded("dropout", gpa);
         }
-        else if (playersManager.getPlayer().getGpa() <= 3.9) {
+        else if (gpa <= 3.9) {
             view.showGoodStandingExit();
+            view.onGameEnded("good_standing", gpa);
+        } else {
+            view.onGameEnded("exit", gpa);
         }
-
-        System.exit(0);
     }
 
-    /* ========================== UTILITY METHODS ========================== */
-
     /**
-     * Prompts the player for input and returns it as a lowercase string.
-     * Ensures consistency in user command processing.
-     * @return userInput
+     * Ends this session: cancels its timers on the shared timing wheel so nothing keeps running for it.
+     * Safe to call more than once.
      */
-    private String getUserInput() {
-        view.showInputIndicator();
-        return scanner.nextLine().toLowerCase();
+    public void endSession() {
+        itemsManager.stopRandomPlacementTask();
     }
 
+    /* ========================== UTILITY METHODS ========================== */
+
     // Waits for 3 seconds before continuing the game.
     private void wait3seconds() {
+        if (!paced) {
+            return;
+        }
         try {
             Thread.sleep(1000);
         } catch (InterruptedException e) {
@@ -340,20 +394,11 @@ public class CommandProcessor {
         view.print("\n");
     }
 
-    /**
-     * Prompts the player to press enter to continue the game.
-     * @return (empty string)
-     */
-    private String enterToContinue() {
-        return scanner.nextLine().toLowerCase();
-    }
-
     // Prompts the player for their name.
     private void promptForPlayerName() {
         view.showEventLine();
         view.print("Enter your " + view.YELLOW + "name" + view.RESET + " below:\n");
-        userInput = getUserInput();
-        setPlayerName(userInput);
+        phase = Phase.PLAYER_NAME;
     }
 
     /**
@@ -363,6 +408,7 @@ public class CommandProcessor {
     private void setPlayerName(String userInput) {
         if (userInput.equals(EXIT_COMMAND)) {
             handleExitGame();
+            return;
         } else if (userInput.isEmpty()) {
             playersManager.setPlayerName("student");
         } else {
@@ -370,13 +416,14 @@ public class CommandProcessor {
         }
         view.showEventLine();
         view.println("Welcome, " + playersManager.getPlayer().getPlayerName().toUpperCase() + view.RESET + "!\n");
+        view.onPlayerNamed(playersManager.getPlayer().getPlayerName());
     }
 
      // Displays the starting room and its description.
      private void getStartingRoom() {
         view.showEventLine();
-        playersManager.setCurrentRoom(roomsManager.getRooms(0));
-        playersManager.getPlayer().getCurrentRoom().setHasVisited(true);
+        playersManager.setCurrentRoom(roomsManager.getStartingRoom());
+        playersManager.getPlayer().markVisited(playersManager.getPlayer().getCurrentRoom().getRoomId());
         displayStartingRoomDetails();
     }
 
@@ -386,6 +433,7 @@ public class CommandProcessor {
         view.println("Location: " + view.YELLOW + startingRoom.getRoomName() + view.RESET + "\n");
         view.println(startingRoom.getRoomDescription());
         view.showCommandOptions();
+        view.onRoomEntered(startingRoom.getRoomId(), startingRoom.getRoomName(), false);
     }
 
     /**
@@ -395,8 +443,10 @@ public class CommandProcessor {
     private void checkGpa(double gpa) {
         if (playersManager.getPlayer().getGpa() >= 4.0) {
             view.showGraduatingExit();
-            scanner.close();
-            System.exit(0);
+            view.onGameEnded("graduate", playersManager.getPlayer().getGpa());
+            graduated = true;
+            phase = Phase.ENDED;
+            endSession();
         }
 
     }
@@ -406,23 +456,21 @@ public class CommandProcessor {
      /**
      * Moves the player to the next room based on the given exit id.
      * @param nextRoomId
-     * @param currentRoom
      */
-    private void movePlayer(int nextRoomId, Room currentRoom) {
+    private void movePlayer(int nextRoomId) {
         if (nextRoomId == 0) {
             view.printError(NO_EXIT_MESSAGE);
-            processPlayerCommand(getUserInput());
             return;
         }
 
         Room nextRoom = roomsManager.findRoomById(nextRoomId);
 
         if (nextRoom != null) {
-            playersManager.getPlayer().getPreviousRoomsList().add(playersManager.getPlayer().getCurrentRoom());
-            playersManager.setCurrentRoom(nextRoom);
-            currentRoom.setHasVisited(true);
+            playersManager.setCurrentRoom(nextRoom); // Records the room left in the history and marks it visited
             view.showEventLine();
-            if (playersManager.indicateNewRoom(nextRoom) == true) {
+            boolean visitedBefore = playersManager.indicateNewRoom(nextRoom);
+            view.onRoomEntered(nextRoom.getRoomId(), nextRoom.getRoomName(), visitedBefore);
+            if (visitedBefore) {
                 view.println("Location: " + view.YELLOW + nextRoom.getRoomName() + view.RESET + "\n");
                 view.println(nextRoom.getRoomDescription());
             } else {
@@ -430,8 +478,9 @@ public class CommandProcessor {
                 view.println(nextRoom.getRoomDescription());
             }
             handlePuzzles(nextRoom);
-            view.showCommandOptions();
-            processPlayerCommand(getUserInput());
+            if (phase == Phase.PLAYING) { // No quiz or exam started
+                view.showCommandOptions();
+            }
         }
 
         else {
@@ -446,122 +495,294 @@ public class CommandProcessor {
      * @param currentRoom
      */
     private void handlePuzzles(Room currentRoom) {
-        List<Puzzle> puzzles = puzzlesManager.getPuzzlesByRoomId(currentRoom.getRoomId());
+        int roomId = currentRoom.getRoomId();
 
-    List<Puzzle> quizzes = puzzles.stream()
-            .filter(p -> "Quiz".equals(p.getPuzzleType()))
-            .filter(p -> !p.getIsSolved())
-            .collect(Collectors.toList());
+    int playerScantrons = playersManager.countInInventory(scantronKey);
 
-    List<Puzzle> exams = puzzles.stream()
-            .filter(p -> "Exam".equals(p.getPuzzleType()))
-            .filter(p -> !p.getIsSolved())
-            .collect(Collectors.toList());
-
-    int playerScantrons = playersManager.getPlayer().getInventory().size();
-
-    if (!quizzes.isEmpty()) {
+    if (puzzlesManager.hasUnsolvedPuzzles(roomId, "quiz")) {
         boolean hasEnoughScantrons = puzzlesManager.checkScantronRequirements(playerScantrons, "quiz");
 
         if (!hasEnoughScantrons) {
             return; 
         }
 
-        presentPuzzles(quizzes, currentRoom, "quiz");
+        presentPuzzles(puzzlesManager.getUnsolvedPuzzles(roomId, "quiz", QUIZ_QUESTIONS), currentRoom, "quiz");
         return; 
     }
 
     // Only check for exams if all quizzes are solved
-    if (!exams.isEmpty() && quizzes.stream().allMatch(puzzle -> puzzle.getIsSolved())) {
+    if (puzzlesManager.hasUnsolvedPuzzles(roomId, "exam")) {
         boolean hasEnoughScantrons = puzzlesManager.checkScantronRequirements(playerScantrons, "exam");
 
         if (!hasEnoughScantrons) {
             return;  // Stops here so only exam message is printed
         }
 
-        presentPuzzles(exams, currentRoom, "exam");
+        presentPuzzles(puzzlesManager.getUnsolvedPuzzles(roomId, "exam", EXAM_QUESTIONS), currentRoom, "exam");
     }
 }
     
     /**
-     * Displays puzzle questions.
+     * Starts a quiz, or asks whether the player is ready for an exam.
      * @param puzzles
      * @param currentRoom
      * @param type
      */
     private void presentPuzzles(List<Puzzle> puzzles, Room currentRoom, String type) {
-    int totalQuestions = 0;
-    List<Puzzle> selectedPuzzles = new ArrayList<>();
-
-    if (type.equals("quiz")) {
-        playersManager.deleteItemFromInventory("scantron");
-        view.println("\nComplete the 3-question quiz:");
-        totalQuestions = Math.min(3, puzzles.size()); // Prevent out-of-bounds errors
-        selectedPuzzles = new ArrayList<>(puzzles.subList(0, totalQuestions));
-    } else if (type.equals("exam")) {
-        view.println("\nAre you ready to take the exam? (yes/no)");
-        String response = getUserInput();
+        activePuzzles = puzzles;
+        puzzleRoom = currentRoom;
+
+        if (type.equals("quiz")) {
+            playersManager.removeItemFromInventory(scantronKey);
+            view.println("\nComplete the 3-question quiz:");
+            startQuestions(Math.min(QUIZ_QUESTIONS, puzzles.size())); // Prevent out-of-bounds errors
+        } else if (type.equals("exam")) {
+            view.println("\nAre you ready to take the exam? (yes/no)");
+            view.onExamOffered(currentRoom.getRoomId());
+            phase = Phase.EXAM_CONFIRM;
+        }
+    }
+
+    /**
+     * Handles the answer to the exam prompt.
+     * @param response
+     */
+    private void confirmExam(String response) {
         if (!response.equalsIgnoreCase("yes")) {
             view.println("\nYou chose not to take the exam right now.");
+            activePuzzles = null;
+            phase = Phase.PLAYING;
+            view.showCommandOptions();
             return;
         }
 
-        playersManager.deleteItemFromInventory("scantron"); // Remove scantrons once
-        playersManager.deleteItemFromInventory("scantron"); 
+        playersManager.removeItemFromInventory(scantronKey); // Remove scantrons once
+        playersManager.removeItemFromInventory(scantronKey);
 
         view.println("\nComplete the 2-question exam:");
-        totalQuestions = Math.min(2, puzzles.size());
-        selectedPuzzles = new ArrayList<>(puzzles.subList(0, totalQuestions));
+        startQuestions(Math.min(EXAM_QUESTIONS, activePuzzles.size()));
     }
 
-    int questionCount = 0;
-    int numOfCorrectAnswers = 0;
-
-    for (int i = 0; i < totalQuestions; i++) {
-        Puzzle puzzle = selectedPuzzles.get(i);
+    /**
+     * Begins asking the questions of the active quiz or exam.
+     * @param totalQuestions
+     */
+    private void startQuestions(int totalQuestions) {
+        questionIndex = 0;
+        questionCount = totalQuestions;
+        numOfCorrectAnswers = 0;
+        phase = Phase.PUZZLE_ANSWER;
+        showQuestion(activePuzzles.get(questionIndex));
+    }
 
+    /**
+     * Displays a puzzle question.
+     * @param puzzle
+     */
+    private void showQuestion(Puzzle puzzle) {
+        view.onPuzzlePresented(puzzle.getPuzzleType(), questionIndex + 1, questionCount, puzzle.getPuzzleQuestion(),
+                puzzle.getOptionA(), puzzle.getOptionB(), puzzle.getOptionC(), puzzle.getOptionD());
         view.println("\n" + puzzle.getPuzzleQuestion());
         view.println("\n   A) " + puzzle.getOptionA());
         view.println("   B) " + puzzle.getOptionB());
         view.println("   C) " + puzzle.getOptionC());
         view.println("   D) " + puzzle.getOptionD() + "\n");
         view.print("Enter answer here: ");
-        
-        int correct = evaluateAnswer(puzzle);
-        numOfCorrectAnswers += correct;
-        puzzle.setIsSolved(true); // Ensure the puzzle is marked as solved
-        questionCount++;
     }
 
-    double gradePercentage = (numOfCorrectAnswers / (double) questionCount) * 100;
-    String letterGrade = playersManager.getLetterGrade(gradePercentage);
-    
-    playersManager.recordGrade(currentRoom.getRoomName(), letterGrade);
-    playersManager.calculateGpa();
+    /**
+     * Checks the answer to the current question, then asks the next one or grades the quiz or exam.
+     * @param answer
+     */
+    private void answerQuestion(String answer) {
+        Puzzle puzzle = activePuzzles.get(questionIndex);
+        numOfCorrectAnswers += evaluateAnswer(puzzle, answer);
+        puzzlesManager.markSolved(puzzle); // Ensure the puzzle is marked as solved
+        questionIndex++;
+
+        if (questionIndex < questionCount) {
+            showQuestion(activePuzzles.get(questionIndex));
+            return;
+        }
 
-    checkGpa(playersManager.getPlayer().getGpa());
+        double gradePercentage = (numOfCorrectAnswers / (double) questionCount) * 100;
+        String letterGrade = playersManager.getLetterGrade(gradePercentage);
+
+        playersManager.recordGrade(puzzleRoom.getRoomName(), letterGrade);
+        playersManager.calculateGpa();
+        view.onGradeRecorded(puzzleRoom.getRoomName(), letterGrade, numOfCorrectAnswers, questionCount, playersManager.getPlayer().getGpa());
+        activePuzzles = null;
+        phase = Phase.PLAYING;
+        if (checkpointListener != null) {
+            checkpointListener.run();
+        }
+
+        checkGpa(playersManager.getPlayer().getGpa());
+        if (phase == Phase.ENDED) {
+            return;
+        }
+
+        view.println("\nYou answered " + view.GREEN + numOfCorrectAnswers + view.RESET + " out of " + questionCount + " questions correctly.");
+        view.showCommandOptions();
+    }
 
-    view.println("\nYou answered " + view.GREEN + numOfCorrectAnswers + view.RESET + " out of " + questionCount + " questions correctly.");
-    scanner.nextLine();
-    view.showCommandOptions();
-    processPlayerCommand(getUserInput());
-}
-    
     /**
-     * Gets and checks each answer for the quiz or exam questions.
+     * Checks an answer to a quiz or exam question.
      * @param quiz
-     * @return
+     * @param input
+     * @return 1 if the answer is correct, 0 otherwise
      */
-    private int evaluateAnswer(Puzzle quiz) {
-        String answer = scanner.next().trim().toLowerCase();
+    private int evaluateAnswer(Puzzle quiz, String input) {
+        String answer = input.trim().toLowerCase();
         if (answer.equals(quiz.getCorrectAnswer().toLowerCase())) {
             view.println(view.GREEN + "\nCorrect!" + view.RESET);
+            view.onAnswerChecked(true, quiz.getCorrectAnswer());
             return 1;
 
         } else {
             view.println(view.RED + "\nIncorrect. The correct answer is " + quiz.getCorrectAnswer() + "." + view.RESET);
+            view.onAnswerChecked(false, quiz.getCorrectAnswer());
             return 0;
         }
     }
 
+    /* ========================== SAVE & RESTORE ========================== */
+
+    /**
+     * Encodes the session's progress (see SessionCodec): phase, quiz or exam in progress, player, item counts and
+     * solved puzzles.
+     * @return save
+     */
+    public byte[] saveState() {
+        SessionCodec.Encoder out = saveEncoder.begin(world);
+        out.writeByte(phase.ordinal());
+        out.writeBoolean(activePuzzles != null);
+        if (activePuzzles != null) {
+            out.writeVarInt(puzzleRoom.getRoomId());
+            out.writeVarInt(activePuzzles.size());
+            for (Puzzle puzzle : activePuzzles) {
+                out.writeVarInt(world.puzzleOrdinal(puzzle));
+            }
+            out.writeVarInt(questionIndex);
+            out.writeVarInt(questionCount);
+            out.writeVarInt(numOfCorrectAnswers);
+        }
+        playersManager.saveState(out, world);
+        itemsManager.saveState(out);
+        puzzlesManager.saveState(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Restores a saved session into this (fresh) processor instead of starting with gameOpening, and shows the
+     * screen the session was on. The whole save is checked before anything is changed, so a rejected save leaves
+     * the processor as it was.
+     * @param save bytes written by saveState
+     * @throws IllegalArgumentException if the save is corrupt or belongs to another world
+     */
+    public void restoreState(byte[] save) {
+        SessionCodec.Decoder in = new SessionCodec.Decoder(save, world);
+        Phase[] phases = Phase.values();
+        int phaseOrdinal = in.readByte();
+        if (phaseOrdinal >= phases.length) {
+            throw new IllegalArgumentException("Corrupt session save: unknown phase " + phaseOrdinal + ".");
+        }
+        Phase savedPhase = phases[phaseOrdinal];
+
+        List<Puzzle> savedPuzzles = null;
+        Room savedPuzzleRoom = null;
+        int savedQuestionIndex = 0;
+        int savedQuestionCount = 0;
+        int savedCorrectAnswers = 0;
+        if (in.readBoolean()) {
+            savedPuzzleRoom = roomsManager.findRoomById(in.readVarInt());
+            int count = in.readVarInt();
+            List<Puzzle> puzzles = world.getPuzzles();
+            if (count > puzzles.size()) {
+                throw new IllegalArgumentException("Corrupt session save: too many puzzles.");
+            }
+            savedPuzzles = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                int ordinal = in.readVarInt();
+                if (ordinal >= puzzles.size()) {
+                    throw new IllegalArgumentException("Corrupt session save: unknown puzzle " + ordinal + ".");
+                }
+                savedPuzzles.add(puzzles.get(ordinal));
+            }
+            savedQuestionIndex = in.readVarInt();
+            savedQuestionCount = in.readVarInt();
+            savedCorrectAnswers = in.readVarInt();
+            if (savedPuzzleRoom == null || savedQuestionCount > count
+                    || savedQuestionIndex >= Math.max(1, savedQuestionCount)) {
+                throw new IllegalArgumentException("Corrupt session save: bad puzzle state.");
+            }
+        }
+        PlayersManager.SavedState savedPlayer = playersManager.readState(in, world);
+        ItemsManager.SavedState savedItems = itemsManager.readState(in);
+        BitSet savedSolved = puzzlesManager.readState(in);
+        if (!in.isComplete()) {
+            throw new IllegalArgumentException("Corrupt session save: trailing bytes.");
+        }
+
+        // The screens of these phases need a room, and a quiz or exam in progress needs its puzzles.
+        boolean inGame = savedPhase == Phase.PLAYING || savedPhase == Phase.HELP_CONTINUE
+                || savedPhase == Phase.EXAM_CONFIRM || savedPhase == Phase.PUZZLE_ANSWER;
+        if (inGame && savedPlayer.getCurrentRoom() == null) {
+            throw new IllegalArgumentException("Corrupt session save: no current room in phase " + savedPhase + ".");
+        }
+        if (savedPhase == Phase.EXAM_CONFIRM && (savedPuzzles == null || savedPuzzles.isEmpty())) {
+            throw new IllegalArgumentException("Corrupt session save: exam offered without puzzles.");
+        }
+        if (savedPhase == Phase.PUZZLE_ANSWER && (savedPuzzles == null || savedQuestionCount == 0)) {
+            throw new IllegalArgumentException("Corrupt session save: question asked without puzzles.");
+        }
+
+        activePuzzles = savedPuzzles;
+        puzzleRoom = savedPuzzleRoom;
+        questionIndex = savedQuestionIndex;
+        questionCount = savedQuestionCount;
+        numOfCorrectAnswers = savedCorrectAnswers;
+        playersManager.applyState(savedPlayer);
+        itemsManager.applyState(savedItems);
+        puzzlesManager.applyState(savedSolved);
+        phase = savedPhase;
+        graduated = phase == Phase.ENDED && playersManager.getPlayer().getGpa() >= 4.0; // Only a graduation ends a game at 4.0
+        if (phase != Phase.ENDED) {
+            itemsManager.resumeRandomPlacementTask();
+        }
+        showResumedScreen();
+    }
+
+    // Shows the screen of the current phase again, e.g. after a restore, so the player knows where they are.
+    public void showResumedScreen() {
+        view.onResumed();
+        switch (phase) {
+            case MAIN_MENU:
+                view.showGameIntro();
+                break;
+            case PLAYER_NAME:
+                promptForPlayerName();
+                break;
+            case WELCOME_CONTINUE:
+                view.showWelcomeIntro();
+                break;
+            case PLAYING:
+                Room room = playersManager.getPlayer().getCurrentRoom();
+                view.onRoomEntered(room.getRoomId(), room.getRoomName(), true);
+                showCurrentLocation();
+                break;
+            case HELP_CONTINUE:
+                view.showFullCommandsAndInstructions();
+                break;
+            case EXAM_CONFIRM:
+                view.println("\nAre you ready to take the exam? (yes/no)");
+                view.onExamOffered(puzzleRoom.getRoomId());
+                break;
+            case PUZZLE_ANSWER:
+                showQuestion(activePuzzles.get(questionIndex));
+                break;
+            case ENDED:
+                break;
+        }
+    }
 }
@@ -0,0 +1,127 @@
+/*
+ * CommandRegistry Class: Maps every command verb and alias to its handler.
+ *
+ * A line is split into a verb and an argument without creating strings: the verb is looked up by its character
+ * range in a case-insensitive NameTable, and the argument is handed to the handler as a reusable view over the
+ * input line. New commands are added with one register call.
+ */
+
+package Controller.Manager;
+
+import Model.NameTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CommandRegistry {
+
+    // Handler of a command; the argument view is only valid during the call.
+    @FunctionalInterface
+    public interface Command {
+        void execute(CharSequence argument);
+    }
+
+    // Whether a command takes an argument ("pickup scantron") or must be used alone ("north")
+    public enum Arguments { NONE, REQUIRED }
+
+    private final NameTable verbs = new NameTable();
+    private final List<Command> commands = new ArrayList<>();       // Handler per verb id
+    private final List<Arguments> argumentRules = new ArrayList<>(); // Argument rule per verb id
+    private final InputView argument = new InputView();
+
+    /**
+     * Register a command under a verb and any number of aliases.
+     * @param arguments whether the command takes an argument
+     * @param command
+     * @param verb
+     * @param aliases
+     * @return this registry
+     */
+    public CommandRegistry register(Arguments arguments, Command command, String verb, String... aliases) {
+        bind(verb, arguments, command);
+        for (String alias : aliases) {
+            bind(alias, arguments, command);
+        }
+        return this;
+    }
+
+    /**
+     * Runs the command on a line of input.
+     * @param line
+     * @return false if no registered command matches the line
+     */
+    public boolean dispatch(CharSequence line) {
+        int end = line.length();
+        int verbStart = 0;
+        while (verbStart < end && Character.isWhitespace(line.charAt(verbStart))) verbStart++;
+        while (end > verbStart && Character.isWhitespace(line.charAt(end - 1))) end--;
+
+        int verbEnd = verbStart;
+        while (verbEnd < end && !Character.isWhitespace(line.charAt(verbEnd))) verbEnd++;
+        int argumentStart = verbEnd;
+        while (argumentStart < end && Character.isWhitespace(line.charAt(argumentStart))) argumentStart++;
+
+        int id = verbs.find(line, verbStart, verbEnd);
+        if (id == NameTable.NOT_FOUND) {
+            return false;
+        }
+        boolean hasArgument = argumentStart < end;
+        if (hasArgument != (argumentRules.get(id) == Arguments.REQUIRED)) {
+            return false;
+        }
+
+        argument.wrap(line, argumentStart, end);
+        try {
+            commands.get(id).execute(argument);
+        } finally {
+            argument.wrap("", 0, 0);
+        }
+        return true;
+    }
+
+    private void bind(String verb, Arguments arguments, Command command) {
+        int id = verbs.add(verb);
+        if (id < commands.size()) {
+            throw new IllegalArgumentException("Command already registered: " + verb);
+        }
+        commands.add(command);
+        argumentRules.add(arguments);
+    }
+
+    /* ========================== INPUT VIEW ========================== */
+
+    // Reusable view over a range of the input line.
+    private static final class InputView implements CharSequence {
+
+        private CharSequence text = "";
+        private int start;
+        private int end;
+
+        void wrap(CharSequence text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() { return end - start; }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return text.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return text.subSequence(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return text.subSequence(start, end).toString();
+        }
+    }
+}
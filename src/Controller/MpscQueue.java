@@ -0,0 +1,63 @@
+/*
+ * MpscQueue Class: Unbounded lock-free multi-producer single-consumer queue (Vyukov's intrusive linked queue).
+ *
+ * Producers swap themselves in at the head with one atomic exchange and then link the previous node; the single
+ * consumer walks from a stub node at the tail without any atomic read-modify-write. A node whose link is not yet
+ * published makes poll return null for a moment, so a consumer that sees null must check again before sleeping.
+ */
+
+package Controller;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class MpscQueue<T> {
+
+    private static final class Node<T> {
+        private T value;
+        private volatile Node<T> next;
+
+        Node(T value) {
+            this.value = value;
+        }
+    }
+
+    private final AtomicReference<Node<T>> head; // Last node offered (producers)
+    private Node<T> tail;                        // Stub node before the next value (consumer only)
+
+    // Constructor
+    public MpscQueue() {
+        Node<T> stub = new Node<>(null);
+        this.head = new AtomicReference<>(stub);
+        this.tail = stub;
+    }
+
+    /**
+     * Add a value; safe from any number of threads.
+     * @param value
+     */
+    public void offer(T value) {
+        Node<T> node = new Node<>(value);
+        Node<T> previous = head.getAndSet(node);
+        previous.next = node;
+    }
+
+    /**
+     * Remove the oldest value; only the consumer thread may call this.
+     * @return value, or null if the queue is (momentarily) empty
+     */
+    public T poll() {
+        Node<T> next = tail.next;
+        if (next == null) {
+            return null;
+        }
+        T value = next.value;
+        next.value = null; // next becomes the new stub
+        tail = next;
+        return value;
+    }
+
+    // Whether nothing has been offered that the consumer has not taken (consumer thread only).
+    public boolean isEmpty() {
+        return tail == head.get();
+    }
+}
@@ -0,0 +1,1086 @@
+/*
+ * ProfileStore Class: Embedded store of persistent player profiles (best GPA, grades, completed runs) in a single
+ * directory, with no database service.
+ *
+ * Files:
+ *   segment-<n>.dat   append-only records [length, CRC-32, body]; body = [PUT, name, best GPA, runs, grades] or
+ *                     [DELETE, name], encoded with SessionCodec. New records go to the active (last) segment, which
+ *                     is sealed and memory-mapped once it is full.
+ *   MANIFEST          [MAGIC, count, segment ids oldest first, CRC-32], replaced atomically; segment files it does not
+ *                     list are leftovers of an interrupted compaction and are deleted on open.
+ *   profiles.index    memory-mapped open-addressing hash table, name hash -> (segment, offset, length) of the name's
+ *                     latest record. It is only trusted after a clean close; otherwise it is rebuilt by replaying the
+ *                     segments in manifest order, and a torn record at the end of the active segment is cut off.
+ *
+ * A lookup is a probe of the mapped index and one read of the record, so it stays in the microseconds with millions
+ * of profiles. Writes are serialized; lookups share a read lock. A background thread compacts the store once most of
+ * its bytes are overwritten or deleted records: it copies the live records of every sealed segment into new ones,
+ * switches the manifest, repoints the index in small batches and deletes the old files.
+ */
+
+package Controller;
+
+import Model.Managers.SessionCodec;
+import Model.Player;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+public class ProfileStore implements AutoCloseable {
+
+    // Format constants
+    static final int MANIFEST_MAGIC = 0x4343504D; // "CCPM"
+    static final int INDEX_MAGIC = 0x43435049;    // "CCPI"
+    private static final int INDEX_VERSION = 1;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String MANIFEST_FILE = "MANIFEST";
+    private static final String INDEX_FILE = "profiles.index";
+    private static final int MAX_RECORD_LENGTH = 1024 * 1024;
+
+    // Settings
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    private static final long COMPACTION_CHECK_NANOS = 1_000_000_000L;
+    private static final int RELOCATION_BATCH = 4096; // Index updates per write-lock hold while compacting
+
+    private final Path directory;
+    private final boolean syncWrites;
+    private final int segmentSize;
+
+    // Store state; writes hold the write lock, lookups the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Segment> segments = new ArrayList<>(); // Manifest order; the last one is active
+    private final Map<Integer, Segment> segmentsById = new HashMap<>();
+    private final SessionCodec.Encoder encoder = new SessionCodec.Encoder();
+    private Index index;
+    private int nextSegmentId = 1;
+    private long totalBytes; // Bytes in all segments
+    private long liveBytes;  // Bytes of the records the index points to
+    private boolean closed;
+
+    // Compaction
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private final Thread compactor;
+    private volatile boolean running = true;
+
+    // A player's persistent profile.
+    public static final class Profile {
+
+        private final String playerName;
+        private final double bestGpa;
+        private final int completedRuns;
+        private final Map<String, String> grades; // Course -> latest letter grade
+
+        public Profile(String playerName, double bestGpa, int completedRuns, Map<String, String> grades) {
+            if (playerName == null || grades == null) {
+                throw new IllegalArgumentException("A profile needs a player name and grades.");
+            }
+            this.playerName = playerName;
+            this.bestGpa = bestGpa;
+            this.completedRuns = completedRuns;
+            this.grades = Collections.unmodifiableMap(new LinkedHashMap<>(grades));
+        }
+
+        // Getters
+        public String getPlayerName() { return playerName; }
+        public double getBestGpa() { return bestGpa; }
+        public int getCompletedRuns() { return completedRuns; }
+        public Map<String, String> getGrades() { return grades; }
+
+        @Override
+        public String toString() {
+            return String.format("%s: best GPA %.2f, %d run(s), grades %s", playerName, bestGpa, completedRuns, grades);
+        }
+    }
+
+    /**
+     * Opens (or creates) a profile store with the default segment size.
+     * @param directory
+     * @param syncWrites whether every write is forced to disk before it returns
+     * @throws IOException if the store cannot be opened
+     */
+    public ProfileStore(Path directory, boolean syncWrites) throws IOException {
+        this(directory, syncWrites, DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens (or creates) a profile store.
+     * @param directory
+     * @param syncWrites whether every write is forced to disk before it returns
+     * @param segmentSize bytes after which the active segment is sealed (4 KB to 1 GB)
+     * @throws IOException if the store cannot be opened
+     */
+    public ProfileStore(Path directory, boolean syncWrites, int segmentSize) throws IOException {
+        if (segmentSize < 4096 || segmentSize > (1 << 30)) {
+            throw new IllegalArgumentException("segmentSize must be between 4 KB and 1 GB");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.syncWrites = syncWrites;
+        this.segmentSize = segmentSize;
+        open();
+        this.compactor = new Thread(this::compactLoop, "profile-compactor");
+        this.compactor.setDaemon(true);
+        this.compactor.start();
+    }
+
+    // Getters
+    public Path getDirectory() { return directory; }
+
+    // Number of profiles
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Bytes on disk in segment files, and how many of them belong to current profiles
+    public long getTotalBytes() {
+        lock.readLock().lock();
+        try {
+            return totalBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getLiveBytes() {
+        lock.readLock().lock();
+        try {
+            return liveBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /* ========================== PROFILES ========================== */
+
+    /**
+     * Looks up a profile.
+     * @param playerName
+     * @return profile, or null if the player has none
+     */
+    public Profile get(String playerName) {
+        lock.readLock().lock();
+        try {
+            checkOpen();
+            return find(playerName);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Profile store read failed", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stores a profile, replacing the player's previous one.
+     * @param profile
+     */
+    public void put(Profile profile) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            append(PUT, profile.playerName, profile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Profile store write failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Deletes a profile.
+     * @param playerName
+     * @return true if the player had a profile
+     */
+    public boolean delete(String playerName) {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            if (index.slotOf(playerName, hash(playerName)) < 0) {
+                return false;
+            }
+            append(DELETE, playerName, null);
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Profile store write failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a graduation to the player's profile: one more completed run, the best GPA so far, and the run's grades
+     * replacing earlier grades of the same courses.
+     * @param player
+     * @return the updated profile
+     */
+    public Profile recordRun(Player player) {
+        String playerName = player.getPlayerName();
+        if (playerName == null) {
+            throw new IllegalArgumentException("Only named players have profiles.");
+        }
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            Profile previous = find(playerName);
+            Map<String, String> grades = new LinkedHashMap<>();
+            double bestGpa = player.getGpa();
+            int completedRuns = 1;
+            if (previous != null) {
+                grades.putAll(previous.grades);
+                bestGpa = Math.max(bestGpa, previous.bestGpa);
+                completedRuns += previous.completedRuns;
+            }
+            grades.putAll(player.getGrades());
+            Profile profile = new Profile(playerName, bestGpa, completedRuns, grades);
+            append(PUT, playerName, profile);
+            return profile;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Profile store write failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Forces everything written so far to disk.
+    public void flush() {
+        lock.writeLock().lock();
+        try {
+            checkOpen();
+            active().channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Profile store flush failed", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Stops compaction, writes the index out and marks it clean so the next open can use it as it is.
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(compactor);
+        try {
+            compactor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compactionLock.lock();
+        lock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Segment active = active();
+            active.channel.truncate(active.size); // Drop the remains of a failed write
+            active.channel.force(false);
+            index.markClean(active.id, active.size, liveBytes);
+            index.channel.close();
+            active.channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing profile store: " + e.getMessage());
+        } finally {
+            lock.writeLock().unlock();
+            compactionLock.unlock();
+        }
+    }
+
+    /* ========================== RECORDS ========================== */
+
+    // Latest profile of a name; caller holds a lock.
+    private Profile find(String playerName) throws IOException {
+        int slot = index.slotOf(playerName, hash(playerName));
+        if (slot < 0) {
+            return null;
+        }
+        byte[] record = readRecord(index.segmentAt(slot), index.offsetAt(slot), index.lengthAt(slot));
+        SessionCodec.Decoder in = new SessionCodec.Decoder(record, 8, record.length - 8);
+        in.readByte();
+        String name = in.readString();
+        double bestGpa = in.readDouble();
+        int completedRuns = in.readVarInt();
+        Map<String, String> grades = new LinkedHashMap<>();
+        for (int count = in.readVarInt(); count > 0; count--) {
+            grades.put(in.readString(), in.readString());
+        }
+        return new Profile(name, bestGpa, completedRuns, grades);
+    }
+
+    // Writes a record to the active segment and points the index at it; caller holds the write lock.
+    private void append(byte type, String playerName, Profile profile) throws IOException {
+        encoder.reset();
+        encoder.writeByte(type);
+        encoder.writeString(playerName);
+        if (type == PUT) {
+            encoder.writeDouble(profile.bestGpa);
+            encoder.writeVarInt(profile.completedRuns);
+            encoder.writeVarInt(profile.grades.size());
+            for (Map.Entry<String, String> grade : profile.grades.entrySet()) {
+                encoder.writeString(grade.getKey());
+                encoder.writeString(grade.getValue());
+            }
+        }
+        byte[] body = encoder.toByteArray();
+        if (body.length > MAX_RECORD_LENGTH) {
+            throw new IllegalArgumentException("Profile of " + playerName + " is too large.");
+        }
+        int length = 8 + body.length;
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(body.length).putInt(crc(body, 0, body.length)).put(body).flip();
+
+        Segment active = active();
+        if (active.size > 0 && active.size + length > segmentSize) {
+            active = roll();
+        }
+        int offset = (int) active.size;
+        try {
+            while (record.hasRemaining()) {
+                active.channel.write(record, offset + record.position());
+            }
+            if (syncWrites) {
+                active.channel.force(false);
+            }
+        } catch (IOException e) {
+            try {
+                active.channel.truncate(offset);
+            } catch (IOException ignored) {
+                // The torn record is cut off on the next open
+            }
+            throw e;
+        }
+        active.size += length;
+        totalBytes += length;
+
+        int hash = hash(playerName);
+        int previous = type == PUT ? index.put(playerName, hash, active.id, offset, length) : index.remove(playerName, hash);
+        liveBytes += (type == PUT ? length : 0) - Math.max(previous, 0);
+        if (compactionDue()) {
+            LockSupport.unpark(compactor);
+        }
+    }
+
+    private byte[] readRecord(int segmentId, int offset, int length) throws IOException {
+        Segment segment = segmentsById.get(segmentId);
+        if (segment == null) {
+            throw new IOException("Profile index points to missing segment " + segmentId);
+        }
+        byte[] record = new byte[length];
+        segment.read(offset, record);
+        return record;
+    }
+
+    // Name of the record at a location; used by index probes to tell colliding hashes apart.
+    private String nameAt(int segmentId, int offset, int length) throws IOException {
+        byte[] record = readRecord(segmentId, offset, length);
+        SessionCodec.Decoder in = new SessionCodec.Decoder(record, 8, length - 8);
+        in.readByte();
+        return in.readString();
+    }
+
+    private static int hash(String playerName) {
+        int hash = playerName.hashCode() * 0x9E3779B9;
+        hash ^= hash >>> 16;
+        return (hash == Index.EMPTY || hash == Index.TOMBSTONE) ? hash + 2 : hash;
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Profile store is closed.");
+        }
+    }
+
+    /* ========================== SEGMENTS ========================== */
+
+    // One segment file; the active one is written through its channel, sealed ones are read from a mapping.
+    private static final class Segment {
+
+        final int id;
+        final Path file;
+        FileChannel channel; // Active segment only
+        ByteBuffer mapped;   // Sealed segments only
+        long size;
+
+        Segment(int id, Path file) {
+            this.id = id;
+            this.file = file;
+        }
+
+        void read(int offset, byte[] into) throws IOException {
+            ByteBuffer sealed = mapped;
+            if (sealed != null) {
+                sealed.get(offset, into, 0, into.length);
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(into);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    throw new EOFException("Profile record runs past the end of " + file.getFileName());
+                }
+            }
+        }
+
+        // Makes the segment read-only: forced to disk and mapped.
+        void seal() throws IOException {
+            channel.truncate(size);
+            channel.force(false);
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private Segment active() { return segments.get(segments.size() - 1); }
+
+    private Path segmentFile(int id) { return directory.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX); }
+
+    // Creates an empty segment file that is not in the manifest yet.
+    private Segment createSegment() throws IOException {
+        int id = nextSegmentId++;
+        Segment segment = new Segment(id, segmentFile(id));
+        segment.channel = FileChannel.open(segment.file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return segment;
+    }
+
+    // Seals the active segment and starts a new one; caller holds the write lock.
+    private Segment roll() throws IOException {
+        Segment next = createSegment();
+        List<Integer> ids = new ArrayList<>();
+        for (Segment segment : segments) {
+            ids.add(segment.id);
+        }
+        ids.add(next.id);
+        writeManifest(ids); // The new segment is listed before anything is written to it
+        if (!segments.isEmpty()) {
+            active().seal();
+        }
+        segments.add(next);
+        segmentsById.put(next.id, next);
+        return next;
+    }
+
+    private List<Integer> readManifest() throws IOException {
+        Path file = directory.resolve(MANIFEST_FILE);
+        List<Integer> ids = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return ids;
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (bytes.length < 12 || in.getInt() != MANIFEST_MAGIC) {
+            throw new IOException("Not a profile store manifest: " + file);
+        }
+        int count = in.getInt();
+        if (count < 0 || bytes.length != 12 + 4L * count || crc(bytes, 0, bytes.length - 4) != in.getInt(bytes.length - 4)) {
+            throw new IOException("Corrupt profile store manifest: " + file);
+        }
+        for (int i = 0; i < count; i++) {
+            ids.add(in.getInt());
+        }
+        return ids;
+    }
+
+    // Replaces the manifest atomically.
+    private void writeManifest(List<Integer> ids) throws IOException {
+        ByteBuffer manifest = ByteBuffer.allocate(12 + 4 * ids.size());
+        manifest.putInt(MANIFEST_MAGIC).putInt(ids.size());
+        for (int id : ids) {
+            manifest.putInt(id);
+        }
+        manifest.putInt(crc(manifest.array(), 0, manifest.position()));
+        manifest.flip();
+
+        Path target = directory.resolve(MANIFEST_FILE);
+        Path temporary = directory.resolve(MANIFEST_FILE + ".tmp");
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (manifest.hasRemaining()) {
+                file.write(manifest);
+            }
+            file.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+    }
+
+    // Makes a rename durable; not every platform can open a directory, which is fine to skip.
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Unsupported here
+        }
+    }
+
+    /* ========================== OPEN & RECOVERY ========================== */
+
+    private void open() throws IOException {
+        List<Integer> ids = readManifest();
+        for (int id : ids) {
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+        }
+        deleteUnlisted(ids);
+
+        for (int i = 0; i < ids.size(); i++) {
+            Segment segment = new Segment(ids.get(i), segmentFile(ids.get(i)));
+            if (i < ids.size() - 1) {
+                try (FileChannel channel = FileChannel.open(segment.file, StandardOpenOption.READ)) {
+                    segment.size = channel.size();
+                    segment.mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+                }
+            } else {
+                segment.channel = FileChannel.open(segment.file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                segment.size = segment.channel.size();
+            }
+            segments.add(segment);
+            segmentsById.put(segment.id, segment);
+            totalBytes += segment.size;
+        }
+        if (segments.isEmpty()) {
+            roll();
+        }
+
+        Segment active = active();
+        index = Index.openClean(this, directory.resolve(INDEX_FILE), active.id, active.size);
+        if (index != null) {
+            liveBytes = index.storedLiveBytes();
+        } else {
+            rebuildIndex();
+        }
+        index.markDirty(); // Until the next clean close
+    }
+
+    // Deletes segment files the manifest does not list.
+    private void deleteUnlisted(List<Integer> ids) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    int id = Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                    if (!ids.contains(id)) {
+                        Files.delete(file);
+                        nextSegmentId = Math.max(nextSegmentId, id + 1);
+                    }
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+    }
+
+    // Replays every segment, oldest first, into a new index.
+    private void rebuildIndex() throws IOException {
+        index = Index.create(this, directory.resolve(INDEX_FILE), Index.MIN_CAPACITY);
+        liveBytes = 0;
+        for (Segment segment : segments) {
+            boolean isActive = segment == active();
+            ByteBuffer bytes = segment.mapped != null ? segment.mapped
+                    : segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+            int valid = scan(bytes, (offset, length, type, name) -> {
+                int hash = hash(name);
+                int previous = type == PUT ? index.put(name, hash, segment.id, offset, length) : index.remove(name, hash);
+                liveBytes += (type == PUT ? length : 0) - Math.max(previous, 0);
+            });
+            if (valid < segment.size) {
+                if (!isActive) {
+                    throw new IOException("Corrupt profile segment: " + segment.file);
+                }
+                segment.channel.truncate(valid); // Torn tail of a write cut short by a crash
+                segment.channel.force(false);
+                totalBytes -= segment.size - valid;
+                segment.size = valid;
+            }
+        }
+    }
+
+    private interface RecordVisitor {
+        void visit(int offset, int length, byte type, String name) throws IOException;
+    }
+
+    /**
+     * Walks the valid records of a segment.
+     * @param bytes segment contents
+     * @param visitor
+     * @return length of the valid prefix
+     * @throws IOException
+     */
+    private static int scan(ByteBuffer bytes, RecordVisitor visitor) throws IOException {
+        int position = 0;
+        int limit = bytes.limit();
+        CRC32 crc = new CRC32();
+        byte[] body = new byte[256];
+        while (limit - position >= 8) {
+            int length = bytes.getInt(position);
+            int checksum = bytes.getInt(position + 4);
+            if (length < 2 || length > MAX_RECORD_LENGTH || length > limit - position - 8) {
+                break;
+            }
+            if (body.length < length) {
+                body = new byte[Math.max(length, body.length * 2)];
+            }
+            bytes.get(position + 8, body, 0, length);
+            crc.reset();
+            crc.update(body, 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            SessionCodec.Decoder in = new SessionCodec.Decoder(body, 0, length);
+            byte type = (byte) in.readByte();
+            visitor.visit(position, 8 + length, type, in.readString());
+            position += 8 + length;
+        }
+        return position;
+    }
+
+    /* ========================== COMPACTION ========================== */
+
+    // Whether more than half of the bytes on disk (and at least half a segment) are dead records
+    private boolean compactionDue() {
+        long garbage = totalBytes - liveBytes;
+        return garbage >= segmentSize / 2 && garbage * 2 > totalBytes;
+    }
+
+    private void compactLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, COMPACTION_CHECK_NANOS);
+            if (!running) {
+                break;
+            }
+            boolean due;
+            lock.readLock().lock();
+            try {
+                due = !closed && compactionDue();
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (due) {
+                try {
+                    compact();
+                } catch (RuntimeException e) {
+                    System.err.println("Profile compaction failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Rewrites the live records of every sealed segment (the active one is sealed first) into new segments and
+     * deletes the old ones. Lookups and writes go on while the records are copied.
+     * @return bytes reclaimed
+     */
+    public long compact() {
+        compactionLock.lock();
+        try {
+            List<Segment> inputs;
+            lock.writeLock().lock();
+            try {
+                checkOpen();
+                if (active().size > 0) {
+                    roll();
+                }
+                inputs = new ArrayList<>(segments.subList(0, segments.size() - 1));
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (inputs.isEmpty()) {
+                return 0;
+            }
+
+            List<Segment> outputs = new ArrayList<>();
+            int[] relocations = copyLiveRecords(inputs, outputs);
+            return install(inputs, outputs, relocations);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Profile compaction failed", e);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Copies the records the index still points to into new sealed segments.
+     * @param inputs
+     * @param outputs receives the new segments
+     * @return relocations as [hash, old segment, old offset, new segment, new offset] groups
+     * @throws IOException
+     */
+    private int[] copyLiveRecords(List<Segment> inputs, List<Segment> outputs) throws IOException {
+        int[][] relocations = { new int[5 * 1024] };
+        int[] count = { 0 };
+        try {
+            for (Segment input : inputs) {
+                ByteBuffer bytes = input.mapped;
+                scan(bytes, (offset, length, type, name) -> {
+                    if (type != PUT) {
+                        return; // Every older record is in the inputs too, so tombstones can go
+                    }
+                    int hash = hash(name);
+                    lock.readLock().lock();
+                    try {
+                        if (!index.pointsTo(hash, input.id, offset)) {
+                            return;
+                        }
+                    } finally {
+                        lock.readLock().unlock();
+                    }
+
+                    Segment output = outputs.isEmpty() ? null : outputs.get(outputs.size() - 1);
+                    if (output == null || (output.size > 0 && output.size + length > segmentSize)) {
+                        if (output != null) {
+                            output.seal();
+                        }
+                        lock.writeLock().lock();
+                        try {
+                            output = createSegment();
+                        } finally {
+                            lock.writeLock().unlock();
+                        }
+                        outputs.add(output);
+                    }
+                    ByteBuffer record = bytes.duplicate();
+                    record.limit(offset + length).position(offset);
+                    while (record.hasRemaining()) {
+                        output.channel.write(record, output.size + record.position() - offset);
+                    }
+
+                    if (count[0] + 5 > relocations[0].length) {
+                        relocations[0] = Arrays.copyOf(relocations[0], relocations[0].length * 2);
+                    }
+                    int[] moved = relocations[0];
+                    moved[count[0]++] = hash;
+                    moved[count[0]++] = input.id;
+                    moved[count[0]++] = offset;
+                    moved[count[0]++] = output.id;
+                    moved[count[0]++] = (int) output.size;
+                    output.size += length;
+                });
+            }
+            if (!outputs.isEmpty()) {
+                outputs.get(outputs.size() - 1).seal();
+            }
+        } catch (IOException | RuntimeException e) {
+            for (Segment output : outputs) { // Nothing points at them yet
+                if (output.channel != null) {
+                    output.channel.close();
+                }
+                Files.deleteIfExists(output.file);
+            }
+            throw e;
+        }
+        return Arrays.copyOf(relocations[0], count[0]);
+    }
+
+    // Switches the manifest to the compacted segments, repoints the index and deletes the inputs.
+    private long install(List<Segment> inputs, List<Segment> outputs, int[] relocations) throws IOException {
+        long reclaimed;
+        lock.writeLock().lock();
+        try {
+            List<Segment> remaining = new ArrayList<>(segments);
+            remaining.removeAll(inputs);
+            List<Integer> ids = new ArrayList<>();
+            for (Segment segment : outputs) {
+                ids.add(segment.id);
+            }
+            for (Segment segment : remaining) {
+                ids.add(segment.id);
+            }
+            writeManifest(ids); // From here on a crash recovers from the compacted segments
+
+            segments.clear();
+            segments.addAll(outputs);
+            segments.addAll(remaining);
+            for (Segment output : outputs) {
+                segmentsById.put(output.id, output);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Repoint the index a batch at a time, so lookups and writes are only held up briefly.
+        for (int start = 0; start < relocations.length; start += 5 * RELOCATION_BATCH) {
+            lock.writeLock().lock();
+            try {
+                int end = Math.min(relocations.length, start + 5 * RELOCATION_BATCH);
+                for (int i = start; i < end; i += 5) {
+                    index.relocate(relocations[i], relocations[i + 1], relocations[i + 2], relocations[i + 3], relocations[i + 4]);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            long before = totalBytes;
+            totalBytes = 0;
+            for (Segment segment : segments) {
+                totalBytes += segment.size;
+            }
+            reclaimed = before - totalBytes;
+            for (Segment input : inputs) {
+                segmentsById.remove(input.id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Segment input : inputs) {
+            try {
+                Files.deleteIfExists(input.file); // Mappings held by readers stay valid
+            } catch (IOException e) {
+                // Left for the next open to delete
+            }
+        }
+        return reclaimed;
+    }
+
+    /* ========================== INDEX ========================== */
+
+    // Memory-mapped hash table of the latest record of every name, with linear probing and tombstones.
+    private static final class Index {
+
+        static final int EMPTY = 0;
+        static final int TOMBSTONE = 1;
+        static final int MIN_CAPACITY = 1024;
+        static final int MAX_CAPACITY = 1 << 26; // 1 GB of slots
+        static final int CLEAN = 1;
+        static final int DIRTY = 2;
+
+        // Header: magic, version, state, capacity, size, tombstones, active segment id, pad, active size, live bytes
+        static final int HEADER = 64;
+        static final int SLOT = 16; // hash, segment id, offset, length
+        private static final int STATE_AT = 8;
+        private static final int ACTIVE_ID_AT = 24;
+        private static final int ACTIVE_SIZE_AT = 32;
+        private static final int LIVE_BYTES_AT = 40;
+
+        final Path file;
+        FileChannel channel;
+        MappedByteBuffer map;
+        int capacity;
+        int mask;
+        int size;
+        int tombstones;
+        final ProfileStore store; // Reads names to tell colliding hashes apart
+
+        private Index(ProfileStore store, Path file, FileChannel channel, MappedByteBuffer map, int capacity) {
+            this.store = store;
+            this.file = file;
+            this.channel = channel;
+            this.map = map;
+            this.capacity = capacity;
+            this.mask = capacity - 1;
+        }
+
+        // Creates an empty index file.
+        static Index create(ProfileStore store, Path file, int capacity) throws IOException {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * SLOT);
+            map.putInt(0, INDEX_MAGIC).putInt(4, INDEX_VERSION).putInt(STATE_AT, DIRTY).putInt(12, capacity);
+            return new Index(store, file, channel, map, capacity);
+        }
+
+        /**
+         * Opens an index left by a clean close.
+         * @param store
+         * @param file
+         * @param activeId id of the active segment
+         * @param activeSize its length
+         * @return index, or null if there is none or it cannot be trusted
+         * @throws IOException
+         */
+        static Index openClean(ProfileStore store, Path file, int activeId, long activeSize) throws IOException {
+            if (!Files.exists(file)) {
+                return null;
+            }
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long length = channel.size();
+            if (length >= HEADER) {
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+                int capacity = header.getInt(12);
+                if (header.getInt(0) == INDEX_MAGIC && header.getInt(4) == INDEX_VERSION
+                        && header.getInt(STATE_AT) == CLEAN && Integer.bitCount(capacity) == 1
+                        && length == HEADER + (long) capacity * SLOT
+                        && header.getInt(ACTIVE_ID_AT) == activeId && header.getLong(ACTIVE_SIZE_AT) == activeSize) {
+                    Index index = new Index(store, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, length), capacity);
+                    index.size = header.getInt(16);
+                    index.tombstones = header.getInt(20);
+                    return index;
+                }
+            }
+            channel.close();
+            return null;
+        }
+
+        long storedLiveBytes() { return map.getLong(LIVE_BYTES_AT); }
+
+        void markDirty() {
+            map.putInt(STATE_AT, DIRTY);
+            map.force();
+        }
+
+        void markClean(int activeId, long activeSize, long liveBytes) {
+            map.putInt(16, size).putInt(20, tombstones).putInt(ACTIVE_ID_AT, activeId)
+                    .putLong(ACTIVE_SIZE_AT, activeSize).putLong(LIVE_BYTES_AT, liveBytes);
+            map.force(); // Slots first, then the flag that vouches for them
+            map.putInt(STATE_AT, CLEAN);
+            map.force();
+        }
+
+        int segmentAt(int slot) { return map.getInt(slot + 4); }
+        int offsetAt(int slot) { return map.getInt(slot + 8); }
+        int lengthAt(int slot) { return map.getInt(slot + 12); }
+
+        /**
+         * Finds the slot of a name.
+         * @param name
+         * @param hash
+         * @return byte position of the slot, or -1
+         * @throws IOException
+         */
+        int slotOf(String name, int hash) throws IOException {
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                int slot = HEADER + i * SLOT;
+                int slotHash = map.getInt(slot);
+                if (slotHash == EMPTY) {
+                    return -1;
+                }
+                if (slotHash == hash && name.equals(store.nameAt(segmentAt(slot), offsetAt(slot), lengthAt(slot)))) {
+                    return slot;
+                }
+            }
+        }
+
+        /**
+         * Points a name at its latest record.
+         * @return length of the record it replaces, or -1 if the name is new
+         */
+        int put(String name, int hash, int segmentId, int offset, int length) throws IOException {
+            int existing = slotOf(name, hash);
+            if (existing >= 0) {
+                int previous = lengthAt(existing);
+                map.putInt(existing + 4, segmentId).putInt(existing + 8, offset).putInt(existing + 12, length);
+                return previous;
+            }
+            if ((size + tombstones + 1) * 4L > capacity * 3L) {
+                resize();
+            }
+            if (insert(hash, segmentId, offset, length)) {
+                tombstones--;
+            }
+            size++;
+            return -1;
+        }
+
+        /**
+         * Removes a name.
+         * @return length of its record, or -1 if it was not there
+         */
+        int remove(String name, int hash) throws IOException {
+            int slot = slotOf(name, hash);
+            if (slot < 0) {
+                return -1;
+            }
+            map.putInt(slot, TOMBSTONE);
+            size--;
+            tombstones++;
+            return lengthAt(slot);
+        }
+
+        // Whether the index still points at a record (i.e. the record is live)
+        boolean pointsTo(int hash, int segmentId, int offset) {
+            return find(hash, segmentId, offset) >= 0;
+        }
+
+        // Moves an entry to a compacted copy of its record, unless it has been overwritten since.
+        void relocate(int hash, int oldSegmentId, int oldOffset, int segmentId, int offset) {
+            int slot = find(hash, oldSegmentId, oldOffset);
+            if (slot >= 0) {
+                map.putInt(slot + 4, segmentId).putInt(slot + 8, offset);
+            }
+        }
+
+        private int find(int hash, int segmentId, int offset) {
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                int slot = HEADER + i * SLOT;
+                int slotHash = map.getInt(slot);
+                if (slotHash == EMPTY) {
+                    return -1;
+                }
+                if (slotHash == hash && segmentAt(slot) == segmentId && offsetAt(slot) == offset) {
+                    return slot;
+                }
+            }
+        }
+
+        // Fills the first free slot for a hash; true if it was a tombstone.
+        private boolean insert(int hash, int segmentId, int offset, int length) {
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                int slot = HEADER + i * SLOT;
+                int slotHash = map.getInt(slot);
+                if (slotHash == EMPTY || slotHash == TOMBSTONE) {
+                    map.putInt(slot, hash).putInt(slot + 4, segmentId).putInt(slot + 8, offset).putInt(slot + 12, length);
+                    return slotHash == TOMBSTONE;
+                }
+            }
+        }
+
+        // Rehashes into a new file sized for twice the live entries, dropping tombstones.
+        private void resize() throws IOException {
+            int newCapacity = MIN_CAPACITY;
+            while (newCapacity < (size + 1) * 2L) {
+                newCapacity <<= 1;
+            }
+            if (newCapacity > MAX_CAPACITY) {
+                throw new IllegalStateException("Profile index is full.");
+            }
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Index resized = create(store, temporary, newCapacity);
+            for (int i = 0; i < capacity; i++) {
+                int slot = HEADER + i * SLOT;
+                int slotHash = map.getInt(slot);
+                if (slotHash != EMPTY && slotHash != TOMBSTONE) {
+                    resized.insert(slotHash, segmentAt(slot), offsetAt(slot), lengthAt(slot));
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            channel.close();
+            channel = resized.channel;
+            map = resized.map;
+            capacity = newCapacity;
+            mask = newCapacity - 1;
+            tombstones = 0;
+        }
+    }
+}
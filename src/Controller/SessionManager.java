@@ -0,0 +1,415 @@
+/*
+ * SessionManager Class: Hosts many GameSessions within a memory budget. When more sessions are resident than the
+ * budget allows, the least recently active idle ones are saved to disk (SessionCodec, tens of bytes each) and
+ * dropped from the heap; the next command to a passivated session restores it first, so callers never notice.
+ *
+ * The budget is in bytes and is divided by an estimate of one resident session's footprint (the default is what an
+ * idle session of the campus world measures). Passivated sessions cost one small file and an entry here. Their
+ * scantron reshuffle timer is stopped and starts again when they are restored.
+ *
+ * Sessions may be driven from many threads at once; each session is used by one thread at a time. Recency is kept
+ * in one access-ordered map that is only locked briefly, and a session is passivated by the thread whose command
+ * pushed the manager over budget. Saves are scratch data, not a crash log (see CommandLog): they are deleted when
+ * their session closes, and leftovers of an earlier run are deleted on start.
+ *
+ * Metrics (hits, misses, passivations and the rehydration latency distribution) help size a node: a high miss
+ * rate or slow rehydrations mean the budget is too small for the number of active players.
+ */
+
+package Controller;
+
+import Model.World;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+public class SessionManager implements AutoCloseable {
+
+    // Measured heap of one idle session of the campus world, with its frame buffer and managers
+    public static final int DEFAULT_SESSION_FOOTPRINT = 8 * 1024;
+    private static final String SAVE_PREFIX = "session-";
+    private static final String SAVE_SUFFIX = ".save";
+
+    // Dependencies
+    private final World world;
+    private final GameSession.Output output;
+    private final Path directory;
+    private final int maxResident;
+
+    // Sessions
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final LinkedHashMap<Long, Entry> resident = new LinkedHashMap<>(64, 0.75f, true); // Least recent first; guarded by itself
+
+    // Metrics
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder passivations = new LongAdder();
+    private final AtomicLong passivatedBytes = new AtomicLong();
+    private final LongAdder rehydrationNanos = new LongAdder();
+    private final LongAccumulator slowestRehydration = new LongAccumulator(Math::max, 0);
+    private final AtomicLongArray rehydrationBuckets = new AtomicLongArray(64); // Bucket b: [2^b, 2^(b+1)) ns
+
+    // One hosted session; session is null while it is passivated.
+    private static final class Entry {
+
+        final long sessionId;
+        final Consumer<GameSession> setup;
+        final ReentrantLock lock = new ReentrantLock();
+        GameSession session;
+        int savedLength;
+        boolean closed;
+
+        Entry(long sessionId, Consumer<GameSession> setup) {
+            this.sessionId = sessionId;
+            this.setup = setup;
+        }
+    }
+
+    /**
+     * Creates a manager with the default session footprint estimate.
+     * @param world world shared by every session
+     * @param output what the sessions render
+     * @param directory where passivated sessions are saved
+     * @param memoryBudget bytes of heap the resident sessions may use
+     * @throws IOException if the directory cannot be created or cleaned
+     */
+    public SessionManager(World world, GameSession.Output output, Path directory, long memoryBudget) throws IOException {
+        this(world, output, directory, memoryBudget, DEFAULT_SESSION_FOOTPRINT);
+    }
+
+    /**
+     * Creates a manager.
+     * @param world world shared by every session
+     * @param output what the sessions render
+     * @param directory where passivated sessions are saved
+     * @param memoryBudget bytes of heap the resident sessions may use
+     * @param sessionFootprint estimated bytes of one resident session
+     * @throws IOException if the directory cannot be created or cleaned
+     */
+    public SessionManager(World world, GameSession.Output output, Path directory, long memoryBudget, int sessionFootprint)
+            throws IOException {
+        if (memoryBudget < 1 || sessionFootprint < 1) {
+            throw new IllegalArgumentException("memoryBudget and sessionFootprint must be positive");
+        }
+        this.world = world;
+        this.output = output;
+        this.directory = Files.createDirectories(directory);
+        this.maxResident = (int) Math.max(1, Math.min(Integer.MAX_VALUE, memoryBudget / sessionFootprint));
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, SAVE_PREFIX + "*" + SAVE_SUFFIX)) {
+            for (Path file : leftovers) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    // Getters
+    public World getWorld() { return world; }
+    public GameSession.Output getOutput() { return output; }
+    public int getMaxResident() { return maxResident; }
+    public int getSessionCount() { return entries.size(); }
+
+    public int getResidentCount() {
+        synchronized (resident) {
+            return resident.size();
+        }
+    }
+
+    /**
+     * Opens a session.
+     * @param sessionId caller-chosen id, unique among open sessions
+     * @param setup configures the session (pacing, leaderboard, ...); applied again whenever it is restored from disk
+     * @return intro output
+     */
+    public GameSession.Response open(long sessionId, Consumer<GameSession> setup) {
+        Entry entry = new Entry(sessionId, setup);
+        if (entries.putIfAbsent(sessionId, entry) != null) {
+            throw new IllegalStateException("Session " + sessionId + " is already open.");
+        }
+        GameSession.Response response;
+        entry.lock.lock();
+        try {
+            entry.session = newSession(entry);
+            response = entry.session.open();
+            synchronized (resident) {
+                resident.put(sessionId, entry);
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+        passivateOverBudget();
+        return response;
+    }
+
+    /**
+     * Handles one line of input, restoring the session from disk first if it was passivated. A session whose game
+     * ends is closed.
+     * @param sessionId
+     * @param line
+     * @return output of the line and the new phase
+     * @throws IllegalStateException if the session is not open
+     */
+    public GameSession.Response submit(long sessionId, String line) {
+        Entry entry = entries.get(sessionId);
+        if (entry == null) {
+            throw new IllegalStateException("Session " + sessionId + " is not open.");
+        }
+        GameSession.Response response;
+        entry.lock.lock();
+        try {
+            if (entry.closed) {
+                throw new IllegalStateException("Session " + sessionId + " is not open.");
+            }
+            if (entry.session == null) {
+                rehydrate(entry);
+                misses.increment();
+            } else {
+                hits.increment();
+            }
+            synchronized (resident) {
+                resident.put(sessionId, entry); // Most recently active
+            }
+            response = entry.session.submit(line);
+            if (response.isEnded()) {
+                closeEntry(entry);
+            }
+        } finally {
+            entry.lock.unlock();
+        }
+        passivateOverBudget();
+        return response;
+    }
+
+    /**
+     * Closes a session, resident or not. Does nothing if it is not open.
+     * @param sessionId
+     */
+    public void close(long sessionId) {
+        Entry entry = entries.get(sessionId);
+        if (entry == null) {
+            return;
+        }
+        entry.lock.lock();
+        try {
+            closeEntry(entry);
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+
+    // Closes every session and deletes their saves.
+    @Override
+    public void close() {
+        for (Long sessionId : entries.keySet()) {
+            close(sessionId);
+        }
+    }
+
+    /* ========================== PASSIVATION ========================== */
+
+    private GameSession newSession(Entry entry) {
+        GameSession session = new GameSession(world, output);
+        if (entry.setup != null) {
+            entry.setup.accept(session);
+        }
+        return session;
+    }
+
+    // Saves least recently active sessions to disk until the resident ones fit the budget; busy ones are skipped.
+    private void passivateOverBudget() {
+        while (true) {
+            Entry victim = null;
+            synchronized (resident) {
+                if (resident.size() <= maxResident) {
+                    return;
+                }
+                Iterator<Entry> leastRecent = resident.values().iterator();
+                while (leastRecent.hasNext()) {
+                    Entry candidate = leastRecent.next();
+                    if (candidate.lock.tryLock()) {
+                        leastRecent.remove();
+                        victim = candidate;
+                        break;
+                    }
+                }
+            }
+            if (victim == null) {
+                return; // Every resident session is in use right now
+            }
+            try {
+                passivate(victim);
+            } catch (IOException e) {
+                System.err.println("Error passivating session " + victim.sessionId + ": " + e.getMessage());
+                synchronized (resident) {
+                    resident.put(victim.sessionId, victim);
+                }
+                return;
+            } finally {
+                victim.lock.unlock();
+            }
+        }
+    }
+
+    // Caller holds the entry's lock.
+    private void passivate(Entry entry) throws IOException {
+        if (entry.closed || entry.session == null) {
+            return;
+        }
+        byte[] save = entry.session.save();
+        Files.write(saveFile(entry.sessionId), save);
+        entry.session.close(); // Cancels its timers; the game has not ended, so nothing else happens
+        entry.session = null;
+        entry.savedLength = save.length;
+        passivatedBytes.addAndGet(save.length);
+        passivations.increment();
+    }
+
+    // Caller holds the entry's lock.
+    private void rehydrate(Entry entry) {
+        long start = System.nanoTime();
+        Path file = saveFile(entry.sessionId);
+        try {
+            byte[] save = Files.readAllBytes(file);
+            GameSession session = newSession(entry);
+            session.restore(save); // The resumed screen is dropped: the player never saw the session leave
+            entry.session = session;
+            Files.delete(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error restoring session " + entry.sessionId, e);
+        }
+        passivatedBytes.addAndGet(-entry.savedLength);
+        entry.savedLength = 0;
+
+        long nanos = System.nanoTime() - start;
+        rehydrationNanos.add(nanos);
+        slowestRehydration.accumulate(nanos);
+        rehydrationBuckets.incrementAndGet(63 - Long.numberOfLeadingZeros(Math.max(1, nanos)));
+    }
+
+    // Caller holds the entry's lock.
+    private void closeEntry(Entry entry) {
+        if (entry.closed) {
+            return;
+        }
+        entry.closed = true;
+        entries.remove(entry.sessionId, entry);
+        synchronized (resident) {
+            resident.remove(entry.sessionId);
+        }
+        if (entry.session != null) {
+            entry.session.close();
+            entry.session = null;
+        } else {
+            try {
+                Files.deleteIfExists(saveFile(entry.sessionId));
+            } catch (IOException e) {
+                // Deleted on the next start
+            }
+            passivatedBytes.addAndGet(-entry.savedLength);
+        }
+    }
+
+    private Path saveFile(long sessionId) { return directory.resolve(SAVE_PREFIX + sessionId + SAVE_SUFFIX); }
+
+    /* ========================== METRICS ========================== */
+
+    // Snapshot of the manager's counters.
+    public Metrics getMetrics() {
+        long[] buckets = new long[rehydrationBuckets.length()];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = rehydrationBuckets.get(i);
+        }
+        return new Metrics(hits.sum(), misses.sum(), passivations.sum(), getSessionCount(), getResidentCount(),
+                passivatedBytes.get(), rehydrationNanos.sum(), slowestRehydration.get(), buckets);
+    }
+
+    public static final class Metrics {
+
+        private final long hits;
+        private final long misses;
+        private final long passivations;
+        private final int sessions;
+        private final int resident;
+        private final long passivatedBytes;
+        private final long rehydrationNanos;
+        private final long slowestRehydrationNanos;
+        private final long[] rehydrationBuckets;
+
+        private Metrics(long hits, long misses, long passivations, int sessions, int resident, long passivatedBytes,
+                        long rehydrationNanos, long slowestRehydrationNanos, long[] rehydrationBuckets) {
+            this.hits = hits;
+            this.misses = misses;
+            this.passivations = passivations;
+            this.sessions = sessions;
+            this.resident = resident;
+            this.passivatedBytes = passivatedBytes;
+            this.rehydrationNanos = rehydrationNanos;
+            this.slowestRehydrationNanos = slowestRehydrationNanos;
+            this.rehydrationBuckets = rehydrationBuckets;
+        }
+
+        // Getters
+        public long getHits() { return hits; }              // Commands to resident sessions
+        public long getMisses() { return misses; }          // Commands that had to restore their session first
+        public long getPassivations() { return passivations; }
+        public int getSessions() { return sessions; }
+        public int getResidentSessions() { return resident; }
+        public int getPassivatedSessions() { return Math.max(0, sessions - resident); }
+        public long getPassivatedBytes() { return passivatedBytes; }
+        public long getSlowestRehydrationNanos() { return slowestRehydrationNanos; }
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 1.0 : hits / (double) total;
+        }
+
+        public long getAverageRehydrationNanos() {
+            return misses == 0 ? 0 : rehydrationNanos / misses;
+        }
+
+        /**
+         * Rehydration latency at a percentile, rounded up to a power of two.
+         * @param percentile e.g. 99
+         * @return nanoseconds (0 if nothing was rehydrated)
+         */
+        public long getRehydrationPercentile(double percentile) {
+            long total = 0;
+            for (long count : rehydrationBuckets) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+            long seen = 0;
+            for (int bucket = 0; bucket < rehydrationBuckets.length; bucket++) {
+                seen += rehydrationBuckets[bucket];
+                if (seen >= rank) {
+                    return bucket >= 62 ? Long.MAX_VALUE : 1L << (bucket + 1);
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("sessions=%d resident=%d passivated=%d (%d bytes) hits=%d misses=%d hitRate=%.3f "
+                    + "passivations=%d rehydration avg=%dns p50<=%dns p99<=%dns max=%dns", sessions, resident,
+                    getPassivatedSessions(), passivatedBytes, hits, misses, getHitRate(), passivations,
+                    getAverageRehydrationNanos(), getRehydrationPercentile(50), getRehydrationPercentile(99),
+                    slowestRehydrationNanos);
+        }
+    }
+}
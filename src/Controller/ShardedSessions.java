@@ -0,0 +1,241 @@
+/*
+ * ShardedSessions Class: Actor-style execution mode. Sessions are hashed onto a fixed set of single-threaded shard
+ * loops (one per available processor by default), and each loop owns its sessions outright: their Player, managers
+ * and puzzle and item state are only ever touched by that loop's thread, so the game logic runs without locks and its
+ * data stays in that core's caches. Scantron reshuffles are deferred: the shared timer only marks one as due, and the
+ * shard applies it before the session's next line.
+ *
+ * Callers talk to a session by posting messages (open, submit a line, close) to the shard's lock-free MPSC queue.
+ * Responses are handed to a callback on the shard thread; callbacks must be quick and must not block. Sessions run
+ * unpaced, since a sleeping session would stall every other session on its shard.
+ *
+ * Players are ranked by name on one Leaderboard shared by all shards.
+ */
+
+package Controller;
+
+import Model.Leaderboard;
+import Model.World;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+public class ShardedSessions implements AutoCloseable {
+
+    private static final int SPINS_BEFORE_PARK = 200;
+
+    private final World world;
+    private final Shard[] shards;
+    private final Leaderboard leaderboard = new Leaderboard(); // Every shard reports its players' GPAs here
+
+    // Constructors
+    public ShardedSessions(World world) {
+        this(world, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedSessions(World world, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be at least 1");
+        }
+        this.world = world;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    // Starts the shard threads.
+    public void start() {
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+    }
+
+    // Getters
+    public int getShardCount() { return shards.length; }
+    public Leaderboard getLeaderboard() { return leaderboard; }
+
+    /**
+     * Index of the shard that owns a session.
+     * @param sessionId
+     * @return shard index
+     */
+    public int shardOf(long sessionId) {
+        long hash = sessionId * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential ids
+        return (int) Math.floorMod(hash ^ (hash >>> 32), (long) shards.length);
+    }
+
+    /**
+     * Opens a session; the intro is passed to the callback.
+     * @param sessionId caller-chosen id, unique among open sessions
+     * @param callback
+     */
+    public void open(long sessionId, Consumer<GameSession.Response> callback) {
+        post(new Message(Message.OPEN, sessionId, null, callback));
+    }
+
+    /**
+     * Sends one line of input to a session.
+     * @param sessionId
+     * @param line
+     * @param callback receives the session's response (null if the session is not open)
+     */
+    public void submit(long sessionId, String line, Consumer<GameSession.Response> callback) {
+        post(new Message(Message.SUBMIT, sessionId, line, callback));
+    }
+
+    /**
+     * Closes a session and cancels its timers.
+     * @param sessionId
+     */
+    public void close(long sessionId) {
+        post(new Message(Message.CLOSE, sessionId, null, null));
+    }
+
+    // Closes every session and stops the shard threads after they drain their queues.
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.running = false;
+            LockSupport.unpark(shard.thread);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.stopped.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void post(Message message) {
+        shards[shardOf(message.sessionId)].post(message);
+    }
+
+    /* ========================== MESSAGES ========================== */
+
+    private static final class Message {
+
+        static final int OPEN = 0;
+        static final int SUBMIT = 1;
+        static final int CLOSE = 2;
+
+        final int kind;
+        final long sessionId;
+        final String line;
+        final Consumer<GameSession.Response> callback;
+
+        Message(int kind, long sessionId, String line, Consumer<GameSession.Response> callback) {
+            this.kind = kind;
+            this.sessionId = sessionId;
+            this.line = line;
+            this.callback = callback;
+        }
+    }
+
+    /* ========================== SHARD LOOP ========================== */
+
+    private final class Shard implements Runnable {
+
+        private final MpscQueue<Message> queue = new MpscQueue<>();
+        private final Map<Long, GameSession> sessions = new HashMap<>(); // Owned by the shard thread
+        private final Thread thread;
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        private volatile boolean running = true;
+        private volatile boolean parked;
+
+        Shard(int index) {
+            this.thread = new Thread(this, "shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        void post(Message message) {
+            queue.offer(message);
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                int idle = 0;
+                while (running || !queue.isEmpty()) {
+                    Message message = queue.poll();
+                    if (message != null) {
+                        handle(message);
+                        idle = 0;
+                    } else if (++idle < SPINS_BEFORE_PARK) {
+                        Thread.onSpinWait();
+                    } else {
+                        parked = true;
+                        if (queue.isEmpty() && running) { // Check again now that producers will unpark us
+                            LockSupport.park(this);
+                        }
+                        parked = false;
+                        idle = 0;
+                    }
+                }
+                for (GameSession session : sessions.values()) {
+                    session.close();
+                }
+                sessions.clear();
+            } finally {
+                stopped.countDown();
+            }
+        }
+
+        private void handle(Message message) {
+            GameSession.Response response = null;
+            try {
+                switch (message.kind) {
+                    case Message.OPEN: {
+                        GameSession session = new GameSession(world);
+                        session.setPaced(false);
+                        session.setDeferredReshuffles(true);
+                        session.setLeaderboard(leaderboard);
+                        GameSession previous = sessions.put(message.sessionId, session);
+                        if (previous != null) {
+                            previous.close();
+                        }
+                        response = session.open();
+                        break;
+                    }
+                    case Message.SUBMIT: {
+                        GameSession session = sessions.get(message.sessionId);
+                        if (session != null) {
+                            response = session.submit(message.line);
+                            if (response.isEnded()) {
+                                sessions.remove(message.sessionId).close();
+                            }
+                        }
+                        break;
+                    }
+                    case Message.CLOSE: {
+                        GameSession session = sessions.remove(message.sessionId);
+                        if (session != null) {
+                            session.close();
+                        }
+                        break;
+                    }
+                    default:
+                        throw new IllegalStateException("Unknown message kind: " + message.kind);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Session " + message.sessionId + " failed: " + e);
+            }
+
+            if (message.callback != null) {
+                try {
+                    message.callback.accept(response);
+                } catch (RuntimeException e) {
+                    System.err.println("Callback for session " + message.sessionId + " failed: " + e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * CompileWorld Class: "Compile world" step that turns the text data files into a binary world snapshot.
+ *
+ * Usage: CompileWorld [dataDirectory] [snapshotFile]
+ **/
+
+package Demo;
+
+import Model.MappedReader;
+import Model.Reader;
+import Model.WorldSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class CompileWorld {
+
+    public static void main(String[] args) {
+        String dataDirectory = args.length > 0 ? args[0] : Reader.DEFAULT_DATA_DIRECTORY;
+        Path snapshotFile = args.length > 1 ? Path.of(args[1]) : Path.of(dataDirectory, WorldSnapshot.DEFAULT_FILE_NAME);
+
+        try {
+            long start = System.nanoTime();
+            WorldSnapshot.compile(new MappedReader(dataDirectory), snapshotFile);
+            System.out.printf("Compiled '%s' into '%s' in %.1f ms.%n", dataDirectory, snapshotFile, (System.nanoTime() - start) / 1e6);
+        } catch (IOException e) {
+            System.err.println("Error compiling world snapshot: " + e.getMessage());
+        }
+    }
+}
@@ -10,23 +10,31 @@
 package Demo;
 
 import Controller.Controller;
-import Controller.Manager.CommandProcessor;
-import View.View;
-import Model.Player;
+import Controller.GameSession;
 import Model.Reader;
+import Model.SnapshotReader;
+import Model.World;
+import Model.WorldSnapshot;
 
 import java.util.Scanner;
 public class Game {
     
     private static void launchGame() {
-        new Controller(
-            new CommandProcessor(
-                new View(),
-                new Reader(),
+        try (GameSession session = new GameSession(World.shared(createReader()), System.out)) {
+            new Controller(
+                session,
                 new Scanner(System.in),
-                new Player(null, null)
-            )
-        ).startGameCycle(); // Start the game with a new Controller object.
+                System.out
+            ).startGameCycle(); // Start the game on the console.
+        }
+    }
+
+    // Boots from the compiled world snapshot when it is up to date, otherwise from the text files.
+    static Reader createReader() {
+        if (WorldSnapshot.isCurrent(Reader.DEFAULT_DATA_DIRECTORY)) {
+            return new SnapshotReader();
+        }
+        return new Reader();
     }
 
     public static void main(String[] args) { // Main method where the game is launched.
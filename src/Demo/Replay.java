@@ -0,0 +1,112 @@
+/*
+ * Replay Class: Runs a transcript of commands (start, name, moves, pickups, quiz answers) through a headless game
+ * session at full speed, with no loading pauses and no "press enter" screens, then reports the run time,
+ * commands per second and the final player state.
+ *
+ * Transcript lines are fed to the game one per command; blank lines and lines starting with '#' are skipped.
+ * The scantron placement is seeded so the same transcript always plays out the same way.
+ *
+ * Usage: Replay <transcript> [--data <directory>] [--seed <n>] [--repeat <n>] [--echo] [--events]
+ */
+
+package Demo;
+
+import Controller.GameSession;
+import Model.Player;
+import Model.Reader;
+import Model.World;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class Replay {
+
+    private static final long DEFAULT_SEED = 1;
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: Replay <transcript> [--data <directory>] [--seed <n>] [--repeat <n>] [--echo] [--events]");
+            System.exit(2);
+        }
+
+        String dataDirectory = Reader.DEFAULT_DATA_DIRECTORY;
+        long seed = DEFAULT_SEED;
+        int repeat = 1;
+        boolean echo = false;
+        GameSession.Output output = GameSession.Output.TEXT;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--data": dataDirectory = args[++i]; break;
+                case "--seed": seed = Long.parseLong(args[++i]); break;
+                case "--repeat": repeat = Integer.parseInt(args[++i]); break;
+                case "--echo": echo = true; break;
+                case "--events": output = GameSession.Output.EVENTS; break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        try {
+            List<String> commands = readTranscript(Path.of(args[0]));
+            World world = World.shared(new Reader(dataDirectory));
+
+            long commandCount = 0;
+            Player player = null;
+            long start = System.nanoTime();
+            for (int run = 0; run < repeat; run++) {
+                try (GameSession session = new GameSession(world, output)) {
+                    session.setPaced(false);
+                    session.setAutoContinue(true);
+                    session.setRandomSeed(seed);
+                    print(echo, session.open().getOutput());
+                    for (String command : commands) {
+                        if (session.isEnded()) {
+                            break;
+                        }
+                        print(echo, session.submit(command).getOutput());
+                        commandCount++;
+                    }
+                    player = session.getPlayer();
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("%nReplayed %d command(s) in %d run(s): %.1f ms, %.0f commands/sec%n",
+                    commandCount, repeat, elapsed / 1e6, commandCount / (elapsed / 1e9));
+            printPlayer(player);
+        } catch (IOException e) {
+            System.err.println("Could not read transcript: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    // Reads the transcript, dropping blank lines and comments.
+    private static List<String> readTranscript(Path transcript) throws IOException {
+        List<String> commands = new ArrayList<>();
+        for (String line : Files.readAllLines(transcript, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                commands.add(trimmed);
+            }
+        }
+        return commands;
+    }
+
+    private static void print(boolean echo, String output) {
+        if (echo) {
+            System.out.print(output);
+        }
+    }
+
+    // Final player state of the last run.
+    private static void printPlayer(Player player) {
+        System.out.println("Player:   " + player.getPlayerName());
+        System.out.println("Room:     " + (player.getCurrentRoom() == null ? "-" : player.getCurrentRoom().getRoomName()));
+        System.out.printf("GPA:      %.2f%n", player.getGpa());
+        System.out.println("Grades:   " + player.getGrades());
+        System.out.println("Backpack: " + player.getInventory().size() + " item(s)");
+    }
+}
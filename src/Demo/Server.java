@@ -0,0 +1,93 @@
+/*
+ * Server Class: Runs the game as a TCP server so many players can connect to one JVM (for example with
+ * "nc localhost 4000"). Every connection gets its own session; the world is loaded once and shared.
+ *
+ * Usage: Server [port] [--events] [--profiles dir] [--passivate dir] [--budget MB] [--wal dir]
+ *   --events     JSON event lines for machine clients instead of text
+ *   --profiles   keep player profiles (best GPA, grades, graduations) in a ProfileStore in that directory
+ *   --passivate  host sessions in a SessionManager that saves idle ones to that directory
+ *   --budget     heap the resident sessions may use, in megabytes (default 64); the manager's metrics are printed
+ *                on shutdown
+ *   --wal        log every session's input in a CommandLog in that directory, so players can resume their games
+ *                after a disconnect or a crash (not together with --passivate)
+ */
+
+package Demo;
+
+import Controller.CommandLog;
+import Controller.GameServer;
+import Controller.GameSession;
+import Controller.ProfileStore;
+import Controller.SessionManager;
+import Model.World;
+
+import java.nio.file.Path;
+
+public class Server {
+
+    private static final int DEFAULT_PORT = 4000;
+    private static final long DEFAULT_BUDGET_MB = 64;
+    private static final int SNAPSHOT_INTERVAL = 64; // Logged commands between session snapshots
+
+    public static void main(String[] args) {
+        int port = DEFAULT_PORT;
+        GameSession.Output output = GameSession.Output.TEXT;
+        Path profiles = null;
+        Path passivate = null;
+        long budgetMb = DEFAULT_BUDGET_MB;
+        Path wal = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--events")) {
+                output = GameSession.Output.EVENTS;
+            } else if (args[i].equals("--profiles") && i + 1 < args.length) {
+                profiles = Path.of(args[++i]);
+            } else if (args[i].equals("--passivate") && i + 1 < args.length) {
+                passivate = Path.of(args[++i]);
+            } else if (args[i].equals("--budget") && i + 1 < args.length) {
+                budgetMb = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--wal") && i + 1 < args.length) {
+                wal = Path.of(args[++i]);
+            } else {
+                port = Integer.parseInt(args[i]);
+            }
+        }
+
+        if (wal != null && passivate != null) {
+            System.err.println("--wal and --passivate cannot be used together.");
+            return;
+        }
+
+        try {
+            CommandLog commandLog = wal == null ? null : new CommandLog(wal, true, SNAPSHOT_INTERVAL);
+            ProfileStore profileStore = profiles == null ? null : new ProfileStore(profiles, false);
+            World world = World.shared(Game.createReader());
+            SessionManager sessions = passivate == null ? null
+                    : new SessionManager(world, output, passivate, budgetMb * 1024 * 1024);
+            GameServer server = sessions == null ? new GameServer(world, port, output, profileStore)
+                    : new GameServer(sessions, port, profileStore);
+            if (commandLog != null) {
+                server.setCommandLog(commandLog);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.close();
+                if (commandLog != null) {
+                    commandLog.close();
+                }
+                if (sessions != null) {
+                    System.out.println("Sessions: " + sessions.getMetrics());
+                    sessions.close();
+                }
+                if (profileStore != null) {
+                    profileStore.close();
+                }
+            }));
+            server.start();
+            System.out.println("Game server listening on port " + server.getPort()
+                    + (server.usesVirtualThreads() ? " (virtual threads)." : " (platform threads)."));
+            server.awaitTermination();
+        } catch (Exception e) {
+            System.err.println("An unexpected error occurred while running the server: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Inventory Class: The player's backpack as one counter per item name, keyed by the interned item keys of the
+ * world's ItemIndex, rather than one reference per item picked up.
+ *
+ * Adding, removing and counting are O(1), and the keys held are kept in a dense list so showing the backpack is
+ * O(distinct items). Nothing is allocated unless a key beyond the current arrays is added, so a player holding
+ * thousands of scantrons costs one int.
+ */
+
+package Model;
+
+import java.util.Arrays;
+
+public final class Inventory {
+
+    private static final int INITIAL_KEYS = 8;
+
+    private int[] counts = new int[INITIAL_KEYS];   // Count per item key
+    private int[] slotOfKey = new int[INITIAL_KEYS]; // Position of each held key in heldKeys
+    private int[] heldKeys = new int[INITIAL_KEYS];  // Keys with a count above zero, in no particular order
+    private int distinct;
+    private int size;
+
+    // Getters
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+    public int distinctCount() { return distinct; }
+
+    /**
+     * Get the key of a held item.
+     * @param index 0 to distinctCount() - 1
+     * @return item key
+     */
+    public int keyAt(int index) {
+        if (index < 0 || index >= distinct) {
+            throw new IndexOutOfBoundsException("index " + index + " out of range for " + distinct + " item(s)");
+        }
+        return heldKeys[index];
+    }
+
+    /**
+     * Get how many of an item the player holds.
+     * @param key
+     * @return count, 0 if none
+     */
+    public int count(int key) {
+        return (key >= 0 && key < counts.length) ? counts[key] : 0;
+    }
+
+    /**
+     * Adds one of an item.
+     * @param key
+     */
+    public void add(int key) {
+        add(key, 1);
+    }
+
+    /**
+     * Adds several of an item.
+     * @param key
+     * @param amount
+     */
+    public void add(int key, int amount) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Unknown item key " + key + ".");
+        }
+        if (amount < 0) {
+            throw new IllegalArgumentException("amount must not be negative");
+        }
+        if (amount == 0) {
+            return;
+        }
+        ensureKey(key);
+        if (counts[key] == 0) {
+            slotOfKey[key] = distinct;
+            heldKeys[distinct++] = key;
+        }
+        counts[key] = Math.addExact(counts[key], amount);
+        size = Math.addExact(size, amount);
+    }
+
+    /**
+     * Removes one of an item.
+     * @param key
+     * @return true if the player had one, false otherwise
+     */
+    public boolean remove(int key) {
+        if (count(key) == 0) {
+            return false;
+        }
+        size--;
+        if (--counts[key] == 0) {
+            int slot = slotOfKey[key];
+            int last = heldKeys[--distinct];
+            heldKeys[slot] = last;
+            slotOfKey[last] = slot;
+        }
+        return true;
+    }
+
+    public void clear() {
+        for (int i = 0; i < distinct; i++) {
+            counts[heldKeys[i]] = 0;
+        }
+        distinct = 0;
+        size = 0;
+    }
+
+    private void ensureKey(int key) {
+        if (key >= counts.length) {
+            int capacity = Math.max(key + 1, counts.length * 2);
+            counts = Arrays.copyOf(counts, capacity);
+            slotOfKey = Arrays.copyOf(slotOfKey, capacity);
+            heldKeys = Arrays.copyOf(heldKeys, capacity);
+        }
+    }
+
+    // toString method (for debugging): item key -> count
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("{");
+        for (int i = 0; i < distinct; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(heldKeys[i]).append('=').append(counts[heldKeys[i]]);
+        }
+        return text.append('}').toString();
+    }
+}
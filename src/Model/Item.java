@@ -1,5 +1,6 @@
 /*
- * Item Class: Responsible for initializing and managing item attributes. 
+ * Item Class: Immutable item definition. Items are shared by every session; the live count of an item is kept by
+ * the session's ItemsManager.
  */
 
  package Model;
@@ -7,10 +8,10 @@
  public class Item {
      
      // Item attributes
-     private int itemId;
+     private final int itemId; // Id of the room holding the item
      private final String itemName;
      private final String itemDescription;
-     private int itemCount;
+     private final int itemCount; // Initial count from the data file
  
      // Item constructor
      public Item(int newItemId, String newItemName, String newItemDescription, int newItemCount){
@@ -26,10 +27,6 @@
      public String getItemDescription() { return itemDescription; }
      public int getItemCount() { return itemCount; }
  
-     // Setters
-     public void setId(int itemId) { this.itemId = itemId; }
-     public void setItemCount(int itemCount) { this.itemCount = itemCount;}
- 
      // toString method (for debugging)
      @Override
      public String toString() {
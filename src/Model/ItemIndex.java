@@ -0,0 +1,94 @@
+/*
+ * ItemIndex Class: Shared, immutable index of the items by room id and by normalized item name.
+ *
+ * The world keeps its items ordered by room id, so the items of a room are one contiguous ordinal range. Item
+ * names are interned to small int keys ("Scantron", "scantron " and "SCANTRON" share a key) so per-command
+ * lookups compare ints instead of strings. Keys are looked up straight from the player's input through a NameTable.
+*/
+
+package Model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class ItemIndex {
+
+    public static final int NO_ITEM = -1;
+
+    private final int lowestRoomId;
+    private final int[] roomStart;            // Ordinal range start per room slot, plus end sentinel
+    private final int[] keyOfOrdinal;         // Interned name key of every item
+    private final NameTable keys;             // Item name (any case) -> key
+    private final String[] keyNames;          // Display name per key (first spelling seen)
+
+    // Constructor (items must be ordered by room id)
+    public ItemIndex(List<Item> items) {
+        int lowest = Integer.MAX_VALUE;
+        int highest = Integer.MIN_VALUE;
+        for (Item item : items) {
+            lowest = Math.min(lowest, item.getItemId());
+            highest = Math.max(highest, item.getItemId());
+        }
+        if (items.isEmpty()) {
+            lowest = 0;
+            highest = -1;
+        }
+
+        this.lowestRoomId = lowest;
+        this.roomStart = new int[Math.toIntExact((long) highest - lowest + 2)];
+        this.keyOfOrdinal = new int[items.size()];
+        this.keys = new NameTable();
+
+        List<String> names = new ArrayList<>();
+        for (int ordinal = 0; ordinal < items.size(); ordinal++) {
+            Item item = items.get(ordinal);
+            roomStart[item.getItemId() - lowest + 1]++;
+
+            String name = item.getItemName().trim();
+            int id = keys.add(name);
+            if (id == names.size()) {
+                names.add(item.getItemName());
+            }
+            keyOfOrdinal[ordinal] = id;
+        }
+        for (int slot = 1; slot < roomStart.length; slot++) {
+            roomStart[slot] += roomStart[slot - 1];
+        }
+        this.keyNames = names.toArray(new String[0]);
+    }
+
+    /**
+     * Get the interned key of an item name.
+     * @param itemName name in any case, surrounding whitespace is ignored
+     * @return key, or NO_ITEM if no item has that name
+     */
+    public int itemKey(CharSequence itemName) {
+        int start = 0;
+        int end = itemName.length();
+        while (start < end && Character.isWhitespace(itemName.charAt(start))) start++;
+        while (end > start && Character.isWhitespace(itemName.charAt(end - 1))) end--;
+        int key = keys.find(itemName, start, end);
+        return key == NameTable.NOT_FOUND ? NO_ITEM : key;
+    }
+
+    // Key of the item at an ordinal
+    public int keyOf(int ordinal) { return keyOfOrdinal[ordinal]; }
+
+    // Number of distinct item names
+    public int keyCount() { return keyNames.length; }
+
+    // Display name of a key
+    public String keyName(int key) { return keyNames[key]; }
+
+    // First ordinal of a room's items
+    public int roomStart(int roomId) {
+        int slot = roomId - lowestRoomId;
+        return (slot >= 0 && slot < roomStart.length - 1) ? roomStart[slot] : 0;
+    }
+
+    // End (exclusive) of a room's items
+    public int roomEnd(int roomId) {
+        int slot = roomId - lowestRoomId;
+        return (slot >= 0 && slot < roomStart.length - 1) ? roomStart[slot + 1] : 0;
+    }
+}
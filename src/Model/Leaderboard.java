@@ -0,0 +1,220 @@
+/*
+ * Leaderboard Class: Live ranking of players by GPA, shared by every session in the JVM and updated by each
+ * session's PlayersManager whenever a grade changes its GPA.
+ *
+ * Players are keyed by name, like their profiles (ProfileStore), so a player who reconnects or plays another game
+ * keeps one entry: the GPA of their latest graded quiz or exam.
+ *
+ * Scores are GPAs in hundredths (as they are shown), so players with the same displayed GPA share a rank
+ * ("1, 2, 2, 4"). Three structures are kept, none of them behind a global lock:
+ *   entries    player name -> current standing; updates of one player are serialized by the map's per-bin lock
+ *   ranking    concurrent skip list ordered best first, walked for top-k and score-range queries
+ *   counts     Fenwick tree of atomic per-score counters, so a player's rank is one O(log n) prefix sum
+ * An update touches only its player's entry, two skip list nodes and a few counters. Queries are weakly consistent:
+ * a player whose grade is being recorded at that moment may briefly be missing from a result.
+ */
+
+package Model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public final class Leaderboard {
+
+    // GPAs above this are ranked as equal to it
+    public static final double MAX_RANKED_GPA = 100.0;
+    private static final int MAX_SCORE = (int) Math.round(MAX_RANKED_GPA * 100);
+
+    // Best first; ties by name so every entry has its own place in the skip list (a null name sorts last)
+    private static final Comparator<Standing> BEST_FIRST = Comparator.comparingInt((Standing standing) -> -standing.score)
+            .thenComparing(standing -> standing.playerName, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final ConcurrentHashMap<String, Standing> entries = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Standing> ranking = new ConcurrentSkipListSet<>(BEST_FIRST);
+    private final AtomicIntegerArray counts = new AtomicIntegerArray(MAX_SCORE + 2); // 1-based, best score at 1
+
+    // A player's place on the board.
+    public static final class Standing {
+
+        private final String playerName;
+        private final int score; // GPA in hundredths
+        private final int rank;  // 0 while held in the board; set on copies handed out by queries
+
+        private Standing(String playerName, int score, int rank) {
+            this.playerName = playerName;
+            this.score = score;
+            this.rank = rank;
+        }
+
+        // Getters
+        public String getPlayerName() { return playerName; }
+        public double getGpa() { return score / 100.0; }
+        public int getRank() { return rank; }
+
+        @Override
+        public String toString() {
+            return String.format("#%d %s %.2f", rank, playerName, getGpa());
+        }
+    }
+
+    // Getters
+    public int size() { return entries.size(); }
+
+    /**
+     * Records a player's new GPA, adding the player if they are not on the board yet.
+     * @param playerName
+     * @param gpa
+     */
+    public void update(String playerName, double gpa) {
+        if (playerName == null) {
+            throw new IllegalArgumentException("Only named players are ranked.");
+        }
+        if (Double.isNaN(gpa)) {
+            throw new IllegalArgumentException("GPA must be a number");
+        }
+        Standing updated = new Standing(playerName, toScore(gpa), 0);
+        entries.compute(playerName, (name, previous) -> {
+            if (previous != null) {
+                ranking.remove(previous);
+                adjustCount(previous.score, -1);
+            }
+            ranking.add(updated);
+            adjustCount(updated.score, 1);
+            return updated;
+        });
+    }
+
+    /**
+     * Takes a player off the board.
+     * @param playerName
+     */
+    public void remove(String playerName) {
+        entries.computeIfPresent(playerName, (name, previous) -> {
+            ranking.remove(previous);
+            adjustCount(previous.score, -1);
+            return null;
+        });
+    }
+
+    /**
+     * Get a player's rank.
+     * @param playerName
+     * @return 1 for the best GPA, or 0 if the player is not on the board
+     */
+    public int rankOf(String playerName) {
+        Standing standing = entries.get(playerName);
+        return standing == null ? 0 : rankOfScore(standing.score);
+    }
+
+    /**
+     * Get a player's standing.
+     * @param playerName
+     * @return standing with its rank, or null if the player is not on the board
+     */
+    public Standing standingOf(String playerName) {
+        Standing standing = entries.get(playerName);
+        return standing == null ? null : withRank(standing, rankOfScore(standing.score));
+    }
+
+    /**
+     * Get the best players.
+     * @param k maximum number of standings
+     * @return up to k standings, best first
+     */
+    public List<Standing> topK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        List<Standing> top = new ArrayList<>(Math.min(k, 64));
+        collect(ranking, top, k, 1);
+        return top;
+    }
+
+    /**
+     * Get the players whose GPA lies in a range.
+     * @param minGpa lowest GPA, inclusive
+     * @param maxGpa highest GPA, inclusive
+     * @return standings, best first
+     */
+    public List<Standing> range(double minGpa, double maxGpa) {
+        int low = toScore(minGpa);
+        int high = toScore(maxGpa);
+        List<Standing> players = new ArrayList<>();
+        if (low > high) {
+            return players;
+        }
+        Standing first = new Standing("", high, 0); // Before every name with the highest score
+        Standing last = new Standing(null, low, 0); // After every name with the lowest score
+        collect(ranking.subSet(first, true, last, true), players, Integer.MAX_VALUE, rankOfScore(high));
+        return players;
+    }
+
+    /**
+     * Count the players whose GPA lies in a range without walking them.
+     * @param minGpa lowest GPA, inclusive
+     * @param maxGpa highest GPA, inclusive
+     * @return number of players
+     */
+    public int countInRange(double minGpa, double maxGpa) {
+        int low = toScore(minGpa);
+        int high = toScore(maxGpa);
+        return low > high ? 0 : prefixCount(position(low)) - prefixCount(position(high) - 1);
+    }
+
+    /* ========================== HELPERS ========================== */
+
+    // Copies standings in order, numbering them with competition ranks starting from firstRank.
+    private static void collect(Iterable<Standing> standings, List<Standing> into, int limit, int firstRank) {
+        int rank = firstRank;
+        int previousScore = Integer.MIN_VALUE;
+        int seen = 0;
+        for (Standing standing : standings) {
+            if (into.size() == limit) {
+                break;
+            }
+            if (standing.score != previousScore) {
+                rank = firstRank + seen;
+                previousScore = standing.score;
+            }
+            into.add(withRank(standing, rank));
+            seen++;
+        }
+    }
+
+    private static Standing withRank(Standing standing, int rank) {
+        return new Standing(standing.playerName, standing.score, rank);
+    }
+
+    private static int toScore(double gpa) {
+        return (int) Math.max(0, Math.min(MAX_SCORE, Math.round(gpa * 100)));
+    }
+
+    // 1 + number of players with a strictly better score
+    private int rankOfScore(int score) {
+        return 1 + prefixCount(position(score) - 1);
+    }
+
+    // Fenwick position of a score; the best score comes first
+    private static int position(int score) {
+        return MAX_SCORE - score + 1;
+    }
+
+    private void adjustCount(int score, int delta) {
+        for (int i = position(score); i < counts.length(); i += i & -i) {
+            counts.addAndGet(i, delta);
+        }
+    }
+
+    // Number of players at positions 1..position
+    private int prefixCount(int position) {
+        int total = 0;
+        for (int i = position; i > 0; i -= i & -i) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+}
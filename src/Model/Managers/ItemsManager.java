@@ -1,75 +1,260 @@
 /*
- * ItemsManager Class: Manages item behaviors. 
+ * ItemsManager Class: Manages item behaviors.
+ *
+ * Item definitions and the room/name index are shared by every session. The live item counts of this session are
+ * kept as a sparse overlay (a Placement): the ordinals of the items that hold scantrons, sorted, with one atomic
+ * counter each. Every other item has a count of 0. A reshuffle builds a complete new Placement and publishes it
+ * with a single compare-and-set, so readers always see either the old or the new placement, never a mix; reads are
+ * wait-free, and so are pickups: one atomic decrement of the current placement's counter, undone if it was empty.
+ *
+ * Hosts that log commands need reshuffles in a fixed order with them, and shard hosts keep each session on its own
+ * thread; they turn on deferred reshuffles, so the timer only marks a reshuffle as due and the session thread applies
+ * it before its next command (applyDueReshuffle).
  */
 
  package Model.Managers;
 
  import Model.Item;
- 
+ import Model.ItemIndex;
+ import Model.World;
+
  import java.util.*;
- import java.util.concurrent.Executors;
- import java.util.concurrent.ScheduledExecutorService;
  import java.util.concurrent.TimeUnit;
- 
+ import java.util.concurrent.atomic.AtomicIntegerArray;
+ import java.util.concurrent.atomic.AtomicReference;
+
  public class ItemsManager {
- 
+
      // Dependencies
      private final List<Item> items;
+     private final ItemIndex itemIndex;
      private static final int SCANTRON_COUNT = 9; // Number of scantrons to place
-     private ScheduledExecutorService scheduler; // Scheduled task to randomly place scantrons
- 
+     private final Random random = new Random();
+     private static final long PLACEMENT_PERIOD_MINUTES = 2;
+     private final TimingWheel timingWheel;
+     private TimingWheel.Timeout placementTimer; // Repeating timer that reshuffles the scantrons
+     private volatile boolean deferredReshuffles; // Whether the timer leaves the reshuffle to applyDueReshuffle
+     private volatile boolean reshuffleDue;
+
+     // Session overlay, replaced as a whole by every reshuffle
+     private final AtomicReference<Placement> placement = new AtomicReference<>();
+
+     // Constructor (timers run on the engine-wide timing wheel)
+     public ItemsManager(World world) {
+         this(world, TimingWheel.shared());
+     }
+
      // Constructor
-     public ItemsManager(List<Item> items) {
-         this.items = items;
+     public ItemsManager(World world, TimingWheel timingWheel) {
+         this.timingWheel = timingWheel;
+         this.items = world.getItems();
+         this.itemIndex = world.getItemIndex();
+
+         // Start from the counts in the data file.
+         int placed = 0;
+         for (Item item : items) {
+             if (item.getItemCount() > 0) placed++;
+         }
+
+         int[] ordinals = new int[placed];
+         int[] counts = new int[placed];
+         for (int ordinal = 0, slot = 0; ordinal < items.size(); ordinal++) {
+             if (items.get(ordinal).getItemCount() > 0) {
+                 ordinals[slot] = ordinal;
+                 counts[slot++] = items.get(ordinal).getItemCount();
+             }
+         }
+         placement.set(new Placement(0, ordinals, counts));
      }
- 
+
      // To Access Getters
      public List<Item> getItems() {
          return items;
      }
- 
+
+     /**
+      * Find an item in a room that is still available, matching the name in any case.
+      * @param roomId
+      * @param itemName
+      * @return ordinal of the item, or ItemIndex.NO_ITEM
+      */
+     public int findItemInRoom(int roomId, CharSequence itemName) {
+         int key = itemIndex.itemKey(itemName);
+         if (key == ItemIndex.NO_ITEM) {
+             return ItemIndex.NO_ITEM;
+         }
+
+         Placement current = placement.get();
+         int end = itemIndex.roomEnd(roomId);
+         for (int ordinal = itemIndex.roomStart(roomId); ordinal < end; ordinal++) {
+             if (itemIndex.keyOf(ordinal) == key && current.count(ordinal) > 0) {
+                 return ordinal;
+             }
+         }
+         return ItemIndex.NO_ITEM;
+     }
+
+     /**
+      * Get the live count of an item in this session.
+      * @param ordinal position of the item in the items list
+      * @return itemCount
+      */
+     public int getItemCount(int ordinal) {
+         return placement.get().count(ordinal);
+     }
+
+     // Version of the current placement (0 for the counts from the data file, +1 per reshuffle)
+     public long getPlacementVersion() {
+         return placement.get().version;
+     }
+
+     /**
+      * Take one unit of an item, if there is any left.
+      * @param ordinal position of the item in the items list
+      * @return true if the count was decremented, false if the item was not available
+      */
+     public boolean takeItem(int ordinal) {
+         Placement current = placement.get();
+         int slot = Arrays.binarySearch(current.ordinals, ordinal);
+         if (slot < 0) {
+             return false;
+         }
+
+         // A pickup that races with a reshuffle lands on the placement it read; the new one starts fresh anyway.
+         // A counter only drops below 0 while empty-handed pickups undo their decrement, so a positive
+         // count always means a unit is really left, and readers see such a count as 0.
+         if (current.counts.getAndDecrement(slot) > 0) {
+             return true;
+         }
+         current.counts.incrementAndGet(slot);
+         return false;
+     }
+
+     /**
+      * Reseed the placement random number generator so reshuffles are repeatable.
+      * @param seed
+      */
+     public void setRandomSeed(long seed) {
+         random.setSeed(seed);
+     }
+
      // Randomly place scantrons in the items list
      public void randomlyPlaceScantrons() {
-         for (Item item : items) {
-             item.setItemCount(0);
-         }
- 
-         List<Item> shuffledItems = new ArrayList<>(items);
-         Collections.shuffle(shuffledItems);
- 
+         int[] candidates = chooseRandomItems(Math.min(items.size(), SCANTRON_COUNT));
+         long[] next = new long[candidates.length];
+         int placed = 0;
+
          int remainingScantrons = SCANTRON_COUNT;
- 
-         for (Item item : shuffledItems) {
+
+         for (int ordinal : candidates) {
              if (remainingScantrons <= 0) {
-                 break; 
+                 break;
              }
- 
-             int scantronsToPlace = (remainingScantrons > 1 && Math.random() < 0.5) ? 2 : 1;
-             item.setItemCount(scantronsToPlace);
+
+             int scantronsToPlace = (remainingScantrons > 1 && random.nextBoolean()) ? 2 : 1;
+             next[placed++] = ((long) ordinal << 32) | scantronsToPlace;
              remainingScantrons -= scantronsToPlace;
          }
- 
-     }
- 
-     // Start and stop the scheduled task to randomly place scantrons
-     public void startRandomPlacementTask() {
-         if (scheduler == null || scheduler.isShutdown()) {
-             scheduler = Executors.newSingleThreadScheduledExecutor();
-             scheduler.scheduleAtFixedRate(this::randomlyPlaceScantrons, 0, 2, TimeUnit.MINUTES);
+
+         // Build the whole new overlay (items that were not chosen go back to 0), then publish it in one write.
+         Arrays.sort(next, 0, placed);
+         int[] ordinals = new int[placed];
+         int[] counts = new int[placed];
+         for (int slot = 0; slot < placed; slot++) {
+             ordinals[slot] = (int) (next[slot] >>> 32);
+             counts[slot] = (int) next[slot];
          }
+         Placement current;
+         do {
+             current = placement.get();
+         } while (!placement.compareAndSet(current, new Placement(current.version + 1, ordinals, counts)));
      }
- 
-     // Stop the scheduled task to randomly place scantrons
-     public void stopRandomPlacementTask() {
-         if (scheduler != null && !scheduler.isShutdown()) {
-             scheduler.shutdown();
-             try {
-                 if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                     scheduler.shutdownNow();
+
+     /**
+      * Picks distinct item ordinals in random order without shuffling the whole items list.
+      * @param count number of items to choose (at most items.size())
+      * @return chosen ordinals
+      */
+     private int[] chooseRandomItems(int count) {
+         int[] chosen = new int[count];
+
+         // Floyd's sampling: a uniform random set of ordinals in O(count).
+         for (int slot = 0, bound = items.size() - count; slot < count; slot++, bound++) {
+             int candidate = random.nextInt(bound + 1);
+             for (int previous = 0; previous < slot; previous++) {
+                 if (chosen[previous] == candidate) {
+                     candidate = bound;
+                     break;
                  }
-             } catch (InterruptedException e) {
-                 scheduler.shutdownNow();
              }
+             chosen[slot] = candidate;
+         }
+
+         // Shuffle the (small) set so the order in which scantrons are handed out is random too.
+         for (int slot = count - 1; slot > 0; slot--) {
+             int other = random.nextInt(slot + 1);
+             int swap = chosen[slot];
+             chosen[slot] = chosen[other];
+             chosen[other] = swap;
+         }
+         return chosen;
+     }
+
+     // Start the timer that randomly places scantrons every two minutes on the shared timing wheel
+     public synchronized void startRandomPlacementTask() {
+         if (placementTimer == null) {
+             randomlyPlaceScantrons();
+             resumeRandomPlacementTask();
+         }
+     }
+
+     // Restart the reshuffle timer of a restored session, keeping its current placement
+     public synchronized void resumeRandomPlacementTask() {
+         if (placementTimer == null) {
+             placementTimer = timingWheel.scheduleAtFixedRate(this::onPlacementTimer,
+                     PLACEMENT_PERIOD_MINUTES, PLACEMENT_PERIOD_MINUTES, TimeUnit.MINUTES);
+         }
+     }
+
+     /**
+      * Make the timer only mark reshuffles as due, to be applied by the session thread with applyDueReshuffle.
+      * @param deferred
+      */
+     public void setDeferredReshuffles(boolean deferred) {
+         this.deferredReshuffles = deferred;
+     }
+
+     /**
+      * Apply a reshuffle the timer has marked as due (deferred mode only).
+      * @return true if the scantrons were reshuffled
+      */
+     public boolean applyDueReshuffle() {
+         if (!reshuffleDue) {
+             return false;
+         }
+         reshuffleDue = false;
+         randomlyPlaceScantrons();
+         return true;
+     }
+
+     private void onPlacementTimer() {
+         requestReshuffle();
+     }
+
+     // Reshuffle as the timer does: marked as due in deferred mode, applied now otherwise
+     public void requestReshuffle() {
+         if (deferredReshuffles) {
+             reshuffleDue = true;
+         } else {
+             randomlyPlaceScantrons();
+         }
+     }
+
+     // Cancel the timer that randomly places scantrons
+     public synchronized void stopRandomPlacementTask() {
+         if (placementTimer != null) {
+             placementTimer.cancel();
+             placementTimer = null;
          }
      }
 
@@ -79,13 +264,106 @@
      * @return itemCount
      */
     public int getItemCountInRoom(int roomId) {
-        for (Item item : items) {
-            if (item.getItemId() == roomId) {
-                return item.getItemCount();
+        Placement current = placement.get();
+        int itemCount = 0;
+        int end = itemIndex.roomEnd(roomId);
+
+        for (int ordinal = itemIndex.roomStart(roomId); ordinal < end; ordinal++) {
+            itemCount += current.count(ordinal);
+        }
+        return itemCount;
+    }
+
+    /* ========================== SAVE & RESTORE ========================== */
+
+    /**
+     * Write this session's item counts (the current placement).
+     * @param out
+     */
+    public void saveState(SessionCodec.Encoder out) {
+        Placement current = placement.get();
+        out.writeVarLong(current.version);
+        out.writeVarInt(current.ordinals.length);
+        for (int slot = 0; slot < current.ordinals.length; slot++) {
+            out.writeVarInt(current.ordinals[slot]);
+            out.writeVarInt(current.countAt(slot));
+        }
+    }
+
+    // Item counts read from a save, not yet applied.
+    public static final class SavedState {
+
+        private final Placement placement;
+
+        private SavedState(Placement placement) {
+            this.placement = placement;
+        }
+    }
+
+    /**
+     * Replace this session's item counts with saved ones.
+     * @param in
+     */
+    public void restoreState(SessionCodec.Decoder in) {
+        applyState(readState(in));
+    }
+
+    /**
+     * Read saved item counts without changing this session.
+     * @param in
+     * @return counts to pass to applyState
+     * @throws IllegalArgumentException if the placement is corrupt
+     */
+    public SavedState readState(SessionCodec.Decoder in) {
+        long version = in.readVarLong();
+        int placed = in.readVarInt();
+        if (placed > items.size()) {
+            throw new IllegalArgumentException("Corrupt session save: too many placed items.");
+        }
+        int[] ordinals = new int[placed];
+        int[] counts = new int[placed];
+        for (int slot = 0; slot < placed; slot++) {
+            ordinals[slot] = in.readVarInt();
+            counts[slot] = in.readVarInt();
+            if (ordinals[slot] >= items.size() || (slot > 0 && ordinals[slot] <= ordinals[slot - 1])) {
+                throw new IllegalArgumentException("Corrupt session save: bad item placement.");
             }
         }
-        return 0;
+        return new SavedState(new Placement(version, ordinals, counts));
     }
- 
+
+    /**
+     * Replace this session's item counts with saved ones.
+     * @param saved from readState
+     */
+    public void applyState(SavedState saved) {
+        placement.set(saved.placement);
+    }
+
+    /* ========================== PLACEMENT ========================== */
+
+    // One published scantron placement: sorted item ordinals and their live counts.
+    private static final class Placement {
+
+        final long version;
+        final int[] ordinals;
+        final AtomicIntegerArray counts;
+
+        Placement(long version, int[] ordinals, int[] counts) {
+            this.version = version;
+            this.ordinals = ordinals;
+            this.counts = new AtomicIntegerArray(counts);
+        }
+
+        int count(int ordinal) {
+            int slot = Arrays.binarySearch(ordinals, ordinal);
+            return slot >= 0 ? countAt(slot) : 0;
+        }
+
+        // Live count of a slot; a failed pickup can leave it briefly negative until it undoes its decrement.
+        int countAt(int slot) {
+            return Math.max(0, counts.get(slot));
+        }
+    }
+
  }
- 
\ No newline at end of file
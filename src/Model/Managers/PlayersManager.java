@@ -6,21 +6,28 @@
 
  import Model.Player;
  import Model.Room;
- import Model.Item;
+ import Model.Inventory;
+ import Model.ItemIndex;
+ import Model.Leaderboard;
+ import Model.RoomIndex;
+ import Model.World;
  import View.View;
 
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.Map;
  public class PlayersManager {
  
      // Dependencies
      private final Player player;
      private final View view;
+     private final ItemIndex itemIndex; // Item keys and display names of the inventory
+     private Leaderboard leaderboard; // Shared ranking the player's GPA is reported to, if any
      
      // Constructor
-     public PlayersManager(Player player) {
+     public PlayersManager(Player player, View view, World world) {
          this.player = player;
-         this.view = new View();
+         this.view = view;
+         this.itemIndex = world.getItemIndex();
      }
  
      // To Access Getters
@@ -42,8 +49,8 @@ import java.util.Map;
      */
     public void setCurrentRoom(Room currentRoom) {
         if (player.getCurrentRoom() != null) {
-            player.getPreviousRoomsList().add(player.getCurrentRoom());
-            player.getCurrentRoom().setHasVisited(true);
+            player.getRoomHistory().add(player.getCurrentRoom().getRoomId());
+            player.markVisited(player.getCurrentRoom().getRoomId());
         }
 
         player.setCurrentRoom(currentRoom);
@@ -55,76 +62,55 @@ import java.util.Map;
      * @return true if the player has visited the room, false otherwise
      */
     public boolean indicateNewRoom(Room nextRoom) {
-        boolean printedMessage = false;
-
-        for (Room room : getPlayer().getPreviousRoomsList()) {
-            if (room.getRoomName().equals(nextRoom.getRoomName())) {
-                if (!printedMessage) {
-                    printedMessage = true;
-                }
-                break;
-            }
-        }
-
-        if (!printedMessage) {
-            printedMessage = false;
-        }
-
-        return printedMessage;
-
+        return player.hasVisited(nextRoom.getRoomId());
     }
 
     /**
      * Add an item to the player's inventory
-     * @param itemName
+     * @param itemKey interned item key (ItemIndex.keyOf)
      */
-    public void addItemToInventory(Item itemName) {
-        player.getInventory().add(itemName);
+    public void addItemToInventory(int itemKey) {
+        player.getInventory().add(itemKey);
     }
 
     /**
-     * Remove an item from the player's inventory
-     * @param itemName
+     * Remove one of an item from the player's inventory
+     * @param itemKey interned item key
+     * @return true if the player had the item, false otherwise
      */
-    public void removeItemFromInventory(Item itemName) {
-        player.getInventory().remove(itemName);
+    public boolean removeItemFromInventory(int itemKey) {
+        return player.getInventory().remove(itemKey);
     }
 
     /**
-     * Check if the player has an item in their inventory
-     * @param itemName
-     * @return true if the player has the item, false otherwise
+     * Count an item in the player's inventory
+     * @param itemKey interned item key
+     * @return number held
      */
-    public void deleteItemFromInventory(String itemName) {
-        for (Item item : getPlayer().getInventory()) {
-            if (item.getItemName().equalsIgnoreCase(itemName)) {
-                getPlayer().getInventory().remove(item);
-                break;
-            }
-        }
+    public int countInInventory(int itemKey) {
+        return player.getInventory().count(itemKey);
     }
 
     // Display the player's inventory
     public void displayInventory() {
-        if (player.getInventory().isEmpty()) {
+        Inventory inventory = player.getInventory();
+        view.onInventoryStart();
+        if (inventory.isEmpty()) {
             view.println("\nYour backpack is empty.");
         } else {
-            Map<String, Integer> itemCount = new HashMap<>();
-
-            for (Item item : player.getInventory()) {
-                itemCount.put(item.getItemName(), itemCount.getOrDefault(item.getItemName(), 0) + 1);
-            }
-
             view.println("\n┌───────────────────────────┐");
             view.println(view.BOLD + "│       BACKPACK ITEMS      │" + view.RESET);
             view.println("├───────────────────────────┤");
 
-            for (Map.Entry<String, Integer> entry : itemCount.entrySet()) {
-                System.out.printf("│ %-20s %2dx  │\n", entry.getKey(), entry.getValue());
+            for (int i = 0; i < inventory.distinctCount(); i++) {
+                int key = inventory.keyAt(i);
+                view.printf("│ %-20s %2dx  │\n", itemIndex.keyName(key), inventory.count(key));
+                view.onInventoryItem(itemIndex.keyName(key), inventory.count(key));
             }
 
             view.println("└───────────────────────────┘");
         }
+        view.onInventoryEnd();
     }
 
     // Display the player's grades
@@ -148,15 +134,16 @@ import java.util.Map;
             view.println("│  No grades recorded yet.  │");
         } else {
             for (Map.Entry<String, String> entry : player.getGrades().entrySet()) {
-                System.out.printf("│ %-15s : %-3s     │\n\n", entry.getKey(), entry.getValue());
+                view.printf("│ %-15s : %-3s     │\n\n", entry.getKey(), entry.getValue());
             }
         }
 
         view.println("├───────────────────────────┤");
 
-        System.out.printf("│ %-15s : %s%-6.2f%s  │\n", "GPA", gpaColor, player.getGpa(), view.RESET);
+        view.printf("│ %-15s : %s%-6.2f%s  │\n", "GPA", gpaColor, player.getGpa(), view.RESET);
 
         view.println("└───────────────────────────┘");
+        view.onReportCard(player.getGrades(), player.getGpa());
     }
 
     /**
@@ -229,6 +216,22 @@ import java.util.Map;
         }
     }
 
+    /**
+     * Report the player's GPA to a shared leaderboard from now on, under the player's name.
+     * @param leaderboard null to stop reporting
+     */
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+        reportGpa();
+    }
+
+    // Puts a named player with grades on the leaderboard, if there is one
+    private void reportGpa() {
+        if (leaderboard != null && player.getPlayerName() != null && !player.getGrades().isEmpty()) {
+            leaderboard.update(player.getPlayerName(), player.getGpa());
+        }
+    }
+
     // Calculate the player's GPA
     public void calculateGpa() {
         double totalGpa = player.getGpa();
@@ -241,7 +244,136 @@ import java.util.Map;
         if (classCount > 0) {
             player.setGpa(totalGpa / classCount);
         }
+        reportGpa();
+    }
+
+    /* ========================== SAVE & RESTORE ========================== */
+
+    /**
+     * Write the player's progress: name, current room, visited rooms, inventory counts, grades and GPA.
+     * @param out
+     * @param world world the session runs in
+     */
+    public void saveState(SessionCodec.Encoder out, World world) {
+        out.writeString(player.getPlayerName());
+        out.writeVarInt(player.getCurrentRoom() == null ? RoomIndex.NO_EXIT : player.getCurrentRoom().getRoomId());
+        out.writeBits(player.getVisitedRooms());
+
+        // Inventory as (item key, count) pairs
+        Inventory inventory = player.getInventory();
+        out.writeVarInt(inventory.distinctCount());
+        for (int i = 0; i < inventory.distinctCount(); i++) {
+            int key = inventory.keyAt(i);
+            out.writeVarInt(key);
+            out.writeVarInt(inventory.count(key));
+        }
+
+        out.writeVarInt(player.getGrades().size());
+        for (Map.Entry<String, String> entry : player.getGrades().entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeString(entry.getValue());
+        }
+        out.writeDouble(player.getGpa());
+    }
+
+    // Player progress read from a save, not yet applied.
+    public static final class SavedState {
+
+        private final String playerName;
+        private final Room currentRoom;
+        private final BitSet visitedRooms;
+        private final int[] itemKeys;
+        private final int[] itemCounts;
+        private final String[] courses; // In save order, so the grades map is rebuilt as it was
+        private final String[] grades;
+        private final double gpa;
+
+        private SavedState(String playerName, Room currentRoom, BitSet visitedRooms, int[] itemKeys, int[] itemCounts,
+                           String[] courses, String[] grades, double gpa) {
+            this.playerName = playerName;
+            this.currentRoom = currentRoom;
+            this.visitedRooms = visitedRooms;
+            this.itemKeys = itemKeys;
+            this.itemCounts = itemCounts;
+            this.courses = courses;
+            this.grades = grades;
+            this.gpa = gpa;
+        }
+
+        // Getters
+        public Room getCurrentRoom() { return currentRoom; }
+    }
+
+    /**
+     * Read saved player progress without changing the player.
+     * @param in
+     * @param world world the session runs in
+     * @return progress to pass to applyState
+     * @throws IllegalArgumentException if the save names an unknown room or item
+     */
+    public SavedState readState(SessionCodec.Decoder in, World world) {
+        String playerName = in.readString();
+        int roomId = in.readVarInt();
+        Room currentRoom = null;
+        if (roomId != RoomIndex.NO_EXIT) {
+            currentRoom = world.getRoomIndex().findRoomById(roomId);
+            if (currentRoom == null) {
+                throw new IllegalArgumentException("Corrupt session save: unknown room " + roomId + ".");
+            }
+        }
+        BitSet visitedRooms = in.readBits();
+
+        int entries = in.readVarInt();
+        if (entries > itemIndex.keyCount()) {
+            throw new IllegalArgumentException("Corrupt session save: too many inventory items.");
+        }
+        int[] itemKeys = new int[entries];
+        int[] itemCounts = new int[entries];
+        for (int i = 0; i < entries; i++) {
+            itemKeys[i] = in.readVarInt();
+            itemCounts[i] = in.readVarInt();
+            if (itemKeys[i] >= itemIndex.keyCount() || itemCounts[i] < 0) {
+                throw new IllegalArgumentException("Corrupt session save: unknown item " + itemKeys[i] + ".");
+            }
+        }
+
+        int gradeCount = in.readVarInt();
+        if (gradeCount > in.remaining()) {
+            throw new IllegalArgumentException("Corrupt session save: too many grades.");
+        }
+        String[] courses = new String[gradeCount];
+        String[] grades = new String[gradeCount];
+        for (int i = 0; i < gradeCount; i++) {
+            courses[i] = in.readString();
+            grades[i] = in.readString();
+            if (courses[i] == null || grades[i] == null) {
+                throw new IllegalArgumentException("Corrupt session save: missing grade.");
+            }
+        }
+        return new SavedState(playerName, currentRoom, visitedRooms, itemKeys, itemCounts, courses, grades, in.readDouble());
+    }
+
+    /**
+     * Replace the player's progress with a saved one.
+     * @param saved from readState
+     */
+    public void applyState(SavedState saved) {
+        player.setPlayerName(saved.playerName);
+        player.setCurrentRoom(saved.currentRoom);
+        player.getVisitedRooms().clear();
+        player.getVisitedRooms().or(saved.visitedRooms);
+        player.getRoomHistory().clear(); // Recent moves are not part of a save
+
+        player.getInventory().clear();
+        for (int i = 0; i < saved.itemKeys.length; i++) {
+            player.getInventory().add(saved.itemKeys[i], saved.itemCounts[i]);
+        }
+
+        player.getGrades().clear();
+        for (int i = 0; i < saved.courses.length; i++) {
+            player.getGrades().put(saved.courses[i], saved.grades[i]);
+        }
+        player.setGpa(saved.gpa);
+        reportGpa();
     }
- 
  }
- 
\ No newline at end of file
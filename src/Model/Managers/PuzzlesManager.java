@@ -1,27 +1,46 @@
 /*
- * PuzzlesManager Class: Manages puzzle behaviors. 
+ * PuzzlesManager Class: Manages puzzle behaviors.
+ *
+ * Puzzle definitions and the room/type index are shared by every session; the puzzles solved in this session
+ * are kept as a bitset indexed by puzzle ordinal (position in the world's puzzles list). Because the puzzles of a
+ * room and type form one ordinal range, finding unsolved puzzles only touches the bits of that range.
  */
 
  package Model.Managers;
 
  import Model.Puzzle;
+ import Model.PuzzleIndex;
+ import Model.World;
+ import View.View;
  
  import java.util.ArrayList;
- import java.util.HashMap;
+ import java.util.BitSet;
  import java.util.List;
- import java.util.Map;
   
   public class PuzzlesManager {
   
      // Dependencies
+      private final World world;
       private final List<Puzzle> puzzles;
+      private final PuzzleIndex puzzleIndex;
+      private final BitSet solvedPuzzles = new BitSet(); // Session overlay, indexed by puzzle ordinal
+      private final View view;
       private static final int REQUIRED_SCANTRONS_FOR_QUIZ = 1;
       private static final int REQUIRED_SCANTRONS_FOR_EXAM = 2;
   
       // Constructor
-      public PuzzlesManager(List<Puzzle> puzzles) {
-          this.puzzles = puzzles;
-          assignPuzzlesToRooms();
+      public PuzzlesManager(World world, View view) {
+          this.world = world;
+          this.view = view;
+          this.puzzles = world.getPuzzles();
+          this.puzzleIndex = world.getPuzzleIndex();
+
+          // Start from the solved flags in the data file.
+          for (int ordinal = 0; ordinal < puzzles.size(); ordinal++) {
+              if (puzzles.get(ordinal).getIsSolved()) {
+                  solvedPuzzles.set(ordinal);
+              }
+          }
       }
   
       // To Access Getters
@@ -29,48 +48,80 @@
          return puzzles; 
       }
   
-      // Assign puzzles to rooms
-      public void assignPuzzlesToRooms() {
-          Map<Integer, List<Puzzle>> roomToPuzzlesMap = new HashMap<>();
-  
-          for (Puzzle puzzle : puzzles) {
-              int roomId = puzzle.getRoomId();
-              
-              if (!roomToPuzzlesMap.containsKey(roomId)) {
-                  roomToPuzzlesMap.put(roomId, new ArrayList<>());
-              }
-              roomToPuzzlesMap.get(roomId).add(puzzle);
+      /**
+       * Check if a puzzle has been solved in this session.
+       * @param puzzle
+       * @return true if the puzzle is solved
+       */
+      public boolean isSolved(Puzzle puzzle) {
+          int ordinal = world.puzzleOrdinal(puzzle);
+          return ordinal >= 0 && solvedPuzzles.get(ordinal);
+      }
+
+      /**
+       * Mark a puzzle as solved in this session.
+       * @param puzzle
+       */
+      public void markSolved(Puzzle puzzle) {
+          int ordinal = world.puzzleOrdinal(puzzle);
+          if (ordinal >= 0) {
+              solvedPuzzles.set(ordinal);
           }
       }
-  
+
       /**
        * Get all puzzles in a room.
        * @param roomId
-       * @return List of puzzles in the room.
+       * @return List of puzzles in the room (a read-only view, not a copy).
        */
       public List<Puzzle> getPuzzlesByRoomId(int roomId) {
-          List<Puzzle> puzzlesInRoom = new ArrayList<>();
-          for (Puzzle puzzle : puzzles) {
-              if (puzzle.getRoomId() == roomId) {
-                  puzzlesInRoom.add(puzzle);
-              }
-          }
-          return puzzlesInRoom;
+          return puzzleIndex.getPuzzlesInRoom(roomId);
       }
   
       /**
        * Get all puzzles of a specific type.
        * @param type
-       * @return List of puzzles of the specified type.
+       * @return List of puzzles of the specified type (a read-only view, not a copy).
        */
       public List<Puzzle> getPuzzlesByType(String type) {
-          List<Puzzle> filteredPuzzles = new ArrayList<>();
-          for (Puzzle puzzle : puzzles) {
-              if (puzzle.getClass().getSimpleName().equalsIgnoreCase(type)) {
-                  filteredPuzzles.add(puzzle);
-              }
+          return puzzleIndex.getPuzzlesOfType(type);
+      }
+
+      /**
+       * Check if a room still has unsolved puzzles of a type.
+       * @param roomId
+       * @param type
+       * @return true if at least one puzzle of that type is unsolved
+       */
+      public boolean hasUnsolvedPuzzles(int roomId, String type) {
+          int typeId = puzzleIndex.typeId(type);
+          if (typeId < 0) {
+              return false;
+          }
+          return solvedPuzzles.nextClearBit(puzzleIndex.rangeStart(roomId, typeId)) < puzzleIndex.rangeEnd(roomId, typeId);
+      }
+
+      /**
+       * Get the first unsolved puzzles of a type in a room, in data file order.
+       * @param roomId
+       * @param type
+       * @param limit maximum number of puzzles to return
+       * @return List of at most limit unsolved puzzles
+       */
+      public List<Puzzle> getUnsolvedPuzzles(int roomId, String type, int limit) {
+          int typeId = puzzleIndex.typeId(type);
+          if (typeId < 0) {
+              return List.of();
           }
-          return filteredPuzzles;
+
+          int end = puzzleIndex.rangeEnd(roomId, typeId);
+          List<Puzzle> unsolved = new ArrayList<>(limit);
+          for (int ordinal = solvedPuzzles.nextClearBit(puzzleIndex.rangeStart(roomId, typeId));
+               ordinal < end && unsolved.size() < limit;
+               ordinal = solvedPuzzles.nextClearBit(ordinal + 1)) {
+              unsolved.add(puzzles.get(ordinal));
+          }
+          return unsolved;
       }
   
      /**
@@ -105,12 +156,44 @@
          boolean scantronMessagePrinted = false;
  
          if (!scantronMessagePrinted && playerScantrons < requiredScantrons) {
-             System.out.println("\nYou need " + requiredScantrons + " scantron(s) to take the " + puzzleType + ".");
+             view.println("\nYou need " + requiredScantrons + " scantron(s) to take the " + puzzleType + ".");
+             view.onScantronsRequired(puzzleType, requiredScantrons, playerScantrons);
              scantronMessagePrinted = true;
          }
      
          return playerScantrons >= requiredScantrons;
      }
- 
+
+      /* ========================== SAVE & RESTORE ========================== */
+
+      /**
+       * Write the puzzles solved in this session.
+       * @param out
+       */
+      public void saveState(SessionCodec.Encoder out) {
+          out.writeBits(solvedPuzzles);
+      }
+
+      /**
+       * Read the solved puzzles of a save without changing this session.
+       * @param in
+       * @return solved puzzle ordinals to pass to applyState
+       * @throws IllegalArgumentException if the save names an unknown puzzle
+       */
+      public BitSet readState(SessionCodec.Decoder in) {
+          BitSet solved = in.readBits();
+          if (solved.length() > puzzles.size()) {
+              throw new IllegalArgumentException("Corrupt session save: unknown puzzle.");
+          }
+          return solved;
+      }
+
+      /**
+       * Replace the puzzles solved in this session with saved ones.
+       * @param solved from readState
+       */
+      public void applyState(BitSet solved) {
+          solvedPuzzles.clear();
+          solvedPuzzles.or(solved);
+      }
   }
-  
\ No newline at end of file
@@ -1,10 +1,12 @@
 /*
- * RoomsManager Class: Manages room behaviors. 
+ * RoomsManager Class: Manages room behaviors. Lookups go through the world's shared RoomIndex.
  */
 
  package Model.Managers;
 
  import Model.Room;
+ import Model.RoomIndex;
+ import Model.World;
  
  import java.util.List;
  
@@ -12,59 +14,51 @@
  
      // Dependencies
      private final List<Room> rooms;
+     private final RoomIndex roomIndex;
  
      // Constructor
-     public RoomsManager(List<Room> rooms) {
-         this.rooms = rooms;
+     public RoomsManager(World world) {
+         this.rooms = world.getRooms();
+         this.roomIndex = world.getRoomIndex();
      }
  
      // To Access Getters
-     public Room getRooms(int roomId) {
-         return rooms.get(roomId);
+     public List<Room> getRooms() {
+         return rooms;
+     }
+
+     // The room with the lowest id is where every player starts.
+     public Room getStartingRoom() {
+         return roomIndex.getStartingRoom();
      }
  
      /**
       * Get the next room id based on user input
       * @param roomId
-      * @param userInput
-      * @return nextRoomId
+      * @param direction
+      * @return nextRoomId (0 if there is no exit that way)
       */
      public int getRoomExitId(int roomId, String direction) {
-         int nextRoomId = 0;
-         Room currentRoom = findRoomById(roomId);
- 
-         switch (direction) {
-             case "n":
-             case "north":
-                 nextRoomId = currentRoom.getNorthExit();
-                 break;
-             case "e":
-             case "east":
-                 nextRoomId = currentRoom.getEastExit();
-                 break;
-             case "s":
-             case "south":
-                 nextRoomId = currentRoom.getSouthExit();
-                 break;
-             case "w":
-             case "west":
-                 nextRoomId = currentRoom.getWestExit();
-                 break;
-         }
-                 return nextRoomId;
+         return roomIndex.getExitId(roomId, RoomIndex.parseDirection(direction));
+     }
+
+     /**
+      * Get the next room id for a parsed direction
+      * @param roomId
+      * @param direction one of the RoomIndex direction constants
+      * @return nextRoomId (0 if there is no exit that way)
+      */
+     public int getRoomExitId(int roomId, int direction) {
+         return roomIndex.getExitId(roomId, direction);
      }
  
      /**
-      * Find a room by its id in the rooms list
+      * Find a room by its id
       * @param roomId
       * @return room
       */
      public Room findRoomById(int roomId) {
-         return rooms.stream()
-                 .filter(room -> room.getRoomId() == roomId)
-                 .findFirst()
-                 .orElse(null);
+         return roomIndex.findRoomById(roomId);
      }
  
  }
- 
\ No newline at end of file
@@ -0,0 +1,264 @@
+/*
+ * SessionCodec Class: Compact versioned binary encoding of a session's progress, used to save, checkpoint and
+ * restore sessions.
+ *
+ * Layout:
+ *   header   MAGIC (4 bytes), VERSION (1 byte), roomCount, itemCount, puzzleCount of the world it was saved in
+ *   body     written by CommandProcessor and the managers, in order: session phase and puzzle state, player,
+ *            item placement, solved puzzles
+ * Integers are unsigned LEB128 varints, so small ids and counts take one byte; doubles and bitset words are
+ * 8 bytes big-endian; strings are a varint (length + 1, 0 for null) followed by UTF-8 bytes. A save of a typical
+ * session is well under 200 bytes and is written into a reusable buffer without intermediate objects.
+ *
+ * The same encoder and decoder also read and write headerless parts (e.g. just the item placement) for the command log.
+ */
+
+package Model.Managers;
+
+import Model.World;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+public final class SessionCodec {
+
+    // Format constants
+    public static final int MAGIC = 0x43435353; // "CCSS"
+    public static final int VERSION = 2; // 2: inventory stored by item key instead of item ordinal
+
+    private SessionCodec() { } // Utility class
+
+    /* ========================== ENCODER ========================== */
+
+    // Growable output buffer; reuse one per session to avoid allocating on every checkpoint.
+    public static final class Encoder {
+
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        /**
+         * Starts a new save for a session of the given world.
+         * @param world
+         * @return this
+         */
+        public Encoder begin(World world) {
+            size = 0;
+            writeInt(MAGIC);
+            writeByte(VERSION);
+            writeVarInt(world.getRooms().size());
+            writeVarInt(world.getItems().size());
+            writeVarInt(world.getPuzzles().size());
+            return this;
+        }
+
+        /**
+         * Starts a headerless part, such as one log record.
+         * @return this
+         */
+        public Encoder reset() {
+            size = 0;
+            return this;
+        }
+
+        // Copy of the encoded save
+        public byte[] toByteArray() { return Arrays.copyOf(bytes, size); }
+        public int size() { return size; }
+
+        public void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        public void writeBoolean(boolean value) {
+            writeByte(value ? 1 : 0);
+        }
+
+        public void writeInt(int value) {
+            ensureCapacity(4);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        public void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                bytes[size++] = (byte) (value >>> shift);
+            }
+        }
+
+        public void writeDouble(double value) {
+            writeLong(Double.doubleToLongBits(value));
+        }
+
+        // Non-negative int as an unsigned varint
+        public void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        public void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        public void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length + 1);
+            ensureCapacity(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        public void writeBits(BitSet bits) {
+            long[] words = bits.toLongArray();
+            writeVarInt(words.length);
+            for (long word : words) {
+                writeLong(word);
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(size + extra, bytes.length * 2));
+            }
+        }
+    }
+
+    /* ========================== DECODER ========================== */
+
+    // Reads a save written by Encoder; malformed input fails with IllegalArgumentException.
+    public static final class Decoder {
+
+        private final byte[] bytes;
+        private final int limit;
+        private int position;
+
+        /**
+         * Checks the header of a save and positions the decoder at its body.
+         * @param bytes
+         * @param world world the session is restored into
+         * @throws IllegalArgumentException if the save is not a session save, has an unsupported version or
+         *         belongs to a world of a different shape
+         */
+        public Decoder(byte[] bytes, World world) {
+            this(bytes, 0, bytes.length);
+            if (bytes.length < 5 || readInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a session save.");
+            }
+            int version = readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported session save version " + version + ".");
+            }
+            if (readVarInt() != world.getRooms().size() || readVarInt() != world.getItems().size()
+                    || readVarInt() != world.getPuzzles().size()) {
+                throw new IllegalArgumentException("Session save belongs to a different world.");
+            }
+        }
+
+        /**
+         * Reads a headerless part, such as one log record.
+         * @param bytes
+         * @param offset
+         * @param length
+         */
+        public Decoder(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.position = offset;
+            this.limit = offset + length;
+        }
+
+        // Whether the whole save has been read
+        public boolean isComplete() { return position == limit; }
+
+        // Bytes left to read, e.g. to bound a count before allocating for it
+        public int remaining() { return limit - position; }
+
+        public int readByte() {
+            require(1);
+            return bytes[position++] & 0xFF;
+        }
+
+        public boolean readBoolean() {
+            return readByte() != 0;
+        }
+
+        public int readInt() {
+            require(4);
+            int value = 0;
+            for (int i = 0; i < 4; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        public long readLong() {
+            require(8);
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (bytes[position++] & 0xFF);
+            }
+            return value;
+        }
+
+        public double readDouble() {
+            return Double.longBitsToDouble(readLong());
+        }
+
+        public int readVarInt() {
+            long value = readVarLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Corrupt session save: value out of range.");
+            }
+            return (int) value;
+        }
+
+        public long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Corrupt session save: varint too long.");
+        }
+
+        public String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            require(length);
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        public BitSet readBits() {
+            int count = readVarInt();
+            require(count * 8L);
+            long[] words = new long[count];
+            for (int i = 0; i < count; i++) {
+                words[i] = readLong();
+            }
+            return BitSet.valueOf(words);
+        }
+
+        private void require(long count) {
+            if (count > limit - position) {
+                throw new IllegalArgumentException("Corrupt session save: truncated.");
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * TimingWheel Class: Engine-wide hierarchical timing wheel that runs the timed events of every session (scantron
+ * reshuffles and any other per-session timers) on one daemon thread.
+ *
+ * Time is split into ticks. Level 0 has one bucket per tick for the next WHEEL_SIZE ticks; every higher level has
+ * buckets WHEEL_SIZE times wider. A timer sits in the lowest level that can hold its deadline and is moved down one
+ * level when the wheel reaches its bucket, so each tick only touches the timers that are due (plus an amortized
+ * constant number of moves per timer) no matter how many sessions are scheduled.
+ *
+ * Scheduling and cancelling are thread-safe: callers hand timers to the wheel thread through lock-free queues and
+ * only the wheel thread touches the buckets. Tasks run on the wheel thread and must be short.
+ */
+
+ package Model.Managers;
+
+ import java.util.concurrent.ConcurrentLinkedQueue;
+ import java.util.concurrent.TimeUnit;
+ import java.util.concurrent.atomic.AtomicInteger;
+ import java.util.concurrent.locks.LockSupport;
+
+ public final class TimingWheel {
+
+     // Wheel geometry
+     private static final int WHEEL_BITS = 6;
+     private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+     private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+     private static final int LEVELS = 6; // 64^6 ticks, about 218 years at 100 ms per tick
+     private static final long DEFAULT_TICK_MILLIS = 100;
+
+     // Engine-wide instance
+     private static final class SharedHolder {
+         static final TimingWheel INSTANCE = new TimingWheel(DEFAULT_TICK_MILLIS, TimeUnit.MILLISECONDS);
+     }
+
+     private final long tickNanos;
+     private final long startNanos;
+     private final Timeout[][] buckets = new Timeout[LEVELS][WHEEL_SIZE]; // Heads of intrusive lists
+     private final ConcurrentLinkedQueue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+     private final ConcurrentLinkedQueue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+     private final AtomicInteger workerState = new AtomicInteger(WORKER_INIT);
+     private long currentTick; // Owned by the wheel thread
+
+     private static final int WORKER_INIT = 0;
+     private static final int WORKER_STARTED = 1;
+     private static final int WORKER_SHUTDOWN = 2;
+
+     // Constructor
+     public TimingWheel(long tickDuration, TimeUnit unit) {
+         this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+         this.startNanos = System.nanoTime();
+     }
+
+     // The timing wheel shared by every session in this JVM
+     public static TimingWheel shared() {
+         return SharedHolder.INSTANCE;
+     }
+
+     /**
+      * Run a task once after a delay.
+      * @param task
+      * @param delay
+      * @param unit
+      * @return handle used to cancel the task
+      */
+     public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+         return add(new Timeout(this, task, deadlineTick(unit.toNanos(delay)), 0));
+     }
+
+     /**
+      * Run a task after an initial delay and then once every period, until it is cancelled.
+      * @param task
+      * @param initialDelay
+      * @param period
+      * @param unit
+      * @return handle used to cancel the task
+      */
+     public Timeout scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+         long periodTicks = Math.max(1, unit.toNanos(period) / tickNanos);
+         return add(new Timeout(this, task, deadlineTick(unit.toNanos(initialDelay)), periodTicks));
+     }
+
+     // Stops the wheel thread; timers that have not fired are dropped.
+     public void shutdown() {
+         if (workerState.getAndSet(WORKER_SHUTDOWN) == WORKER_STARTED) {
+             LockSupport.unpark(worker);
+         }
+     }
+
+     /* ========================== SCHEDULING ========================== */
+
+     private volatile Thread worker;
+
+     private long deadlineTick(long delayNanos) {
+         long elapsed = System.nanoTime() - startNanos + Math.max(0, delayNanos);
+         return (elapsed + tickNanos - 1) / tickNanos;
+     }
+
+     private Timeout add(Timeout timeout) {
+         if (workerState.get() == WORKER_INIT && workerState.compareAndSet(WORKER_INIT, WORKER_STARTED)) {
+             Thread thread = new Thread(this::run, "timing-wheel");
+             thread.setDaemon(true);
+             worker = thread;
+             thread.start();
+         }
+         pendingTimeouts.add(timeout);
+         return timeout;
+     }
+
+     // Main loop of the wheel thread: wait for the next tick, then process it.
+     private void run() {
+         while (workerState.get() == WORKER_STARTED) {
+             long tickStart = startNanos + (currentTick + 1) * tickNanos;
+             long wait = tickStart - System.nanoTime();
+             if (wait > 0) {
+                 LockSupport.parkNanos(this, wait);
+                 continue;
+             }
+             currentTick++;
+             processCancellations();
+             processPendingTimeouts();
+             cascade();
+             expire();
+         }
+     }
+
+     private void processPendingTimeouts() {
+         Timeout timeout;
+         while ((timeout = pendingTimeouts.poll()) != null) {
+             if (timeout.state.get() == Timeout.PENDING) {
+                 insert(timeout);
+             }
+         }
+     }
+
+     private void processCancellations() {
+         Timeout timeout;
+         while ((timeout = cancelledTimeouts.poll()) != null) {
+             unlink(timeout);
+         }
+     }
+
+     // Moves timers from the higher-level buckets the wheel just reached into lower levels.
+     private void cascade() {
+         for (int level = 1; level < LEVELS; level++) {
+             if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                 break; // Higher levels only turn when this one wraps
+             }
+             int slot = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+             Timeout timeout = buckets[level][slot];
+             buckets[level][slot] = null;
+             while (timeout != null) {
+                 Timeout next = timeout.next;
+                 timeout.prev = null;
+                 timeout.next = null;
+                 timeout.level = -1;
+                 insert(timeout);
+                 timeout = next;
+             }
+         }
+     }
+
+     // Runs every timer in the current level-0 bucket.
+     private void expire() {
+         int slot = (int) (currentTick & WHEEL_MASK);
+         Timeout timeout = buckets[0][slot];
+         buckets[0][slot] = null;
+
+         while (timeout != null) {
+             Timeout next = timeout.next;
+             timeout.prev = null;
+             timeout.next = null;
+             timeout.level = -1;
+
+             if (timeout.state.get() == Timeout.PENDING) {
+                 try {
+                     timeout.task.run();
+                 } catch (RuntimeException e) {
+                     System.err.println("Timed task failed: " + e);
+                 }
+
+                 if (timeout.periodTicks > 0) {
+                     timeout.deadlineTick += timeout.periodTicks;
+                     if (timeout.state.get() == Timeout.PENDING) {
+                         insert(timeout);
+                     }
+                 } else {
+                     timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED);
+                 }
+             }
+             timeout = next;
+         }
+     }
+
+     // Puts a timer in the lowest level whose span covers its deadline.
+     private void insert(Timeout timeout) {
+         long deadline = Math.max(timeout.deadlineTick, currentTick);
+         long delta = deadline - currentTick;
+         int level = 0;
+         while (level < LEVELS - 1 && delta >= (1L << (WHEEL_BITS * (level + 1)))) {
+             level++;
+         }
+         int slot = (int) ((deadline >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+
+         timeout.level = level;
+         timeout.slot = slot;
+         timeout.prev = null;
+         timeout.next = buckets[level][slot];
+         if (timeout.next != null) {
+             timeout.next.prev = timeout;
+         }
+         buckets[level][slot] = timeout;
+     }
+
+     private void unlink(Timeout timeout) {
+         if (timeout.level < 0) {
+             return; // Not in a bucket (never inserted, or currently running)
+         }
+         if (timeout.prev != null) {
+             timeout.prev.next = timeout.next;
+         } else {
+             buckets[timeout.level][timeout.slot] = timeout.next;
+         }
+         if (timeout.next != null) {
+             timeout.next.prev = timeout.prev;
+         }
+         timeout.prev = null;
+         timeout.next = null;
+         timeout.level = -1;
+     }
+
+     /* ========================== TIMEOUT HANDLE ========================== */
+
+     // Handle of a scheduled task.
+     public static final class Timeout {
+
+         private static final int PENDING = 0;
+         private static final int CANCELLED = 1;
+         private static final int EXPIRED = 2;
+
+         private final TimingWheel wheel;
+         private final Runnable task;
+         private final long periodTicks;
+         private final AtomicInteger state = new AtomicInteger(PENDING);
+
+         // Wheel-thread state
+         private long deadlineTick;
+         private int level = -1;
+         private int slot;
+         private Timeout prev;
+         private Timeout next;
+
+         private Timeout(TimingWheel wheel, Runnable task, long deadlineTick, long periodTicks) {
+             this.wheel = wheel;
+             this.task = task;
+             this.deadlineTick = deadlineTick;
+             this.periodTicks = periodTicks;
+         }
+
+         /**
+          * Cancel the task. A periodic task will not run again; a task that is running right now finishes.
+          * @return true if this call cancelled the task
+          */
+         public boolean cancel() {
+             if (state.compareAndSet(PENDING, CANCELLED)) {
+                 wheel.cancelledTimeouts.add(this);
+                 return true;
+             }
+             return false;
+         }
+
+         public boolean isCancelled() { return state.get() == CANCELLED; }
+     }
+ }
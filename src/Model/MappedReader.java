@@ -0,0 +1,309 @@
+/*
+ * MappedReader Class (DAO Class): Loader mode of the Reader that memory-maps the data files and parses the
+ * pipe-delimited fields in a single pass, without regular expressions or intermediate String arrays.
+*/
+
+package Model;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+
+public class MappedReader extends Reader {
+
+    // Field delimiters used by the data files
+    private static final byte FIELD_DELIMITER = '|';
+    private static final byte EXIT_DELIMITER = '-';
+    private static final int HEADER_LINES = 2;
+
+    // Constructors
+    public MappedReader() { super(); }
+    public MappedReader(String dataDirectory) { super(dataDirectory); }
+
+    /**
+     * Reads and parses rooms data from a memory-mapped 'rooms.txt'.
+     * @return ArrayList of Room objects.
+     */
+    @Override
+    public ArrayList<Room> loadRoomsFromFile() {
+        ArrayList<Room> roomsList = new ArrayList<>();
+
+        try {
+            FieldCursor cursor = FieldCursor.map(dataFile("rooms.txt"));
+            cursor.skipLines(HEADER_LINES);
+
+            while (!cursor.atEnd()) {
+                int roomId = cursor.nextInt(FIELD_DELIMITER);
+                boolean hasVisited = cursor.nextBoolean(FIELD_DELIMITER);
+                String roomName = cursor.nextString(FIELD_DELIMITER, false);
+                String roomDescription = cursor.nextString(FIELD_DELIMITER, false);
+
+                // Parse the exit IDs (N-E-S-W).
+                int northExit = cursor.nextInt(EXIT_DELIMITER);
+                int eastExit = cursor.nextInt(EXIT_DELIMITER);
+                int southExit = cursor.nextInt(EXIT_DELIMITER);
+                int westExit = cursor.nextInt(EXIT_DELIMITER);
+                cursor.endLine();
+
+                roomsList.add(new Room(roomId, hasVisited, roomName, roomDescription, northExit, eastExit, southExit, westExit));
+            }
+
+            roomsList.sort(Comparator.comparingInt(Room::getRoomId));
+
+        } catch (IOException e) {
+            logError("Error reading 'rooms.txt'", e.getMessage());
+        } catch (NumberFormatException e) {
+            logError("Error parsing data", e.getMessage());
+        }
+
+        return roomsList;
+    }
+
+    /**
+     * Reads and parses items data from a memory-mapped 'items.txt'.
+     * @return ArrayList of Item objects.
+     */
+    @Override
+    public ArrayList<Item> loadItemsFromFile() {
+        ArrayList<Item> itemsList = new ArrayList<>();
+
+        try {
+            FieldCursor cursor = FieldCursor.map(dataFile("items.txt"));
+            cursor.skipLines(HEADER_LINES);
+
+            while (!cursor.atEnd()) {
+                int roomId = cursor.nextInt(FIELD_DELIMITER);
+                String itemName = cursor.nextString(FIELD_DELIMITER, false);
+                String itemDescription = cursor.nextString(FIELD_DELIMITER, false);
+                int itemCount = cursor.nextInt(FIELD_DELIMITER);
+                cursor.endLine();
+
+                itemsList.add(new Item(roomId, itemName, itemDescription, itemCount));
+            }
+
+            itemsList.sort(Comparator.comparingInt(Item::getItemId));
+
+        } catch (IOException e) {
+            logError("Error reading 'items.txt'", e.getMessage());
+        } catch (NumberFormatException e) {
+            logError("Error", "Input should be a valid string. " + e.getMessage());
+        }
+
+        return itemsList;
+    }
+
+    /**
+     * Reads and parses puzzles data from a memory-mapped 'puzzles.txt'.
+     * @return ArrayList of Puzzle objects.
+     */
+    @Override
+    public ArrayList<Puzzle> loadPuzzlesFromFile() {
+        ArrayList<Puzzle> puzzlesList = new ArrayList<>();
+
+        try {
+            FieldCursor cursor = FieldCursor.map(dataFile("puzzles.txt"));
+            cursor.skipLines(HEADER_LINES);
+
+            while (!cursor.atEnd()) {
+                if (cursor.skipBlankLine()) continue; // Skip empty lines.
+
+                int roomID = cursor.nextInt(FIELD_DELIMITER);
+                String puzzleType = cursor.nextString(FIELD_DELIMITER, true);
+                String question = cursor.nextString(FIELD_DELIMITER, true);
+                String optionA = cursor.nextString(FIELD_DELIMITER, true);
+                String optionB = cursor.nextString(FIELD_DELIMITER, true);
+                String optionC = cursor.nextString(FIELD_DELIMITER, true);
+                String optionD = cursor.nextString(FIELD_DELIMITER, true);
+                String correctAnswer = cursor.nextString(FIELD_DELIMITER, true);
+                boolean isSolved = cursor.nextBoolean(FIELD_DELIMITER);
+                cursor.endLine();
+
+                puzzlesList.add(new Puzzle(roomID, puzzleType, question, optionA, optionB, optionC, optionD, correctAnswer, isSolved));
+            }
+
+            puzzlesList.sort(Comparator.comparingInt(Puzzle::getRoomId));
+
+        } catch (IOException e) {
+            logError("Error reading 'puzzles.txt'", e.getMessage());
+        } catch (NumberFormatException e) {
+            logError("Error", "Input should be a valid string. " + e.getMessage());
+        }
+
+        return puzzlesList;
+    }
+
+    /* ========================== FIELD CURSOR ========================== */
+
+    /**
+     * Forward-only cursor over a mapped file. Each field ends at its delimiter or at the end of the line;
+     * the delimiter is consumed, the line terminator is left for endLine().
+     */
+    static final class FieldCursor {
+
+        private final MappedByteBuffer buffer;
+        private final int limit;
+        private int position;
+        private byte[] scratch = new byte[256]; // Reused for decoding text fields
+
+        private FieldCursor(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+        }
+
+        /**
+         * Memory-maps a file read-only.
+         * @param fileName
+         * @return a cursor positioned at the start of the file
+         * @throws IOException if the file cannot be opened or mapped
+         */
+        static FieldCursor map(String fileName) throws IOException {
+            try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+                return new FieldCursor(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        boolean atEnd() { return position >= limit; }
+
+        // Skips the given number of lines.
+        void skipLines(int count) {
+            for (int i = 0; i < count; i++) { endLine(); }
+        }
+
+        // Moves past the rest of the current line, including its terminator.
+        void endLine() {
+            while (position < limit && buffer.get(position++) != '\n') { }
+        }
+
+        /**
+         * Skips the current line if it only contains whitespace.
+         * @return true if a blank line was skipped
+         */
+        boolean skipBlankLine() {
+            int scan = position;
+            while (scan < limit) {
+                byte b = buffer.get(scan);
+                if (b == '\n') {
+                    position = scan + 1;
+                    return true;
+                }
+                if (!isWhitespace(b)) {
+                    return false;
+                }
+                scan++;
+            }
+            position = scan;
+            return true;
+        }
+
+        /**
+         * Parses a decimal int field, ignoring surrounding whitespace.
+         * @param delimiter
+         * @return the parsed value
+         */
+        int nextInt(byte delimiter) {
+            int end = fieldEnd(delimiter);
+            int start = skipLeadingWhitespace(position, end);
+            int stop = skipTrailingWhitespace(start, end);
+            boolean negative = start < stop && buffer.get(start) == '-';
+            int digit = negative ? start + 1 : start;
+
+            if (digit >= stop) {
+                throw new NumberFormatException("Expected a number at byte " + start);
+            }
+
+            int value = 0;
+            for (; digit < stop; digit++) {
+                int d = buffer.get(digit) - '0';
+                if (d < 0 || d > 9) {
+                    throw new NumberFormatException("Invalid digit at byte " + digit);
+                }
+                value = value * 10 + d;
+            }
+
+            consumeField(end, delimiter);
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses a boolean field the same way Boolean.parseBoolean does ("true" in any case).
+         * @param delimiter
+         * @return the parsed value
+         */
+        boolean nextBoolean(byte delimiter) {
+            int end = fieldEnd(delimiter);
+            int start = skipLeadingWhitespace(position, end);
+            int stop = skipTrailingWhitespace(start, end);
+            boolean value = stop - start == 4
+                    && (buffer.get(start) | 0x20) == 't'
+                    && (buffer.get(start + 1) | 0x20) == 'r'
+                    && (buffer.get(start + 2) | 0x20) == 'u'
+                    && (buffer.get(start + 3) | 0x20) == 'e';
+
+            consumeField(end, delimiter);
+            return value;
+        }
+
+        /**
+         * Decodes a UTF-8 text field.
+         * @param delimiter
+         * @param trim whether to strip surrounding whitespace
+         * @return the field text
+         */
+        String nextString(byte delimiter, boolean trim) {
+            int end = fieldEnd(delimiter);
+            int start = trim ? skipLeadingWhitespace(position, end) : position;
+            int stop = trim ? skipTrailingWhitespace(start, end) : stripCarriageReturn(start, end);
+            int length = stop - start;
+
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(start, scratch, 0, length);
+
+            consumeField(end, delimiter);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        /* ------------------------- helpers ------------------------- */
+
+        private int fieldEnd(byte delimiter) {
+            int scan = position;
+            while (scan < limit) {
+                byte b = buffer.get(scan);
+                if (b == delimiter || b == '\n') {
+                    break;
+                }
+                scan++;
+            }
+            return scan;
+        }
+
+        private void consumeField(int end, byte delimiter) {
+            position = (end < limit && buffer.get(end) == delimiter) ? end + 1 : end;
+        }
+
+        private int skipLeadingWhitespace(int start, int end) {
+            while (start < end && isWhitespace(buffer.get(start))) { start++; }
+            return start;
+        }
+
+        private int skipTrailingWhitespace(int start, int end) {
+            while (end > start && isWhitespace(buffer.get(end - 1))) { end--; }
+            return end;
+        }
+
+        private int stripCarriageReturn(int start, int end) {
+            return (end > start && buffer.get(end - 1) == '\r') ? end - 1 : end;
+        }
+
+        // Same rule as String.trim(): any ASCII control character or space.
+        private static boolean isWhitespace(byte b) {
+            return b >= 0 && b <= ' ';
+        }
+    }
+}
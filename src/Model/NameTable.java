@@ -0,0 +1,119 @@
+/*
+ * NameTable Class: Case-insensitive table of names to small int ids, looked up directly over a range of any
+ * CharSequence so callers can match player input without trimming, lowercasing or substringing it first.
+ *
+ * Names are folded with Character.toLowerCase and kept in an open-addressing table (linear probing, power-of-two
+ * capacity, at most half full). Lookups are safe from any thread once the table is no longer being added to.
+*/
+
+package Model;
+
+import java.util.Arrays;
+
+public final class NameTable {
+
+    public static final int NOT_FOUND = -1;
+
+    private String[] names = new String[0];  // Lower-case name per id
+    private int[] slots = new int[16];       // id + 1 per slot, 0 when empty
+    private int[] slotHashes = new int[16];
+
+    /**
+     * Add a name, or get the id it already has.
+     * @param name matched without regard to case
+     * @return id of the name (ids are assigned 0, 1, 2, ... in order of first add)
+     */
+    public int add(String name) {
+        int existing = find(name, 0, name.length());
+        if (existing != NOT_FOUND) {
+            return existing;
+        }
+
+        int id = names.length;
+        names = Arrays.copyOf(names, id + 1);
+        names[id] = fold(name);
+        if ((id + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        } else {
+            place(id, hash(name, 0, name.length()));
+        }
+        return id;
+    }
+
+    /**
+     * Find the id of the name spelled by part of a character sequence.
+     * @param text
+     * @param start first character of the name
+     * @param end end (exclusive) of the name
+     * @return id, or NOT_FOUND
+     */
+    public int find(CharSequence text, int start, int end) {
+        int hash = hash(text, start, end);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (slotHashes[slot] == hash && matches(names[slots[slot] - 1], text, start, end)) {
+                return slots[slot] - 1;
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    // Number of names in the table
+    public int size() { return names.length; }
+
+    // Lower-case spelling of a name
+    public String name(int id) { return names[id]; }
+
+    /**
+     * Case-insensitive hash of part of a character sequence.
+     * @param text
+     * @param start
+     * @param end
+     * @return hash
+     */
+    public static int hash(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != Character.toLowerCase(text.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String fold(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(chars[i]);
+        }
+        return new String(chars);
+    }
+
+    private void rehash(int capacity) {
+        slots = new int[capacity];
+        slotHashes = new int[capacity];
+        for (int id = 0; id < names.length; id++) {
+            place(id, hash(names[id], 0, names[id].length()));
+        }
+    }
+
+    private void place(int id, int hash) {
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id + 1;
+        slotHashes[slot] = hash;
+    }
+}
@@ -4,9 +4,8 @@
 
  package Model;
 
-import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class Player {
@@ -14,8 +13,9 @@ public class Player {
      // Player attributes
      private String playerName;
      private Room currentRoom;
-     private final ArrayList<Room> previousRoomsList = new ArrayList<>();
-     private final List<Item> inventory;
+     private final RoomHistory roomHistory = new RoomHistory(); // Most recent rooms left, bounded
+     private final BitSet visitedRooms = new BitSet(); // Indexed by room id
+     private final Inventory inventory = new Inventory(); // Count per item key
     private Map<String, String> grades;
     private double gpa;
      
@@ -23,7 +23,6 @@ public class Player {
      public Player(String playerName, Room currentRoom) {
          this.playerName = playerName;
          this.currentRoom = currentRoom;
-         this.inventory = new ArrayList<>();
         this.grades = new HashMap<>();
         this.gpa = 1.0;
      }
@@ -31,8 +30,10 @@ public class Player {
      // Getters
      public String getPlayerName() { return playerName; }
      public Room getCurrentRoom() { return currentRoom; }
-     public ArrayList<Room> getPreviousRoomsList() { return previousRoomsList; }
-     public List<Item> getInventory() { return inventory; }
+     public RoomHistory getRoomHistory() { return roomHistory; }
+     public boolean hasVisited(int roomId) { return visitedRooms.get(roomId); }
+     public BitSet getVisitedRooms() { return visitedRooms; }
+     public Inventory getInventory() { return inventory; }
      public Map<String, String> getGrades() { return grades; }
      public double getGpa() { return gpa; }
  
@@ -40,6 +41,7 @@ public class Player {
      public void setPlayerName(String playerName) { this.playerName = playerName; }
      public void setCurrentRoom(Room currentRoom) { this.currentRoom = currentRoom;}
      public void setGpa(double gpa) { this.gpa = gpa; }
+     public void markVisited(int roomId) { visitedRooms.set(roomId); }
  
      // toString method (for debugging)
      @Override
@@ -47,7 +49,7 @@ public class Player {
          return "PLAYER{" +
                  "\nName: " + playerName + 
                  "\nCurrent Room: " + currentRoom.getRoomName() +
-                 "\nPrevious Rooms: " + previousRoomsList +
+                 "\nPrevious Rooms: " + roomHistory +
                  "\nInventory: " + inventory +
                  "\nGrades: " + grades +
                  "\nGPA: " + gpa +
@@ -1,5 +1,6 @@
 /*
- * Puzzle Class: Responsible for initializing and managing puzzle attributes. 
+ * Puzzle Class: Immutable puzzle definition. Puzzles are shared by every session; which puzzles a player has solved
+ * is kept by the session's PuzzlesManager.
  */
 
  package Model;
@@ -15,7 +16,7 @@
      private final String optionC;
      private final String optionD;
      private final String correctAnswer;
-     private boolean isSolved;
+     private final boolean isSolved; // Initial value from the data file
  
     // Puzzle constructor
      public Puzzle(int roomId, String puzzleType, String puzzleQuestion, String optionA, String optionB, String optionC, String optionD, String correctAnswer, boolean isSolved) {
@@ -41,9 +42,6 @@
      public String getCorrectAnswer() { return correctAnswer; }
      public boolean getIsSolved() { return isSolved; }
  
-     // Setters
-     public void setIsSolved(boolean solved) { isSolved = solved; }
- 
      @Override
      public String toString() {
          return "\n\n---------------------PUZZLE DATA----------------------" +
@@ -0,0 +1,203 @@
+/*
+ * PuzzleIndex Class: Shared, immutable index of the puzzles by room and by puzzle type.
+ *
+ * The world keeps its puzzles ordered by room id and then by type (types in order of first appearance in the puzzles
+ * file, original order within a type), so the puzzles of a room, and of one type in a room, are contiguous ordinal
+ * ranges. The sort and the index must share one type-id map, taken from the file order by typeIds.
+ * Lookups return sublist views of the shared puzzles list instead of copies.
+*/
+
+package Model;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+
+public final class PuzzleIndex {
+
+    private final List<Puzzle> puzzles;
+    private final Map<String, Integer> typeIds;   // Normalized (lower case) type name -> type id
+    private final int typeCount;
+    private final int lowestRoomId;
+    private final int roomSlots;
+    private final int[] groupStart;               // Ordinal range start per (room slot, type id), plus end sentinel
+    private final int[] ordinalsByType;           // Ordinals grouped by type
+    private final int[] typeStart;                // Range start in ordinalsByType per type id, plus end sentinel
+
+    /**
+     * Assigns type ids in order of first appearance.
+     * @param puzzles in file order
+     * @return normalized type name -> type id
+     */
+    public static Map<String, Integer> typeIds(List<Puzzle> puzzles) {
+        Map<String, Integer> types = new HashMap<>();
+        for (Puzzle puzzle : puzzles) {
+            types.putIfAbsent(normalizeType(puzzle.getPuzzleType()), types.size());
+        }
+        return Collections.unmodifiableMap(types);
+    }
+
+    /**
+     * Orders puzzles the way the index expects: by room id, then by type id, keeping the original order otherwise.
+     * @param puzzles
+     * @param typeIds from typeIds, the same map the index is built with
+     * @return ordered copy of the puzzles
+     */
+    public static List<Puzzle> orderByRoomAndType(List<Puzzle> puzzles, Map<String, Integer> typeIds) {
+        List<Puzzle> ordered = new ArrayList<>(puzzles);
+        ordered.sort(Comparator.comparingInt(Puzzle::getRoomId)
+                .thenComparingInt(puzzle -> typeIds.get(normalizeType(puzzle.getPuzzleType()))));
+        return ordered;
+    }
+
+    // Constructor (puzzles must already be ordered by orderByRoomAndType with the same type ids)
+    public PuzzleIndex(List<Puzzle> puzzles, Map<String, Integer> typeIds) {
+        this.puzzles = puzzles;
+
+        int lowest = Integer.MAX_VALUE;
+        int highest = Integer.MIN_VALUE;
+        for (Puzzle puzzle : puzzles) {
+            lowest = Math.min(lowest, puzzle.getRoomId());
+            highest = Math.max(highest, puzzle.getRoomId());
+        }
+        if (puzzles.isEmpty()) {
+            lowest = 0;
+            highest = -1;
+        }
+
+        this.typeIds = typeIds;
+        this.typeCount = typeIds.size();
+        this.lowestRoomId = lowest;
+        this.roomSlots = Math.toIntExact((long) highest - lowest + 1);
+
+        // Count the puzzles of every (room, type) group, then turn the counts into range starts.
+        int[] starts = new int[roomSlots * typeCount + 1];
+        int[] typeCounts = new int[typeCount + 1];
+        int[] typeOf = new int[puzzles.size()];
+        for (int ordinal = 0; ordinal < puzzles.size(); ordinal++) {
+            Puzzle puzzle = puzzles.get(ordinal);
+            int type = typeIds.get(normalizeType(puzzle.getPuzzleType()));
+            typeOf[ordinal] = type;
+            starts[group(puzzle.getRoomId() - lowest, type) + 1]++;
+            typeCounts[type + 1]++;
+        }
+        for (int g = 1; g < starts.length; g++) {
+            starts[g] += starts[g - 1];
+        }
+        for (int t = 1; t < typeCounts.length; t++) {
+            typeCounts[t] += typeCounts[t - 1];
+        }
+        this.groupStart = starts;
+        this.typeStart = typeCounts.clone();
+
+        int[] byType = new int[puzzles.size()];
+        for (int ordinal = 0; ordinal < puzzles.size(); ordinal++) {
+            byType[typeCounts[typeOf[ordinal]]++] = ordinal;
+        }
+        this.ordinalsByType = byType;
+    }
+
+    // Normalized key for a puzzle type name ("Quiz", "quiz" and "QUIZ" are the same type).
+    public static String normalizeType(String type) {
+        return type.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Get the id of a puzzle type.
+     * @param type e.g. "quiz"
+     * @return type id, or -1 if no puzzle has that type
+     */
+    public int typeId(String type) {
+        Integer id = typeIds.get(normalizeType(type));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * First ordinal of a room's puzzles of one type (use -1 as the type for all of the room's puzzles).
+     * @param roomId
+     * @param typeId
+     * @return first ordinal of the range
+     */
+    public int rangeStart(int roomId, int typeId) {
+        int slot = roomId - lowestRoomId;
+        if (slot < 0 || slot >= roomSlots) {
+            return 0;
+        }
+        return groupStart[group(slot, typeId < 0 ? 0 : typeId)];
+    }
+
+    /**
+     * End (exclusive) of a room's puzzles of one type (use -1 as the type for all of the room's puzzles).
+     * @param roomId
+     * @param typeId
+     * @return end ordinal of the range
+     */
+    public int rangeEnd(int roomId, int typeId) {
+        int slot = roomId - lowestRoomId;
+        if (slot < 0 || slot >= roomSlots) {
+            return 0;
+        }
+        return groupStart[typeId < 0 ? group(slot + 1, 0) : group(slot, typeId) + 1];
+    }
+
+    /**
+     * Get all puzzles in a room.
+     * @param roomId
+     * @return view of the room's puzzles
+     */
+    public List<Puzzle> getPuzzlesInRoom(int roomId) {
+        return puzzles.subList(rangeStart(roomId, -1), rangeEnd(roomId, -1));
+    }
+
+    /**
+     * Get all puzzles of a type.
+     * @param type
+     * @return view of the puzzles of that type
+     */
+    public List<Puzzle> getPuzzlesOfType(String type) {
+        int id = typeId(type);
+        if (id < 0) {
+            return List.of();
+        }
+        return new OrdinalList(puzzles, ordinalsByType, typeStart[id], typeStart[id + 1]);
+    }
+
+    private int group(int slot, int typeId) {
+        return slot * typeCount + typeId;
+    }
+
+    /* ========================== ORDINAL VIEW ========================== */
+
+    // Read-only view of the puzzles at a range of a shared ordinal array.
+    private static final class OrdinalList extends AbstractList<Puzzle> implements RandomAccess {
+
+        private final List<Puzzle> puzzles;
+        private final int[] ordinals;
+        private final int from;
+        private final int to;
+
+        OrdinalList(List<Puzzle> puzzles, int[] ordinals, int from, int to) {
+            this.puzzles = puzzles;
+            this.ordinals = ordinals;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Puzzle get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return puzzles.get(ordinals[from + index]);
+        }
+
+        @Override
+        public int size() { return to - from; }
+    }
+}
@@ -12,12 +12,36 @@ import java.util.Comparator;
 
 public class Reader {
 
+    // Default location of the game data files
+    public static final String DEFAULT_DATA_DIRECTORY = "data";
+
+    private final String dataDirectory; // Directory holding rooms.txt, items.txt and puzzles.txt
+    private int errorCount;             // Load errors logged so far
+
+    // Constructors
+    public Reader() { this(DEFAULT_DATA_DIRECTORY); }
+    public Reader(String dataDirectory) { this.dataDirectory = dataDirectory; }
+
+    // Getters
+    public String getDataDirectory() { return dataDirectory; }
+    public int getErrorCount() { return errorCount; }
+
+    /**
+     * Resolves the path of a data file inside the data directory.
+     * @param fileName The file name (e.g. "rooms.txt").
+     * @return The path of the file.
+     */
+    protected String dataFile(String fileName) {
+        return dataDirectory + "/" + fileName;
+    }
+
     /**
      * Logs an error message to the console.
      * @param errorType The type of error (e.g. "Error reading file").
      * @param message The error message.
     */
-    private void logError(String errorType, String message) {
+    protected void logError(String errorType, String message) {
+        errorCount++;
         System.err.println(errorType + ": " + message);
     }
 
@@ -29,7 +53,7 @@ public class Reader {
         Room room;
         ArrayList<Room> roomsList = new ArrayList<>();
     
-        try (BufferedReader reader = new BufferedReader(new FileReader("data/rooms.txt"))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(dataFile("rooms.txt")))) {
     
             // Skip the first two lines (headers or non-room data).
             for (int i = 0; i < 2; i++) { reader.readLine(); }
@@ -79,7 +103,7 @@ public class Reader {
         Item item;
         ArrayList<Item> itemsList = new ArrayList<>();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader("data/items.txt"))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(dataFile("items.txt")))) {
 
             // Skip the first two lines.
             for (int i = 0; i < 2; i++) { reader.readLine(); }
@@ -118,7 +142,7 @@ public class Reader {
     public ArrayList<Puzzle> loadPuzzlesFromFile() {
         ArrayList<Puzzle> puzzlesList = new ArrayList<>();
     
-        try (BufferedReader reader = new BufferedReader(new FileReader("data/puzzles.txt"))) {
+        try (BufferedReader reader = new BufferedReader(new FileReader(dataFile("puzzles.txt")))) {
     
             // Skip the first two lines.
             for (int i = 0; i < 2; i++) { reader.readLine(); } 
@@ -1,5 +1,6 @@
 /*
- * Room Class: Responsible for initializing and managing room attributes. 
+ * Room Class: Immutable room definition. Rooms are shared by every session; a player's visited rooms are tracked on
+ * the Player.
  */
 
  package Model;
@@ -8,7 +9,7 @@
      
      // Room attributes
      private final int roomId;
-     private boolean hasVisited;
+     private final boolean hasVisited; // Initial value from the data file
      private final String roomName;
      private final String roomDescription;
      private final int northExit;
@@ -39,9 +40,6 @@
      public int getSouthExit() { return southExit; }
      public int getWestExit() { return westExit; }
  
-     // Setters
-     public void setHasVisited(boolean hasVisited) { this.hasVisited = hasVisited; }
- 
      // toString method (for debugging)
      @Override
      public String toString() {
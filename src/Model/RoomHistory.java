@@ -0,0 +1,73 @@
+/*
+ * RoomHistory Class: The player's most recent moves, kept in a fixed-size ring buffer of room ids so a long session
+ * never grows it. Whether a room has been visited at all is tracked separately by Player's visited-rooms bitset.
+ */
+
+package Model;
+
+public final class RoomHistory {
+
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final int[] roomIds;
+    private int next;  // Slot the next room id goes into
+    private int size;
+
+    // Constructors
+    public RoomHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public RoomHistory(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.roomIds = new int[capacity];
+    }
+
+    // Getters
+    public int size() { return size; }
+    public int capacity() { return roomIds.length; }
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * Records a room the player left; the oldest entry is dropped once the buffer is full.
+     * @param roomId
+     */
+    public void add(int roomId) {
+        roomIds[next] = roomId;
+        next = (next + 1) % roomIds.length;
+        if (size < roomIds.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Get a room id from the history.
+     * @param stepsBack 0 for the room left most recently, 1 for the one before, ...
+     * @return room id
+     */
+    public int get(int stepsBack) {
+        if (stepsBack < 0 || stepsBack >= size) {
+            throw new IndexOutOfBoundsException("stepsBack " + stepsBack + " out of range for size " + size);
+        }
+        return roomIds[Math.floorMod(next - 1 - stepsBack, roomIds.length)];
+    }
+
+    public void clear() {
+        next = 0;
+        size = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = size - 1; i >= 0; i--) { // Oldest first
+            text.append(get(i));
+            if (i > 0) {
+                text.append(", ");
+            }
+        }
+        return text.append(']').toString();
+    }
+}
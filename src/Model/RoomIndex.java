@@ -0,0 +1,113 @@
+/*
+ * RoomIndex Class: Shared, immutable id-indexed view of the rooms. Rooms and their exits are stored in dense arrays
+ * addressed by (roomId - lowest room id), so room lookup and exit resolution are constant-time and allocation-free.
+*/
+
+package Model;
+
+import java.util.List;
+
+public final class RoomIndex {
+
+    // Directions, in the N-E-S-W order of the rooms file
+    public static final int NORTH = 0;
+    public static final int EAST = 1;
+    public static final int SOUTH = 2;
+    public static final int WEST = 3;
+    public static final int NO_DIRECTION = -1;
+    private static final int DIRECTION_COUNT = 4;
+
+    // Exit id used by the data files when there is no exit
+    public static final int NO_EXIT = 0;
+
+    private final int lowestRoomId;
+    private final Room[] roomsById;
+    private final int[] exitsById; // DIRECTION_COUNT exits per room, packed
+
+    // Constructor
+    public RoomIndex(List<Room> rooms) {
+        int lowest = Integer.MAX_VALUE;
+        int highest = Integer.MIN_VALUE;
+        for (Room room : rooms) {
+            lowest = Math.min(lowest, room.getRoomId());
+            highest = Math.max(highest, room.getRoomId());
+        }
+        if (rooms.isEmpty()) {
+            lowest = 0;
+            highest = -1;
+        }
+
+        this.lowestRoomId = lowest;
+        this.roomsById = new Room[Math.toIntExact((long) highest - lowest + 1)];
+        this.exitsById = new int[roomsById.length * DIRECTION_COUNT];
+
+        for (Room room : rooms) {
+            int slot = room.getRoomId() - lowest;
+            if (roomsById[slot] != null) {
+                continue; // Keep the first room with a given id
+            }
+            roomsById[slot] = room;
+            int exit = slot * DIRECTION_COUNT;
+            exitsById[exit + NORTH] = room.getNorthExit();
+            exitsById[exit + EAST] = room.getEastExit();
+            exitsById[exit + SOUTH] = room.getSouthExit();
+            exitsById[exit + WEST] = room.getWestExit();
+        }
+    }
+
+    /**
+     * Find a room by its id.
+     * @param roomId
+     * @return room, or null if there is no room with that id
+     */
+    public Room findRoomById(int roomId) {
+        int slot = roomId - lowestRoomId;
+        return (slot >= 0 && slot < roomsById.length) ? roomsById[slot] : null;
+    }
+
+    /**
+     * The room with the lowest id, which is where every player starts.
+     * @return starting room, or null if there are no rooms
+     */
+    public Room getStartingRoom() {
+        return roomsById.length > 0 ? roomsById[0] : null;
+    }
+
+    /**
+     * Get the id of the room an exit leads to.
+     * @param roomId
+     * @param direction one of NORTH, EAST, SOUTH or WEST
+     * @return next room id, or NO_EXIT
+     */
+    public int getExitId(int roomId, int direction) {
+        int slot = roomId - lowestRoomId;
+        if (slot < 0 || slot >= roomsById.length || direction < 0 || direction >= DIRECTION_COUNT) {
+            return NO_EXIT;
+        }
+        return exitsById[slot * DIRECTION_COUNT + direction];
+    }
+
+    /**
+     * Convert a movement command to a direction.
+     * @param direction e.g. "n" or "north"
+     * @return NORTH, EAST, SOUTH, WEST or NO_DIRECTION
+     */
+    public static int parseDirection(String direction) {
+        switch (direction) {
+            case "n":
+            case "north":
+                return NORTH;
+            case "e":
+            case "east":
+                return EAST;
+            case "s":
+            case "south":
+                return SOUTH;
+            case "w":
+            case "west":
+                return WEST;
+            default:
+                return NO_DIRECTION;
+        }
+    }
+}
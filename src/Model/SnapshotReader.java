@@ -0,0 +1,286 @@
+/*
+ * SnapshotReader Class (DAO Class): Loader mode of the Reader that boots from a compiled WorldSnapshot through a
+ * memory map. Records are read straight from the packed int sections, so there is no text parsing and no sorting.
+*/
+
+package Model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+public class SnapshotReader extends Reader {
+
+    private final Path snapshotFile;
+
+    // Mapped sections, set up on first use
+    private ByteBuffer stringBytes;
+    private IntBuffer stringOffsets;
+    private IntBuffer roomRecords;
+    private IntBuffer itemRecords;
+    private IntBuffer puzzleRecords;
+    private IntBuffer puzzleOffsets;
+    private String[] decodedStrings; // Each string is decoded at most once and then shared
+
+    // Constructors
+    public SnapshotReader() { this(DEFAULT_DATA_DIRECTORY); }
+    public SnapshotReader(String dataDirectory) { this(dataDirectory, Path.of(dataDirectory, WorldSnapshot.DEFAULT_FILE_NAME)); }
+    public SnapshotReader(String dataDirectory, Path snapshotFile) {
+        super(dataDirectory);
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Reads the rooms section of the snapshot.
+     * @return ArrayList of Room objects, sorted by room id.
+     */
+    @Override
+    public ArrayList<Room> loadRoomsFromFile() {
+        ArrayList<Room> roomsList = new ArrayList<>();
+
+        try {
+            mapSnapshot();
+            int roomCount = roomRecords.limit() / WorldSnapshot.ROOM_INTS;
+            roomsList.ensureCapacity(roomCount);
+
+            for (int r = 0; r < roomRecords.limit(); r += WorldSnapshot.ROOM_INTS) {
+                roomsList.add(new Room(
+                        roomRecords.get(r),
+                        roomRecords.get(r + 1) == WorldSnapshot.FLAG_SET,
+                        string(roomRecords.get(r + 2)),
+                        string(roomRecords.get(r + 3)),
+                        roomRecords.get(r + 4),
+                        roomRecords.get(r + 5),
+                        roomRecords.get(r + 6),
+                        roomRecords.get(r + 7)));
+            }
+        } catch (IOException e) {
+            logError("Error reading '" + snapshotFile + "'", e.getMessage());
+        }
+
+        return roomsList;
+    }
+
+    /**
+     * Reads the items section of the snapshot.
+     * @return ArrayList of Item objects, sorted by room id.
+     */
+    @Override
+    public ArrayList<Item> loadItemsFromFile() {
+        ArrayList<Item> itemsList = new ArrayList<>();
+
+        try {
+            mapSnapshot();
+            itemsList.ensureCapacity(itemRecords.limit() / WorldSnapshot.ITEM_INTS);
+
+            for (int i = 0; i < itemRecords.limit(); i += WorldSnapshot.ITEM_INTS) {
+                itemsList.add(new Item(
+                        itemRecords.get(i),
+                        string(itemRecords.get(i + 1)),
+                        string(itemRecords.get(i + 2)),
+                        itemRecords.get(i + 3)));
+            }
+        } catch (IOException e) {
+            logError("Error reading '" + snapshotFile + "'", e.getMessage());
+        }
+
+        return itemsList;
+    }
+
+    /**
+     * Reads the puzzles section of the snapshot.
+     * @return ArrayList of Puzzle objects, sorted by room id.
+     */
+    @Override
+    public ArrayList<Puzzle> loadPuzzlesFromFile() {
+        ArrayList<Puzzle> puzzlesList = new ArrayList<>();
+
+        try {
+            mapSnapshot();
+            int puzzleCount = puzzleRecords.limit() / WorldSnapshot.PUZZLE_INTS;
+            puzzlesList.ensureCapacity(puzzleCount);
+
+            for (int index = 0; index < puzzleCount; index++) {
+                puzzlesList.add(puzzleAt(index));
+            }
+        } catch (IOException e) {
+            logError("Error reading '" + snapshotFile + "'", e.getMessage());
+        }
+
+        return puzzlesList;
+    }
+
+    /**
+     * Reads only the puzzles of one room, using the snapshot's puzzle offsets.
+     * @param roomId
+     * @return ArrayList of the room's Puzzle objects (empty if the room has none).
+     */
+    public ArrayList<Puzzle> loadPuzzlesForRoom(int roomId) {
+        ArrayList<Puzzle> puzzlesList = new ArrayList<>();
+
+        try {
+            mapSnapshot();
+
+            // Offsets are sorted by room id: binary search for the room's entry.
+            int roomCount = puzzleOffsets.limit() / 2;
+            int low = 0;
+            int high = roomCount - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int middleRoomId = puzzleOffsets.get(middle * 2);
+                if (middleRoomId < roomId) {
+                    low = middle + 1;
+                } else if (middleRoomId > roomId) {
+                    high = middle - 1;
+                } else {
+                    int first = puzzleOffsets.get(middle * 2 + 1);
+                    int end = middle + 1 < roomCount ? puzzleOffsets.get((middle + 1) * 2 + 1) : puzzleOffsets.get(roomCount * 2);
+                    for (int index = first; index < end; index++) {
+                        puzzlesList.add(puzzleAt(index));
+                    }
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            logError("Error reading '" + snapshotFile + "'", e.getMessage());
+        }
+
+        return puzzlesList;
+    }
+
+    /* ========================== SNAPSHOT ACCESS ========================== */
+
+    // Maps the snapshot file and slices it into its sections.
+    private synchronized void mapSnapshot() throws IOException {
+        if (roomRecords != null) {
+            return;
+        }
+
+        ByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (mapped.limit() < WorldSnapshot.HEADER_INTS * Integer.BYTES || mapped.getInt(0) != WorldSnapshot.MAGIC) {
+            throw new IOException("Not a world snapshot");
+        }
+        if (mapped.getInt(4) != WorldSnapshot.VERSION) {
+            throw new IOException("Unsupported world snapshot version " + mapped.getInt(4));
+        }
+
+        int stringCount = mapped.getInt(8);
+        int roomCount = mapped.getInt(12);
+        int itemCount = mapped.getInt(16);
+        int puzzleCount = mapped.getInt(20);
+        int puzzleRoomCount = mapped.getInt(24);
+        if (stringCount < 0 || roomCount < 0 || itemCount < 0 || puzzleCount < 0 || puzzleRoomCount < 0) {
+            throw new IOException("Corrupt world snapshot header");
+        }
+
+        int position = WorldSnapshot.HEADER_INTS * Integer.BYTES;
+        ByteBuffer offsets = slice(mapped, position, stringCount + 1L);
+        position += offsets.limit();
+
+        // The offsets must run upwards from 0, so every string lies inside the string bytes.
+        stringOffsets = offsets.asIntBuffer();
+        int stringLength = stringOffsets.get(stringCount);
+        if (stringLength < 0 || stringLength > mapped.limit() - position) {
+            throw new IOException("Truncated world snapshot");
+        }
+        int previous = 0;
+        for (int index = 0; index <= stringCount; index++) {
+            int offset = stringOffsets.get(index);
+            if (offset < previous || (index == 0 && offset != 0)) {
+                throw new IOException("Corrupt world snapshot string table");
+            }
+            previous = offset;
+        }
+        stringBytes = mapped.slice(position, stringLength);
+        position += (stringLength + 3) & ~3;
+
+        ByteBuffer rooms = slice(mapped, position, (long) roomCount * WorldSnapshot.ROOM_INTS);
+        position += rooms.limit();
+        ByteBuffer items = slice(mapped, position, (long) itemCount * WorldSnapshot.ITEM_INTS);
+        position += items.limit();
+        ByteBuffer puzzles = slice(mapped, position, (long) puzzleCount * WorldSnapshot.PUZZLE_INTS);
+        position += puzzles.limit();
+        IntBuffer offsetRecords = slice(mapped, position, puzzleRoomCount * 2L + 1).asIntBuffer();
+
+        // Check every string index and puzzle offset once, so the loaders can read records without bounds checks.
+        IntBuffer roomInts = rooms.asIntBuffer();
+        IntBuffer itemInts = items.asIntBuffer();
+        IntBuffer puzzleInts = puzzles.asIntBuffer();
+        checkStringIndexes(roomInts, WorldSnapshot.ROOM_INTS, 2, 3, stringCount);
+        checkStringIndexes(itemInts, WorldSnapshot.ITEM_INTS, 1, 2, stringCount);
+        checkStringIndexes(puzzleInts, WorldSnapshot.PUZZLE_INTS, 1, 7, stringCount);
+        for (int entry = 0; entry < puzzleRoomCount; entry++) {
+            int first = offsetRecords.get(entry * 2 + 1);
+            if (first < 0 || first > puzzleCount) {
+                throw new IOException("Corrupt world snapshot");
+            }
+        }
+        if (offsetRecords.get(puzzleRoomCount * 2) != puzzleCount) {
+            throw new IOException("Corrupt world snapshot");
+        }
+
+        decodedStrings = new String[stringCount];
+        puzzleOffsets = offsetRecords;
+        itemRecords = itemInts;
+        puzzleRecords = puzzleInts;
+        roomRecords = roomInts;
+    }
+
+    // Checks that fields first..last of every record are indexes into the string table.
+    private static void checkStringIndexes(IntBuffer records, int recordInts, int first, int last, int stringCount)
+            throws IOException {
+        for (int record = 0; record < records.limit(); record += recordInts) {
+            for (int field = first; field <= last; field++) {
+                int index = records.get(record + field);
+                if (index < 0 || index >= stringCount) {
+                    throw new IOException("Corrupt world snapshot");
+                }
+            }
+        }
+    }
+
+    // Every section goes through here, so a corrupt count cannot reach past the end of the file.
+    private static ByteBuffer slice(ByteBuffer mapped, int position, long intCount) throws IOException {
+        long length = intCount * Integer.BYTES;
+        if (position > mapped.limit() || length > mapped.limit() - position) {
+            throw new IOException("Truncated world snapshot");
+        }
+        return mapped.slice(position, (int) length);
+    }
+
+    // Returns the string at the given table index, decoding it on first use.
+    private String string(int index) {
+        String value = decodedStrings[index];
+        if (value == null) {
+            int start = stringOffsets.get(index);
+            byte[] bytes = new byte[stringOffsets.get(index + 1) - start];
+            stringBytes.get(start, bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+            decodedStrings[index] = value;
+        }
+        return value;
+    }
+
+    private Puzzle puzzleAt(int index) {
+        int p = index * WorldSnapshot.PUZZLE_INTS;
+        return new Puzzle(
+                puzzleRecords.get(p),
+                string(puzzleRecords.get(p + 1)),
+                string(puzzleRecords.get(p + 2)),
+                string(puzzleRecords.get(p + 3)),
+                string(puzzleRecords.get(p + 4)),
+                string(puzzleRecords.get(p + 5)),
+                string(puzzleRecords.get(p + 6)),
+                string(puzzleRecords.get(p + 7)),
+                puzzleRecords.get(p + 8) == WorldSnapshot.FLAG_SET);
+    }
+}
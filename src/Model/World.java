@@ -0,0 +1,105 @@
+/*
+ * World Class: Immutable definitions of the campus (rooms, items and puzzles), loaded once per JVM and shared by
+ * every game session.
+ *
+ * Definitions never change after loading. Anything a player can change (visited rooms, item counts, solved
+ * puzzles) lives in the per-session managers as a compact overlay keyed by room id or by list position (ordinal).
+*/
+
+package Model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class World {
+
+    // Worlds already loaded in this JVM, keyed by loader mode and data directory
+    private static final Map<String, World> SHARED_WORLDS = new ConcurrentHashMap<>();
+
+    // World definitions
+    private final List<Room> rooms;
+    private final List<Item> items;
+    private final List<Puzzle> puzzles;
+    private final Map<Puzzle, Integer> puzzleOrdinals;
+    private final Map<Item, Integer> itemOrdinals;
+
+    // Shared indexes
+    private final RoomIndex roomIndex;
+    private final PuzzleIndex puzzleIndex;
+    private final ItemIndex itemIndex;
+
+    // Constructor
+    public World(List<Room> rooms, List<Item> items, List<Puzzle> puzzles) {
+        this.rooms = List.copyOf(rooms);
+        List<Item> itemsByRoom = new ArrayList<>(items);
+        itemsByRoom.sort(Comparator.comparingInt(Item::getItemId));
+        this.items = List.copyOf(itemsByRoom);
+        Map<String, Integer> puzzleTypeIds = PuzzleIndex.typeIds(puzzles);
+        this.puzzles = List.copyOf(PuzzleIndex.orderByRoomAndType(puzzles, puzzleTypeIds));
+
+        Map<Puzzle, Integer> ordinals = new IdentityHashMap<>(this.puzzles.size());
+        for (int ordinal = 0; ordinal < this.puzzles.size(); ordinal++) {
+            ordinals.put(this.puzzles.get(ordinal), ordinal);
+        }
+        this.puzzleOrdinals = ordinals;
+        Map<Item, Integer> itemPositions = new IdentityHashMap<>(this.items.size());
+        for (int ordinal = 0; ordinal < this.items.size(); ordinal++) {
+            itemPositions.put(this.items.get(ordinal), ordinal);
+        }
+        this.itemOrdinals = itemPositions;
+        this.roomIndex = new RoomIndex(this.rooms);
+        this.puzzleIndex = new PuzzleIndex(this.puzzles, puzzleTypeIds);
+        this.itemIndex = new ItemIndex(this.items);
+    }
+
+    /**
+     * Loads a new world through the given Reader.
+     * @param reader
+     * @return world
+     */
+    public static World load(Reader reader) {
+        return new World(reader.loadRoomsFromFile(), reader.loadItemsFromFile(), reader.loadPuzzlesFromFile());
+    }
+
+    /**
+     * Returns the world for the Reader's data, loading it only the first time it is requested in this JVM.
+     * @param reader
+     * @return shared world
+     */
+    public static World shared(Reader reader) {
+        String key = reader.getClass().getName() + ":" + reader.getDataDirectory();
+        return SHARED_WORLDS.computeIfAbsent(key, k -> load(reader));
+    }
+
+    // Getters (unmodifiable lists; items are ordered by room id, puzzles by room id and then type)
+    public List<Room> getRooms() { return rooms; }
+    public List<Item> getItems() { return items; }
+    public List<Puzzle> getPuzzles() { return puzzles; }
+    public RoomIndex getRoomIndex() { return roomIndex; }
+    public PuzzleIndex getPuzzleIndex() { return puzzleIndex; }
+    public ItemIndex getItemIndex() { return itemIndex; }
+
+    /**
+     * Get the position of a puzzle in the puzzles list.
+     * @param puzzle
+     * @return ordinal, or -1 if the puzzle does not belong to this world
+     */
+    public int puzzleOrdinal(Puzzle puzzle) {
+        Integer ordinal = puzzleOrdinals.get(puzzle);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * Get the position of an item in the items list.
+     * @param item
+     * @return ordinal, or -1 if the item does not belong to this world
+     */
+    public int itemOrdinal(Item item) {
+        Integer ordinal = itemOrdinals.get(item);
+        return ordinal == null ? -1 : ordinal;
+    }
+}
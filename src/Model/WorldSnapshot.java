@@ -0,0 +1,195 @@
+/*
+ * WorldSnapshot Class: Compiles the text data files into one versioned binary snapshot that SnapshotReader
+ * can memory-map at startup.
+ *
+ * Layout (all ints big-endian):
+ *   header   MAGIC, VERSION, stringCount, roomCount, itemCount, puzzleCount, puzzleRoomCount
+ *   strings  (stringCount + 1) byte offsets, then the UTF-8 bytes, padded to a multiple of 4
+ *   rooms    roomCount   x [roomId, flags, name, description, north, east, south, west]
+ *   items    itemCount   x [roomId, name, description, itemCount]
+ *   puzzles  puzzleCount x [roomId, type, question, optionA, optionB, optionC, optionD, answer, flags]
+ *   offsets  puzzleRoomCount x [roomId, firstPuzzle], then puzzleCount as the end sentinel
+ * Text fields are indexes into the string table; identical strings are stored once. Records are written in
+ * the order returned by the source Reader, so they are already sorted by room id.
+*/
+
+package Model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class WorldSnapshot {
+
+    // Format constants
+    public static final String DEFAULT_FILE_NAME = "world.snapshot";
+    static final int MAGIC = 0x43435753; // "CCWS"
+    static final int VERSION = 1;
+    static final int HEADER_INTS = 7;
+    static final int ROOM_INTS = 8;
+    static final int ITEM_INTS = 4;
+    static final int PUZZLE_INTS = 9;
+    static final int FLAG_SET = 1;
+
+    private WorldSnapshot() { } // Utility class
+
+    /**
+     * Reads the world through the given Reader and writes it as a binary snapshot.
+     * @param source Reader for the text data files.
+     * @param target Snapshot file to create or replace.
+     * @throws IOException if a data file is missing, fails to load or is empty, or the snapshot cannot be written
+     */
+    public static void compile(Reader source, Path target) throws IOException {
+        int errors = source.getErrorCount();
+        List<Room> rooms = source.loadRoomsFromFile();
+        List<Item> items = source.loadItemsFromFile();
+        List<Puzzle> puzzles = source.loadPuzzlesFromFile();
+        // The Reader only logs its errors, and a snapshot of a broken world would count as current.
+        if (source.getErrorCount() != errors || rooms.isEmpty() || items.isEmpty() || puzzles.isEmpty()) {
+            throw new IOException("The data in '" + source.getDataDirectory() + "' did not load completely");
+        }
+        StringTable strings = new StringTable();
+
+        int[] roomRecords = new int[rooms.size() * ROOM_INTS];
+        int r = 0;
+        for (Room room : rooms) {
+            roomRecords[r++] = room.getRoomId();
+            roomRecords[r++] = room.getHasVisited() ? FLAG_SET : 0;
+            roomRecords[r++] = strings.indexOf(room.getRoomName());
+            roomRecords[r++] = strings.indexOf(room.getRoomDescription());
+            roomRecords[r++] = room.getNorthExit();
+            roomRecords[r++] = room.getEastExit();
+            roomRecords[r++] = room.getSouthExit();
+            roomRecords[r++] = room.getWestExit();
+        }
+
+        int[] itemRecords = new int[items.size() * ITEM_INTS];
+        int i = 0;
+        for (Item item : items) {
+            itemRecords[i++] = item.getItemId();
+            itemRecords[i++] = strings.indexOf(item.getItemName());
+            itemRecords[i++] = strings.indexOf(item.getItemDescription());
+            itemRecords[i++] = item.getItemCount();
+        }
+
+        int[] puzzleRecords = new int[puzzles.size() * PUZZLE_INTS];
+        List<int[]> puzzleOffsets = new ArrayList<>();
+        int p = 0;
+        for (int index = 0; index < puzzles.size(); index++) {
+            Puzzle puzzle = puzzles.get(index);
+            if (puzzleOffsets.isEmpty() || puzzleOffsets.get(puzzleOffsets.size() - 1)[0] != puzzle.getRoomId()) {
+                puzzleOffsets.add(new int[] { puzzle.getRoomId(), index });
+            }
+            puzzleRecords[p++] = puzzle.getRoomId();
+            puzzleRecords[p++] = strings.indexOf(puzzle.getPuzzleType());
+            puzzleRecords[p++] = strings.indexOf(puzzle.getPuzzleQuestion());
+            puzzleRecords[p++] = strings.indexOf(puzzle.getOptionA());
+            puzzleRecords[p++] = strings.indexOf(puzzle.getOptionB());
+            puzzleRecords[p++] = strings.indexOf(puzzle.getOptionC());
+            puzzleRecords[p++] = strings.indexOf(puzzle.getOptionD());
+            puzzleRecords[p++] = strings.indexOf(puzzle.getCorrectAnswer());
+            puzzleRecords[p++] = puzzle.getIsSolved() ? FLAG_SET : 0;
+        }
+
+        Path temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            out.writeInt(rooms.size());
+            out.writeInt(items.size());
+            out.writeInt(puzzles.size());
+            out.writeInt(puzzleOffsets.size());
+
+            strings.writeTo(out);
+            writeInts(out, roomRecords);
+            writeInts(out, itemRecords);
+            writeInts(out, puzzleRecords);
+
+            for (int[] offset : puzzleOffsets) {
+                out.writeInt(offset[0]);
+                out.writeInt(offset[1]);
+            }
+            out.writeInt(puzzles.size());
+        }
+
+        // Replace the old snapshot in one step so a running node never maps a half-written file.
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Checks whether a snapshot exists and is newer than every text file it was compiled from.
+     * @param dataDirectory
+     * @return true if the snapshot can be used instead of the text files
+     */
+    public static boolean isCurrent(String dataDirectory) {
+        Path directory = Path.of(dataDirectory);
+        Path snapshot = directory.resolve(DEFAULT_FILE_NAME);
+
+        try {
+            if (!Files.exists(snapshot)) {
+                return false;
+            }
+            long snapshotTime = Files.getLastModifiedTime(snapshot).toMillis();
+            for (String fileName : new String[] { "rooms.txt", "items.txt", "puzzles.txt" }) {
+                Path text = directory.resolve(fileName);
+                if (Files.exists(text) && Files.getLastModifiedTime(text).toMillis() > snapshotTime) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /* ========================== STRING TABLE ========================== */
+
+    // Deduplicating table of UTF-8 encoded strings.
+    private static final class StringTable {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+
+        int indexOf(String value) {
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = encoded.size();
+                indexes.put(value, index);
+                encoded.add(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return index;
+        }
+
+        int size() { return encoded.size(); }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] bytes : encoded) {
+                offset += bytes.length;
+                out.writeInt(offset);
+            }
+            for (byte[] bytes : encoded) {
+                out.write(bytes);
+            }
+            for (int pad = offset; pad % 4 != 0; pad++) {
+                out.writeByte(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * FrameBuffer Class: Reusable byte buffer that collects everything rendered for one command (one "frame") as UTF-8,
+ * so the whole response can be handed to the console or a socket in a single write.
+ *
+ * Unlike ByteArrayOutputStream it takes no locks and encodes text straight into its array, and it gives back
+ * oversized arrays on reset so a long help screen does not pin memory for the rest of a session.
+ */
+
+package View;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public final class FrameBuffer {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int RETAINED_CAPACITY = 16 * 1024; // Larger arrays are dropped on reset
+
+    private byte[] bytes = new byte[INITIAL_CAPACITY];
+    private int size;
+
+    // Getters
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    /**
+     * Appends pre-encoded bytes.
+     * @param encoded
+     */
+    public void append(byte[] encoded) {
+        ensureCapacity(size + encoded.length);
+        System.arraycopy(encoded, 0, bytes, size, encoded.length);
+        size += encoded.length;
+    }
+
+    /**
+     * Appends text encoded as UTF-8 (unpaired surrogates become '?').
+     * @param text
+     */
+    public void append(CharSequence text) {
+        int length = text.length();
+        ensureCapacity(size + length); // Enough for ASCII; every other character makes room for itself and the rest
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes[size++] = (byte) c;
+            } else {
+                ensureCapacity(size + 4 + (length - i));
+                if (c < 0x800) {
+                    bytes[size++] = (byte) (0xC0 | (c >> 6));
+                    bytes[size++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    bytes[size++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[size++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[size++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[size++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    bytes[size++] = '?';
+                } else {
+                    bytes[size++] = (byte) (0xE0 | (c >> 12));
+                    bytes[size++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[size++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the whole frame in one call; the buffer is left as it is.
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    /**
+     * Copy of the frame with spare bytes at the end, e.g. for a protocol trailer.
+     * @param spare number of extra zero bytes
+     * @return new array of size() + spare bytes
+     */
+    public byte[] copy(int spare) {
+        return Arrays.copyOf(bytes, size + spare);
+    }
+
+    // Empties the buffer, keeping the array unless it grew unusually large.
+    public void reset() {
+        size = 0;
+        if (bytes.length > RETAINED_CAPACITY) {
+            bytes = new byte[INITIAL_CAPACITY];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, size, StandardCharsets.UTF_8);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+        }
+    }
+}
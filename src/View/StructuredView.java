@@ -0,0 +1,213 @@
+/*
+ * StructuredView Class: Output mode for machine clients (bots, the web front end). Instead of the ANSI text and box
+ * drawings it writes one minimal JSON object per line for every game event, so clients parse a few short lines rather
+ * than scraping the screens.
+ *
+ * Every object has an "e" member naming the event; the other members are listed with the hooks in View. Examples:
+ *   {"e":"room","id":4,"name":"Art Class","seen":false}
+ *   {"e":"puzzle","type":"quiz","n":1,"of":3,"q":"...","a":"...","b":"...","c":"...","d":"..."}
+ *   {"e":"grade","course":"Art Class","grade":"B","correct":2,"of":3,"gpa":1.0}
+ *   {"e":"prompt","phase":"PLAYING"}
+ *
+ * A prompt event is only written when the phase changes; responses are delimited by the transport (e.g. the game
+ * server's frame terminator).
+ */
+
+package View;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Map;
+
+public class StructuredView extends View {
+
+    private final StringBuilder line = new StringBuilder(128); // Event being encoded
+    private String promptedPhase; // Last phase reported, so unchanged phases are not repeated
+    private int backpackItems; // Items written into the backpack event being encoded
+
+    // Constructors
+    public StructuredView(FrameBuffer frame) { super(frame, null, false); }
+    public StructuredView(PrintStream out) { super(new FrameBuffer(), out, true); }
+
+    @Override
+    protected boolean rendersText() { return false; }
+
+    @Override
+    public void printError(String p) {
+        begin("error").string("msg", p.trim()).end();
+    }
+
+    /* ========================== GAME EVENTS ========================== */
+
+    @Override
+    public void onPrompt(String phase) {
+        if (!phase.equals(promptedPhase)) {
+            promptedPhase = phase;
+            begin("prompt").string("phase", phase).end();
+        }
+    }
+
+    @Override
+    public void onResumed() {
+        promptedPhase = null; // The client starts over, so the current phase is reported again
+        begin("resumed").end();
+    }
+
+    @Override
+    public void onPlayerNamed(String playerName) {
+        begin("player").string("name", playerName).end();
+    }
+
+    @Override
+    public void onRoomEntered(int roomId, String roomName, boolean visitedBefore) {
+        begin("room").number("id", roomId).string("name", roomName).bool("seen", visitedBefore).end();
+    }
+
+    @Override
+    public void onItemCount(int roomId, String itemName, int count) {
+        begin("items").number("room", roomId).string("item", itemName).number("count", count).end();
+    }
+
+    @Override
+    public void onItemInspected(String itemName, String description) {
+        begin("inspect").string("item", itemName).string("text", description).end();
+    }
+
+    @Override
+    public void onItemPickedUp(String itemName, boolean pickedUp) {
+        begin("pickup").string("item", itemName).bool("ok", pickedUp).end();
+    }
+
+    @Override
+    public void onScantronsRequired(String puzzleType, int required, int held) {
+        begin("need").string("type", puzzleType).number("scantrons", required).number("held", held).end();
+    }
+
+    @Override
+    public void onExamOffered(int roomId) {
+        begin("exam").number("room", roomId).end();
+    }
+
+    @Override
+    public void onPuzzlePresented(String puzzleType, int number, int count, String question,
+                                  String optionA, String optionB, String optionC, String optionD) {
+        // The data file spells types "Quiz"/"Exam"; the protocol uses the lower-case form, as the need event does
+        begin("puzzle").string("type", puzzleType.toLowerCase(Locale.ROOT)).number("n", number).number("of", count).string("q", question)
+                .string("a", optionA).string("b", optionB).string("c", optionC).string("d", optionD).end();
+    }
+
+    @Override
+    public void onAnswerChecked(boolean correct, String correctAnswer) {
+        begin("answer").bool("ok", correct).string("correct", correctAnswer).end();
+    }
+
+    @Override
+    public void onGradeRecorded(String course, String grade, int correctAnswers, int questionCount, double gpa) {
+        begin("grade").string("course", course).string("grade", grade).number("correct", correctAnswers)
+                .number("of", questionCount).decimal("gpa", gpa).end();
+    }
+
+    @Override
+    public void onInventoryStart() {
+        begin("backpack");
+        line.append(",\"items\":{");
+        backpackItems = 0;
+    }
+
+    @Override
+    public void onInventoryItem(String itemName, int count) {
+        if (backpackItems++ > 0) {
+            line.append(',');
+        }
+        quote(itemName).append(':').append(count);
+    }
+
+    @Override
+    public void onInventoryEnd() {
+        line.append('}');
+        end();
+    }
+
+    @Override
+    public void onReportCard(Map<String, String> grades, double gpa) {
+        begin("report");
+        line.append(",\"grades\":{");
+        boolean first = true;
+        for (Map.Entry<String, String> entry : grades.entrySet()) {
+            if (!first) {
+                line.append(',');
+            }
+            first = false;
+            quote(entry.getKey()).append(':');
+            quote(entry.getValue());
+        }
+        line.append('}');
+        decimal("gpa", gpa).end();
+    }
+
+    @Override
+    public void onGameEnded(String status, double gpa) {
+        begin("end").string("status", status).decimal("gpa", gpa).end();
+    }
+
+    /* ========================== ENCODING ========================== */
+
+    private StructuredView begin(String event) {
+        line.setLength(0);
+        line.append("{\"e\":");
+        quote(event);
+        return this;
+    }
+
+    private void end() {
+        line.append("}\n");
+        emit(line);
+    }
+
+    private StructuredView string(String name, String value) {
+        line.append(",\"").append(name).append("\":");
+        if (value == null) {
+            line.append("null");
+        } else {
+            quote(value);
+        }
+        return this;
+    }
+
+    private StructuredView number(String name, int value) {
+        line.append(",\"").append(name).append("\":").append(value);
+        return this;
+    }
+
+    private StructuredView decimal(String name, double value) {
+        line.append(",\"").append(name).append("\":").append(Math.round(value * 100) / 100.0);
+        return this;
+    }
+
+    private StructuredView bool(String name, boolean value) {
+        line.append(",\"").append(name).append("\":").append(value);
+        return this;
+    }
+
+    // Appends a JSON string literal.
+    private StringBuilder quote(String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        return line.append('"');
+    }
+}
@@ -1,11 +1,31 @@
 /*
 * View Class (aka Utility Class): Responsible for displaying game-related outputs and formatting, adhering to the Single Responsibility Principle.
+*
+* Output is collected in a FrameBuffer. A session view (View(FrameBuffer)) leaves the frame to its owner, which sends a whole command's response in one write;
+* the console views flush after every call. The static screens are rendered and UTF-8 encoded once, and copied into the frame as bytes.
+*
+* Besides the text, the game reports what happens through the event hooks (onRoomEntered, onGradeRecorded, ...). They do nothing here;
+* StructuredView turns the text off and writes the events instead, for bots and other machine clients.
 */
 
 package View;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
 public class View {
 
+    private static final String NEWLINE = System.lineSeparator();
+    private static final String EVENT_LINE_TEXT = lines("\n============================================================================================================\n");
+
+    private final FrameBuffer frame; // Output of the current command
+    private final OutputStream out; // Where flushed frames go (null when the owner of the frame sends it)
+    private final boolean autoFlush;
+
     // ASCII Codes for printed text colors
     public final String PINK = "\u001B[1;95m";
     public final String CYAN = "\033[38;2;0;255;255m";
@@ -27,22 +47,246 @@ public class View {
     public final String ITALIC = "\033[3m";
     public final String RESET = "\u001B[0m";
 
+    // Constructors
+    public View() { this(System.out); }
+    public View(PrintStream out) { this(new FrameBuffer(), out, true); }
+    public View(FrameBuffer frame) { this(frame, null, false); }
+
+    protected View(FrameBuffer frame, OutputStream out, boolean autoFlush) {
+        this.frame = frame;
+        this.out = out;
+        this.autoFlush = autoFlush;
+    }
+
     // Utility Methods
-    public void print(String p) { System.out.print(p); }
-    public void println(String p) { System.out.println(p); }
-    public void showInputIndicator() { System.out.print(BOLD + "\n> " + RESET); }
-    public void showEventLine() { println("\n============================================================================================================\n"); }
-    public void printError(String p) { System.out.println(RED + p + RESET); }
+    public void print(String p) { if (rendersText()) { frame.append(p); written(); } }
+    public void println(String p) { if (rendersText()) { frame.append(p); frame.append(NEWLINE); written(); } }
+    public void printf(String format, Object... args) { if (rendersText()) { print(String.format(format, args)); } }
+    public void showInputIndicator() { write(Screens.INPUT_INDICATOR); }
+    public void showEventLine() { write(Screens.EVENT_LINE); }
+    public void printError(String p) { println(RED + p + RESET); }
 
     public void printMessages(String[] messages) {
         for (String message : messages) {
             println(message);
         }
     }
-    
+
+    /**
+     * Writes the frame collected so far to the output stream in one call and empties it.
+     * Does nothing for a session view, whose owner sends the frame itself.
+     */
+    public void flush() {
+        if (out == null || frame.isEmpty()) {
+            return;
+        }
+        try {
+            frame.writeTo(out);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            frame.reset();
+        }
+    }
+
+    // Whether the text output is shown; machine-client views turn it off.
+    protected boolean rendersText() { return true; }
+
+    /**
+     * Appends output that is written whatever rendersText says, such as an encoded event.
+     * @param output
+     */
+    protected void emit(CharSequence output) {
+        frame.append(output);
+        written();
+    }
+
+    private void write(byte[] screen) {
+        if (rendersText()) {
+            frame.append(screen);
+            written();
+        }
+    }
+
+    private void written() {
+        if (autoFlush) {
+            flush();
+        }
+    }
+
+    // Renders a screen's lines the way println would, so it can be encoded once.
+    private static String lines(String... lines) {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append(NEWLINE);
+        }
+        return text.toString();
+    }
+
+    /* ========================== GAME EVENTS ========================== */
+
+    /**
+     * The game waits for input.
+     * @param phase name of the session phase the input answers (e.g. PLAYING, PUZZLE_ANSWER)
+     */
+    public void onPrompt(String phase) { }
+
+    // A saved or recovered session was resumed; the screen it was on follows.
+    public void onResumed() { }
+
+    /**
+     * The player entered their name.
+     * @param playerName
+     */
+    public void onPlayerNamed(String playerName) { }
+
+    /**
+     * The player arrived in a room.
+     * @param roomId
+     * @param roomName
+     * @param visitedBefore
+     */
+    public void onRoomEntered(int roomId, String roomName, boolean visitedBefore) { }
+
+    /**
+     * The player explored a room.
+     * @param roomId
+     * @param itemName
+     * @param count copies of the item in the room
+     */
+    public void onItemCount(int roomId, String itemName, int count) { }
+
+    /**
+     * The player inspected an item.
+     * @param itemName
+     * @param description null if there is no such item in the room
+     */
+    public void onItemInspected(String itemName, String description) { }
+
+    /**
+     * The player tried to pick up an item.
+     * @param itemName
+     * @param pickedUp
+     */
+    public void onItemPickedUp(String itemName, boolean pickedUp) { }
+
+    /**
+     * The player has too few scantrons for a quiz or exam.
+     * @param puzzleType
+     * @param required
+     * @param held
+     */
+    public void onScantronsRequired(String puzzleType, int required, int held) { }
+
+    /**
+     * The player is asked whether to take the exam of a room.
+     * @param roomId
+     */
+    public void onExamOffered(int roomId) { }
+
+    /**
+     * A quiz or exam question is asked.
+     * @param puzzleType
+     * @param number 1-based question number
+     * @param count questions in this quiz or exam
+     * @param question
+     * @param optionA
+     * @param optionB
+     * @param optionC
+     * @param optionD
+     */
+    public void onPuzzlePresented(String puzzleType, int number, int count, String question,
+                                  String optionA, String optionB, String optionC, String optionD) { }
+
+    /**
+     * An answer was checked.
+     * @param correct
+     * @param correctAnswer
+     */
+    public void onAnswerChecked(boolean correct, String correctAnswer) { }
+
+    /**
+     * A quiz or exam was graded.
+     * @param course room name the grade is recorded under
+     * @param grade letter grade of this attempt
+     * @param correctAnswers
+     * @param questionCount
+     * @param gpa the player's new GPA
+     */
+    public void onGradeRecorded(String course, String grade, int correctAnswers, int questionCount, double gpa) { }
+
+    /**
+     * The backpack is being shown; onInventoryItem follows for every item held, then onInventoryEnd.
+     */
+    public void onInventoryStart() { }
+
+    /**
+     * An item in the backpack.
+     * @param itemName
+     * @param count
+     */
+    public void onInventoryItem(String itemName, int count) { }
+
+    // The backpack has been shown.
+    public void onInventoryEnd() { }
+
+    /**
+     * The report card was shown.
+     * @param grades course -> letter grade
+     * @param gpa
+     */
+    public void onReportCard(Map<String, String> grades, double gpa) { }
+
+    /**
+     * The game ended.
+     * @param status "dropout", "good_standing", "graduate" or "exit"
+     * @param gpa
+     */
+    public void onGameEnded(String status, double gpa) { }
+
+    /* ========================== PRE-ENCODED SCREENS ========================== */
+
+    // Static screens, rendered on first use with the colors above and kept as UTF-8 bytes.
+    private static final class Screens {
+
+        static final byte[] INPUT_INDICATOR;
+        static final byte[] EVENT_LINE;
+        static final byte[] GAME_INTRO;
+        static final byte[] WELCOME_INTRO;
+        static final byte[] GAME_MAP;
+        static final byte[] BASIC_COMMANDS;
+        static final byte[] COMMAND_OPTIONS;
+        static final byte[] FULL_COMMANDS;
+        static final byte[] DROPOUT_EXIT;
+        static final byte[] GOOD_STANDING_EXIT;
+        static final byte[] GRADUATING_EXIT;
+
+        static {
+            View palette = new View(new FrameBuffer());
+            INPUT_INDICATOR = encode(palette.BOLD + "\n> " + palette.RESET);
+            EVENT_LINE = encode(EVENT_LINE_TEXT);
+            GAME_INTRO = encode(palette.gameIntroText());
+            GAME_MAP = encode(palette.gameMapText());
+            BASIC_COMMANDS = encode(palette.basicCommandsText());
+            WELCOME_INTRO = encode(palette.welcomeIntroText());
+            COMMAND_OPTIONS = encode(palette.commandOptionsText());
+            FULL_COMMANDS = encode(palette.fullCommandsText());
+            DROPOUT_EXIT = encode(lines(palette.BOLD + palette.YELLOW + "\nSTATUS: COLLEGE DROPOUT\n" + palette.RESET));
+            GOOD_STANDING_EXIT = encode(lines(palette.BOLD + palette.LIGHT_GREY + "\nSTATUS: GOOD STANDING\n" + palette.RESET));
+            GRADUATING_EXIT = encode(lines(palette.BOLD + palette.GREEN + "\nSTATUS: COLLEGE GRADUATE\n" + palette.RESET));
+        }
+
+        private static byte[] encode(String text) {
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
     /* ========================== GAME INTRODUCTION ========================== */
 
-    public void showGameIntro() {
+    public void showGameIntro() { write(Screens.GAME_INTRO); }
+
+    private String gameIntroText() {
         String title = BOLD + GREEN +
                  " ___     _ _               ___ _               _     _        \n" +
                  "|  _|___| | |___ ___ ___  |  _| |_ _ _ ___._ _<_>___| |___ ___\n" +
@@ -61,27 +305,26 @@ public class View {
                 "\nEnter " + GREEN + "start" + RESET + " to begin or " + PINK + "exit" + RESET + " to end."
         };
 
-        showEventLine();
-        println(title);
-        printMessages(message);
+        return EVENT_LINE_TEXT + lines(title) + lines(message);
     }
 
     /* ========================== WELCOME MESSAGE & MAP ========================== */
 
-    public void showWelcomeIntro() {
+    public void showWelcomeIntro() { write(Screens.WELCOME_INTRO); }
+
+    private String welcomeIntroText() {
         String[] message = {
                 "My name is Whitney. \nI'm your advisor here at Not-So Ivy League College.",
                 "My job is to give you the important information you need to achieve here at NSI.",
                 "Below is a map and some basic rules that you will need to in order to succeed this semester."
         };
 
-        printMessages(message);
-        showGameMap();
-        showBasicCommands();
-        print(BOLD + "\nPRESS ENTER TO CONTINUE" + RESET);
+        return lines(message) + gameMapText() + basicCommandsText() + BOLD + "\nPRESS ENTER TO CONTINUE" + RESET;
     }
 
-    public void showGameMap() {
+    public void showGameMap() { write(Screens.GAME_MAP); }
+
+    private String gameMapText() {
         String[] message = {
                 BOLD + "\nCAMPUS MAP" + RESET,
                 "\nStarting Room = " + GREEN + "Green Dot" + RESET,
@@ -105,12 +348,14 @@ public class View {
                 "                                   *----------*       *--------*      *-----------*                   "
         };
 
-        printMessages(message);
+        return lines(message);
     }
 
     /* ========================== IN-GAME COMMANDS ========================== */
 
-    public void showBasicCommands() {
+    public void showBasicCommands() { write(Screens.BASIC_COMMANDS); }
+
+    private String basicCommandsText() {
         String[] message = {
                 BOLD + "RULES:" + RESET,
                 "- Move " + GREEN + "(n)" + RESET + "orth",
@@ -121,11 +366,13 @@ public class View {
                 "- Exit Game " + PINK + "(exit)" + RESET
         };
 
-        printMessages(message);
+        return lines(message);
     }
 
-    public void showCommandOptions() {
-        println(
+    public void showCommandOptions() { write(Screens.COMMAND_OPTIONS); }
+
+    private String commandOptionsText() {
+        return lines(
                 "\nEnter "
                         + GREEN + "(n)" + RESET + "orth, "
                         + GREEN + "(e)" + RESET + "ast, "
@@ -137,7 +384,9 @@ public class View {
 
     /* ========================== COMPLETE GAME COMMANDS & INSTRUCTIONS ========================== */
 
-    public void showFullCommandsAndInstructions() {
+    public void showFullCommandsAndInstructions() { write(Screens.FULL_COMMANDS); }
+
+    private String fullCommandsText() {
         String title = BOLD + ITALIC + "COMMAND LIST:\n" + RESET;
         String[] message = {
                 BOLD + "Movement Actions:" + RESET,
@@ -189,29 +438,17 @@ public class View {
                 "                                   *----------*       *--------*      *-----------*                   "
         };
 
-        showEventLine();
-        println(title);
-        printMessages(message);
-        showEventLine();
-        println(title3);
-        printMessages(message3);
-        println("");
-        println(title2);
-        printMessages(message2);
-        println(BOLD + "\nPRESS ENTER TO CONTINUE" + RESET);
+        return EVENT_LINE_TEXT + lines(title) + lines(message)
+                + EVENT_LINE_TEXT + lines(title3) + lines(message3)
+                + lines("") + lines(title2) + lines(message2)
+                + lines(BOLD + "\nPRESS ENTER TO CONTINUE" + RESET);
     }
 
     /* ========================== EXIT GAME PRINTS ========================== */
 
-    public void showDropoutExit() {
-        println(BOLD + YELLOW + "\nSTATUS: COLLEGE DROPOUT\n" + RESET);
-    }
+    public void showDropoutExit() { write(Screens.DROPOUT_EXIT); }
 
-    public void showGoodStandingExit() {
-        println(BOLD + LIGHT_GREY + "\nSTATUS: GOOD STANDING\n" + RESET);
-    }
+    public void showGoodStandingExit() { write(Screens.GOOD_STANDING_EXIT); }
 
-    public void showGraduatingExit() {
-        println(BOLD + GREEN + "\nSTATUS: COLLEGE GRADUATE\n" + RESET);
-    }
+    public void showGraduatingExit() { write(Screens.GRADUATING_EXIT); }
 }